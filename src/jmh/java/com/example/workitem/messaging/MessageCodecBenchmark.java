@@ -0,0 +1,82 @@
+package com.example.workitem.messaging;
+
+import com.example.workitem.model.WorkItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the work-item-queue message: the JSON id/value map of earlier producers against the
+ * binary WorkItemMessage, and the decode paths of the consumer before and after the binary format.
+ * The body size of both formats is printed when the trial starts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    private static final String ID = "647a5efb406dc9099538d392";
+
+    private final Jackson2JsonMessageConverter jsonConverter = new Jackson2JsonMessageConverter();
+
+    private final WorkItemMessageConverter workItemConverter = new WorkItemMessageConverter();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, Object> jsonPayload;
+
+    private WorkItemMessage binaryPayload;
+
+    private Message jsonMessage;
+
+    private Message binaryMessage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jsonPayload = new HashMap<>();
+        jsonPayload.put("id", ID);
+        jsonPayload.put("value", 7);
+        binaryPayload = new WorkItemMessage(ID, 7);
+        jsonMessage = jsonConverter.toMessage(jsonPayload, new MessageProperties());
+        binaryMessage = workItemConverter.toMessage(binaryPayload, new MessageProperties());
+        System.out.printf("Bytes per message: json=%d binary=%d%n", jsonMessage.getBody().length, binaryMessage.getBody().length);
+    }
+
+    @Benchmark
+    public Message encodeJson() {
+        return jsonConverter.toMessage(jsonPayload, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message encodeBinary() {
+        return workItemConverter.toMessage(binaryPayload, new MessageProperties());
+    }
+
+    // The single listener before the binary format: body to String, then a second JSON parse into a WorkItem
+    @Benchmark
+    public WorkItem decodeJsonViaString() throws IOException {
+        return objectMapper.readValue(new String(jsonMessage.getBody(), StandardCharsets.UTF_8), WorkItem.class);
+    }
+
+    // JSON messages still queued during a rollout
+    @Benchmark
+    public WorkItemMessage decodeJson() {
+        return workItemConverter.fromMessage(jsonMessage);
+    }
+
+    @Benchmark
+    public WorkItemMessage decodeBinary() {
+        return workItemConverter.fromMessage(binaryMessage);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.workitem.service;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.exceptions.ReportGenerationException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills and exports the PDF report the way WorkItemServiceImpl does, once with the template held by
+ * ReportTemplateCache and once compiling report3.jrxml for every report.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfReportBenchmark {
+
+    // Rows in the report; the API only accepts values 1 to 10
+    @Param({"10", "1000"})
+    public int values;
+
+    private Map<Integer, ReportDto.ReportItem> reportData;
+
+    private ReportTemplateCache reportTemplateCache;
+
+    private byte[] template;
+
+    private Timer exportTimer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, JRException {
+        reportData = new HashMap<>();
+        for (int value = 1; value <= values; value++) {
+            ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+            reportItem.setTotalItems(value * 3);
+            reportItem.setProcessedItems(value);
+            reportData.put(value, reportItem);
+        }
+        reportTemplateCache = new ReportTemplateCache(new DefaultResourceLoader());
+        reportTemplateCache.getReport();
+        try (InputStream inputStream = getClass().getResourceAsStream("/report3.jrxml")) {
+            template = inputStream.readAllBytes();
+        }
+        exportTimer = new SimpleMeterRegistry().timer("workitem.report.pdf");
+    }
+
+    @Benchmark
+    public int cachedTemplate() throws JRException, FileNotFoundException, ReportGenerationException {
+        return fillAndExport(reportTemplateCache.getReport());
+    }
+
+    @Benchmark
+    public int freshlyCompiledTemplate() throws JRException, ReportGenerationException {
+        return fillAndExport(JasperCompileManager.compileReport(new ByteArrayInputStream(template)));
+    }
+
+    private int fillAndExport(JasperReport jasperReport) throws JRException, ReportGenerationException {
+        JRVirtualizer virtualizer = new JRGzipVirtualizer(10);
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("createdBy", "benchmark");
+        parameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+        JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, parameters, new ReportDataSource(reportData));
+        virtualizer.setReadOnly(true);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new FilledPdfReport(jasperPrint, virtualizer, exportTimer, ReportArtifactCache.pdfEtag(reportData)).exportTo(outputStream);
+        return outputStream.size();
+    }
+}
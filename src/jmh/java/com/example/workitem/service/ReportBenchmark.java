@@ -0,0 +1,110 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.IndexProperties;
+import com.example.workitem.config.OutboxProperties;
+import com.example.workitem.config.ReportProperties;
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.dtos.ReportExport;
+import com.example.workitem.model.WorkItem;
+import com.example.workitem.repositories.WorkItemIndexes;
+import com.example.workitem.repositories.WorkItemRepository;
+import com.example.workitem.repositories.WorkItemRepositoryCustomImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report calculation in each report mode against an embedded mongod holding synthetic work items. The collection is
+ * seeded once per trial, with the indexes the application creates and with report counters matching the items, so
+ * IN_MEMORY reads every work item through the repository, AGGREGATION groups them inside MongoDB and COUNTERS reads
+ * the counters document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReportBenchmark {
+
+    private static final int SEED_BATCH = 10_000;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int workItems;
+
+    @Param({"IN_MEMORY", "AGGREGATION", "COUNTERS"})
+    public ReportProperties.Mode mode;
+
+    private TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+
+    private MongoClient mongoClient;
+
+    private WorkItemServiceImpl workItemService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mongod = Mongod.instance().start(Version.Main.V6_0);
+        ServerAddress address = mongod.current().getServerAddress();
+        mongoClient = MongoClients.create("mongodb://" + address.getHost().getHostAddress() + ":" + address.getPort());
+        MongoTemplate mongoTemplate = new MongoTemplate(mongoClient, "report-benchmark");
+        WorkItemRepository workItemRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(
+                WorkItemRepository.class, RepositoryFragments.just(new WorkItemRepositoryCustomImpl(mongoTemplate)));
+
+        seedWorkItems(mongoTemplate, workItems);
+        new WorkItemIndexes(mongoTemplate, new IndexProperties()).ensureIndexes();
+
+        ReportProperties reportProperties = new ReportProperties();
+        reportProperties.setMode(mode);
+        ReportCounterStore reportCounterStore = new ReportCounterStore(mongoTemplate, reportProperties);
+        reportCounterStore.replace(0, workItemRepository.aggregateReportData());
+
+        workItemService = new WorkItemServiceImpl(workItemRepository, null, reportProperties, reportCounterStore,
+                new OutboxProperties(), null, null, new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoClient.close();
+        mongod.close();
+    }
+
+    @Benchmark
+    public ReportDto generateReport() {
+        return workItemService.generateReport();
+    }
+
+    @Benchmark
+    public List<ReportExport> getReportsForExport() {
+        return workItemService.getReportsForExport();
+    }
+
+    // Values 1 to 10 as accepted by the API, roughly a third of them processed, inserted in batches
+    private static void seedWorkItems(MongoTemplate mongoTemplate, int count) {
+        Random random = new Random(42);
+        List<WorkItem> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < count; i++) {
+            WorkItem workItem = new WorkItem(random.nextInt(10) + 1);
+            workItem.setProcessed(random.nextInt(3) == 0);
+            workItem.setDispatched(true);
+            batch.add(workItem);
+            if (batch.size() == SEED_BATCH || i == count - 1) {
+                mongoTemplate.insert(batch, WorkItem.class);
+                batch = new ArrayList<>(SEED_BATCH);
+            }
+        }
+    }
+}
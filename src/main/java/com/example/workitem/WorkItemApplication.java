@@ -7,11 +7,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @SpringBootApplication
 @EnableConfigurationProperties(RabbitMQProperties.class)
 @Import(RabbitMQConfig.class)
+@EnableScheduling
 public class WorkItemApplication {
 
     public static void main(String[] args) {
@@ -19,10 +21,11 @@ public class WorkItemApplication {
     }
 
     @Bean
-    public ThreadPoolTaskExecutor taskExecutor() {
+    public ThreadPoolTaskExecutor taskExecutor(RabbitMQProperties rabbitMQProperties) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2); // Set the maximum number of concurrent threads
-        executor.setMaxPoolSize(2);
+        // Every listener consumer holds a thread, so the pool must fit the maximum number of consumers
+        executor.setCorePoolSize(rabbitMQProperties.getMaxConsumers());
+        executor.setMaxPoolSize(rabbitMQProperties.getMaxConsumers());
         executor.setQueueCapacity(1000);
         return executor;
     }
@@ -0,0 +1,20 @@
+package com.example.workitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "workitem.batch")
+public class BatchProperties {
+
+    // Largest number of work items accepted by one POST /work-items/batch request
+    private int maxSize = 10000;
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+}
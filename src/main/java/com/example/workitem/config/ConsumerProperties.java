@@ -0,0 +1,82 @@
+package com.example.workitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "workitem.consumer")
+public class ConsumerProperties {
+
+    private final Batch batch = new Batch();
+
+    private final Autoscale autoscale = new Autoscale();
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Autoscale getAutoscale() {
+        return autoscale;
+    }
+
+    public static class Batch {
+
+        // Consume work-item-queue in batches instead of one message at a time
+        private boolean enabled = false;
+
+        // Maximum number of messages handed to one listener call
+        private int size = 100;
+
+        // How long to wait for more messages before a partial batch is processed
+        private long receiveTimeoutMs = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public long getReceiveTimeoutMs() {
+            return receiveTimeoutMs;
+        }
+
+        public void setReceiveTimeoutMs(long receiveTimeoutMs) {
+            this.receiveTimeoutMs = receiveTimeoutMs;
+        }
+    }
+
+    public static class Autoscale {
+
+        // Resize the listener container between the minimum and maximum consumers from the queue depth
+        private boolean enabled = false;
+
+        // How long the current backlog may take to drain before more consumers are started
+        private long targetDrainSeconds = 30;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getTargetDrainSeconds() {
+            return targetDrainSeconds;
+        }
+
+        public void setTargetDrainSeconds(long targetDrainSeconds) {
+            this.targetDrainSeconds = targetDrainSeconds;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.workitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "workitem.indexes")
+public class IndexProperties {
+
+    // Creates the indexes declared on WorkItem at startup when they are missing
+    private boolean ensureOnStartup = true;
+
+    // Logs the query plan of the hot work item queries at startup and warns about any collection scan
+    private boolean explainOnStartup = true;
+
+    public boolean isEnsureOnStartup() {
+        return ensureOnStartup;
+    }
+
+    public void setEnsureOnStartup(boolean ensureOnStartup) {
+        this.ensureOnStartup = ensureOnStartup;
+    }
+
+    public boolean isExplainOnStartup() {
+        return explainOnStartup;
+    }
+
+    public void setExplainOnStartup(boolean explainOnStartup) {
+        this.explainOnStartup = explainOnStartup;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.workitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "workitem.outbox")
+public class OutboxProperties {
+
+    // Leave publishing to the outbox relay instead of sending inside the create request
+    private boolean enabled = true;
+
+    // Delay between the end of one relay round and the start of the next
+    private long pollIntervalMs = 200;
+
+    // Number of undispatched work items published per relay round
+    private int batchSize = 500;
+
+    // How long the relay waits for the broker to confirm a round
+    private long confirmTimeoutMs = 30000;
+
+    // How long a claimed batch is reserved for this instance; must exceed the confirm timeout
+    private long leaseMs = 60000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    public void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getConfirmTimeoutMs() {
+        return confirmTimeoutMs;
+    }
+
+    public void setConfirmTimeoutMs(long confirmTimeoutMs) {
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    public long getLeaseMs() {
+        return leaseMs;
+    }
+
+    public void setLeaseMs(long leaseMs) {
+        this.leaseMs = leaseMs;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.workitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "workitem.processing")
+public class ProcessingProperties {
+
+    private final Cache cache = new Cache();
+
+    // Processor used for messages without an AMQP type property
+    private String defaultType = "square";
+
+    // Simulated processing time of the square processor, multiplied by the work item value
+    private long delayPerValueMs = 10;
+
+    // Threads completing the simulated delays; they only fire timers, so one can keep thousands of work items waiting
+    private int schedulerThreads = 1;
+
+    // Threads storing processing results, so the timer threads never wait on MongoDB
+    private int persistenceThreads = 8;
+
+    public String getDefaultType() {
+        return defaultType;
+    }
+
+    public void setDefaultType(String defaultType) {
+        this.defaultType = defaultType;
+    }
+
+    public long getDelayPerValueMs() {
+        return delayPerValueMs;
+    }
+
+    public void setDelayPerValueMs(long delayPerValueMs) {
+        this.delayPerValueMs = delayPerValueMs;
+    }
+
+    public int getSchedulerThreads() {
+        return schedulerThreads;
+    }
+
+    public void setSchedulerThreads(int schedulerThreads) {
+        this.schedulerThreads = schedulerThreads;
+    }
+
+    public int getPersistenceThreads() {
+        return persistenceThreads;
+    }
+
+    public void setPersistenceThreads(int persistenceThreads) {
+        this.persistenceThreads = persistenceThreads;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public static class Cache {
+
+        // Reuse the result of pure processors for work items with the same input
+        private boolean enabled = true;
+
+        // Maximum number of cached results, the least recently used one is dropped beyond it
+        private int maxEntries = 1000;
+
+        // How long a cached result is reused
+        private long ttlMs = 600000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTtlMs() {
+            return ttlMs;
+        }
+
+        public void setTtlMs(long ttlMs) {
+            this.ttlMs = ttlMs;
+        }
+    }
+}
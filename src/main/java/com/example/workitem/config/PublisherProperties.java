@@ -0,0 +1,75 @@
+package com.example.workitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "workitem.publisher")
+public class PublisherProperties {
+
+    // Wait for a broker confirm for every message and retry the ones that are nacked or returned
+    private boolean confirms = true;
+
+    // Maximum number of published messages still waiting for a confirm; further sends wait for one to be confirmed
+    private int maxOutstandingConfirms = 1000;
+
+    // How long a send blocks for a free confirm slot before its future fails
+    private long outstandingConfirmsTimeoutMs = 5000;
+
+    // Number of times a message is published before its future fails
+    private int maxAttempts = 3;
+
+    // Delay before the first retry, doubled on every further attempt
+    private long retryBackoffMs = 100;
+
+    // Publish work items in the compact binary format; turn off while consumers that only read JSON are running
+    private boolean binaryMessages = true;
+
+    public boolean isConfirms() {
+        return confirms;
+    }
+
+    public void setConfirms(boolean confirms) {
+        this.confirms = confirms;
+    }
+
+    public int getMaxOutstandingConfirms() {
+        return maxOutstandingConfirms;
+    }
+
+    public void setMaxOutstandingConfirms(int maxOutstandingConfirms) {
+        this.maxOutstandingConfirms = maxOutstandingConfirms;
+    }
+
+    public long getOutstandingConfirmsTimeoutMs() {
+        return outstandingConfirmsTimeoutMs;
+    }
+
+    public void setOutstandingConfirmsTimeoutMs(long outstandingConfirmsTimeoutMs) {
+        this.outstandingConfirmsTimeoutMs = outstandingConfirmsTimeoutMs;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    public void setRetryBackoffMs(long retryBackoffMs) {
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    public boolean isBinaryMessages() {
+        return binaryMessages;
+    }
+
+    public void setBinaryMessages(boolean binaryMessages) {
+        this.binaryMessages = binaryMessages;
+    }
+}
@@ -23,6 +23,15 @@ public class RabbitMQProperties {
     @Value("${spring.rabbitmq.virtual-host}")
     private String virtualHost;
 
+    @Value("${spring.rabbitmq.listener.simple.concurrency:2}")
+    private int minConsumers;
+
+    @Value("${spring.rabbitmq.listener.simple.max-concurrency:8}")
+    private int maxConsumers;
+
+    @Value("${spring.rabbitmq.listener.simple.prefetch:250}")
+    private int prefetch;
+
     public String getHost() {
         return host;
     }
@@ -43,6 +52,18 @@ public class RabbitMQProperties {
         return virtualHost;
     }
 
+    public int getMinConsumers() {
+        return minConsumers;
+    }
+
+    public int getMaxConsumers() {
+        return maxConsumers;
+    }
+
+    public int getPrefetch() {
+        return prefetch;
+    }
+
 
 }
 
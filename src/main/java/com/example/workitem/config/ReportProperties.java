@@ -0,0 +1,123 @@
+package com.example.workitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "workitem.report")
+public class ReportProperties {
+
+    public enum Mode {
+        // Loads every work item into the heap and counts them in the application
+        IN_MEMORY,
+        // Groups the work items by value inside MongoDB and reads back at most one row per value
+        AGGREGATION,
+        // Reads the report_counters document that is kept up to date on create, delete and process
+        COUNTERS
+    }
+
+    private Mode mode = Mode.AGGREGATION;
+
+    private final Cache cache = new Cache();
+
+    private final Jobs jobs = new Jobs();
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public static class Cache {
+
+        // Serve unchanged reports from memory instead of querying MongoDB and running JasperReports again
+        private boolean enabled = true;
+
+        // Upper bound on the age of a cached report; changes made by other instances show up after at most this long
+        private long ttlMs = 30000;
+
+        // Maximum number of cached report artifacts, the least recently used is evicted first
+        private int maxEntries = 16;
+
+        // Streamed PDFs larger than this are sent without being cached
+        private int maxArtifactBytes = 1048576;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getTtlMs() {
+            return ttlMs;
+        }
+
+        public void setTtlMs(long ttlMs) {
+            this.ttlMs = ttlMs;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public int getMaxArtifactBytes() {
+            return maxArtifactBytes;
+        }
+
+        public void setMaxArtifactBytes(int maxArtifactBytes) {
+            this.maxArtifactBytes = maxArtifactBytes;
+        }
+    }
+
+    public static class Jobs {
+
+        // Report jobs generated at the same time, each on its own thread outside the servlet pool
+        private int maxConcurrent = 2;
+
+        // Report jobs waiting for a thread; further jobs are rejected with 503
+        private int queueCapacity = 20;
+
+        // How long a finished job and its report are kept for polling
+        private long retentionMs = 600000;
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getRetentionMs() {
+            return retentionMs;
+        }
+
+        public void setRetentionMs(long retentionMs) {
+            this.retentionMs = retentionMs;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.workitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "workitem.retry")
+public class RetryProperties {
+
+    // Times a failed work item is retried through the retry queues before it is parked
+    private int maxRetries = 3;
+
+    // Delay before the first retry
+    private long initialIntervalMs = 1000;
+
+    // Factor applied to the delay for every further retry
+    private double multiplier = 2.0;
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getInitialIntervalMs() {
+        return initialIntervalMs;
+    }
+
+    public void setInitialIntervalMs(long initialIntervalMs) {
+        this.initialIntervalMs = initialIntervalMs;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public void setMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    // Delay before the given retry, starting at 1
+    public long delayMs(int retry) {
+        return Math.round(initialIntervalMs * Math.pow(multiplier, retry - 1));
+    }
+}
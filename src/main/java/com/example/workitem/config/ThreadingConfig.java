@@ -0,0 +1,53 @@
+package com.example.workitem.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+@Configuration
+public class ThreadingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadingConfig.class);
+
+    private final ThreadingProperties threadingProperties;
+
+    public ThreadingConfig(ThreadingProperties threadingProperties) {
+        this.threadingProperties = threadingProperties;
+    }
+
+    // Runs the RabbitMQ listener consumers, either on the shared thread pool or on one virtual thread per consumer
+    @Bean
+    public Executor listenerTaskExecutor(ThreadPoolTaskExecutor taskExecutor) {
+        return virtualThreadExecutor("work-item-consumer-").orElse(taskExecutor);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "workitem.threads", name = "mode", havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> virtualThreadExecutor("http-").ifPresent(protocolHandler::setExecutor);
+    }
+
+    private Optional<Executor> virtualThreadExecutor(String threadNamePrefix) {
+        if (threadingProperties.getMode() != ThreadingProperties.Mode.VIRTUAL) {
+            return Optional.empty();
+        }
+
+        Optional<ThreadFactory> threadFactory = VirtualThreads.threadFactory(threadNamePrefix);
+        if (threadFactory.isEmpty()) {
+            logger.warn("Virtual threads are not available on Java {}, falling back to platform threads for {}",
+                    Runtime.version().feature(), threadNamePrefix);
+            return Optional.empty();
+        }
+        return Optional.of(new SimpleAsyncTaskExecutor(threadFactory.get()));
+    }
+}
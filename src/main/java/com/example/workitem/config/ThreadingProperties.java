@@ -0,0 +1,42 @@
+package com.example.workitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "workitem.threads")
+public class ThreadingProperties {
+
+    public enum Mode {
+        // Listener consumers and Tomcat requests run on pooled platform threads
+        PLATFORM,
+        // Listener consumers and Tomcat requests each run on their own virtual thread (requires Java 21 at runtime)
+        VIRTUAL
+    }
+
+    private Mode mode = Mode.PLATFORM;
+
+    // Consumers on work-item-queue in virtual mode, each on its own virtual thread
+    private int virtualConsumers = 100;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public int getVirtualConsumers() {
+        return virtualConsumers;
+    }
+
+    public void setVirtualConsumers(int virtualConsumers) {
+        this.virtualConsumers = virtualConsumers;
+    }
+
+    // Virtual mode only takes effect on a runtime that has virtual threads, otherwise the platform settings apply
+    public boolean usesVirtualThreads() {
+        return mode == Mode.VIRTUAL && VirtualThreads.isSupported();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.workitem.config;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Looks up the virtual thread API reflectively. The project compiles for Java 17, where Thread.ofVirtual() does not
+ * exist, but virtual threads are used when the application runs on Java 21 or later.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return threadFactory("probe-").isPresent();
+    }
+
+    // Returns a factory for virtual threads named prefix0, prefix1, ... or empty when the runtime has no virtual threads
+    public static Optional<ThreadFactory> threadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Method name = builderType.getMethod("name", String.class, long.class);
+            Method factory = builderType.getMethod("factory");
+            return Optional.of((ThreadFactory) factory.invoke(name.invoke(builder, prefix, 0L)));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.workitem.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes through to the response and keeps a copy of what was written, as long as it stays under a size limit.
+ * Lets a streamed report be cached when it is small without buffering large ones.
+ */
+final class CappedCopyOutputStream extends FilterOutputStream {
+
+    private final int maxCopyBytes;
+
+    private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+    CappedCopyOutputStream(OutputStream out, int maxCopyBytes) {
+        super(out);
+        this.maxCopyBytes = maxCopyBytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        copy(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        copy(b, off, len);
+    }
+
+    // Returns everything written, or null once the output grew past the limit
+    byte[] copied() {
+        return copy == null ? null : copy.toByteArray();
+    }
+
+    private void copy(byte[] b, int off, int len) {
+        if (copy == null) {
+            return;
+        }
+        if (copy.size() + len > maxCopyBytes) {
+            copy = null;
+            return;
+        }
+        copy.write(b, off, len);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.workitem.controller;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.exceptions.UnknownExportFormatException;
+import com.example.workitem.model.WorkItem;
+import com.example.workitem.service.ExportFormat;
+import com.example.workitem.service.WorkItemService;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Streams through the servlet response, so the reactive profile has no exports
+@RestController
+@Profile("!reactive")
+@Tag(name = "Exports", description = "Endpoints to export work items and the report as CSV, XLSX or a columnar binary file.")
+@RequestMapping("/work-items/export")
+public class ExportController {
+
+    private final WorkItemService workItemService;
+
+    @Autowired
+    public ExportController(WorkItemService workItemService) {
+        this.workItemService = workItemService;
+    }
+
+    @GetMapping("/items")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Every matching work item, written as they are read from MongoDB"),
+            @ApiResponse(responseCode = "400", description = "Unknown export format", content = @Content(mediaType = "text/plain")),
+            @ApiResponse(responseCode = "406", description = "No export format matches the Accept header")
+    })
+    public ResponseEntity<StreamingResponseBody> exportWorkItems(@RequestParam(required = false) String format,
+                                                                 @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                 @RequestParam(required = false) Boolean processed,
+                                                                 @RequestParam(required = false) Integer value) {
+        ExportFormat exportFormat = resolveFormat(format, accept);
+
+        StreamingResponseBody body = outputStream -> {
+            // The writer pulls rows off the iterator as it encodes them; closing the stream releases the cursor even
+            // when the client disconnects halfway through the file
+            try (Stream<WorkItem> workItems = workItemService.streamWorkItems(processed, value)) {
+                exportFormat.getWriter().writeWorkItems(workItems.iterator(), outputStream);
+            }
+        };
+        return ResponseEntity.ok().headers(exportHeaders(exportFormat, "work-items")).body(body);
+    }
+
+    @GetMapping("/report")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Total and processed work items for each value"),
+            @ApiResponse(responseCode = "400", description = "Unknown export format", content = @Content(mediaType = "text/plain")),
+            @ApiResponse(responseCode = "406", description = "No export format matches the Accept header")
+    })
+    public ResponseEntity<StreamingResponseBody> exportReport(@RequestParam(required = false) String format,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ExportFormat exportFormat = resolveFormat(format, accept);
+
+        Map<Integer, ReportDto.ReportItem> reportData = workItemService.generateReport().getReportData();
+        StreamingResponseBody body = outputStream -> exportFormat.getWriter().writeReport(reportData, outputStream);
+        return ResponseEntity.ok().headers(exportHeaders(exportFormat, "report")).body(body);
+    }
+
+    @ExceptionHandler(UnknownExportFormatException.class)
+    public ResponseEntity<String> handleUnknownExportFormat(UnknownExportFormatException e) {
+        return ResponseEntity.status(e.getStatus()).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+    }
+
+    // The format parameter wins over Accept; without either, or with */*, the export is CSV
+    private ExportFormat resolveFormat(String format, String accept) {
+        if (format != null) {
+            ExportFormat exportFormat = ExportFormat.fromName(format);
+            if (exportFormat == null) {
+                throw new UnknownExportFormatException(HttpStatus.BAD_REQUEST, "Unknown export format: " + format);
+            }
+            return exportFormat;
+        }
+        if (accept == null || accept.isBlank()) {
+            return ExportFormat.CSV;
+        }
+
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            throw new UnknownExportFormatException(HttpStatus.BAD_REQUEST, "Invalid Accept header: " + accept);
+        }
+        MimeTypeUtils.sortBySpecificity(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            for (ExportFormat exportFormat : ExportFormat.values()) {
+                if (mediaType.includes(MediaType.parseMediaType(exportFormat.getContentType()))) {
+                    return exportFormat;
+                }
+            }
+        }
+        throw new UnknownExportFormatException(HttpStatus.NOT_ACCEPTABLE, "No export format matches " + accept);
+    }
+
+    private HttpHeaders exportHeaders(ExportFormat exportFormat, String name) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(exportFormat.getContentType()));
+        headers.setContentDispositionFormData("attachment", name + "." + exportFormat.getExtension());
+        return headers;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.workitem.controller;
+
+import com.example.workitem.messaging.ParkingLotReplayer;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@Tag(name = "Parking Lot", description = "Endpoints to inspect and replay work item messages that ran out of retries.")
+@RequestMapping("/admin/parking-lot")
+public class ParkingLotController {
+
+    static final int MAX_REPLAY_LIMIT = 10000;
+
+    private final ParkingLotReplayer parkingLotReplayer;
+
+    @Autowired
+    public ParkingLotController(ParkingLotReplayer parkingLotReplayer) {
+        this.parkingLotReplayer = parkingLotReplayer;
+    }
+
+    @GetMapping
+    @ApiResponse(responseCode = "200", description = "Number of parked messages", content = @Content(mediaType = "application/json"))
+    public ResponseEntity<Map<String, Long>> getParkedCount() {
+        return ResponseEntity.ok(Map.of("parked", parkingLotReplayer.getParkedCount()));
+    }
+
+    @PostMapping("/replay")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Parked messages moved back to the work item queue", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Limit out of range", content = @Content(mediaType = "text/plain"))
+    })
+    public ResponseEntity<?> replay(@RequestParam(defaultValue = "1000") int limit) {
+        if (limit < 1 || limit > MAX_REPLAY_LIMIT) {
+            return ResponseEntity.badRequest().body("Limit must be between 1 and " + MAX_REPLAY_LIMIT);
+        }
+        return ResponseEntity.ok(Map.of("replayed", parkingLotReplayer.replay(limit)));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.workitem.controller;
+
+import com.example.workitem.dtos.CreateWorkItemDto;
+import com.example.workitem.dtos.CreateWorkItemResponseDto;
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.dtos.ReportExport;
+import com.example.workitem.model.WorkItem;
+import com.example.workitem.service.ReactiveWorkItemService;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * The work item endpoints of {@link WorkItemController} for the reactive profile, with the same paths, status codes
+ * and bodies, returning Mono and Flux. Batch creation, the PDF report and the exports are only served by the
+ * servlet stack.
+ */
+@RestController
+@Profile("reactive")
+@Tag(name="Work Items", description = "Endpoints to process, retrieve, and to generate reports of work items.")
+@RequestMapping("/work-items")
+public class ReactiveWorkItemController {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveWorkItemService reactiveWorkItemService;
+    private final Validator validator;
+
+    @Autowired
+    public ReactiveWorkItemController(ReactiveWorkItemService reactiveWorkItemService, Validator validator) {
+        this.reactiveWorkItemService = reactiveWorkItemService;
+        this.validator = validator;
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<WorkItem>>> getAllWorkItems(@RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                                @RequestParam(required = false) Boolean processed,
+                                                                @RequestParam(required = false) Integer value) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String afterId = cursor == null ? null : WorkItemCursor.decode(cursor);
+
+        // One extra work item tells whether there is a next page without a separate count
+        return reactiveWorkItemService.getWorkItemsPage(afterId, pageSize + 1, processed, value)
+                .collectList()
+                .map(workItems -> {
+                    if (workItems.size() <= pageSize) {
+                        return ResponseEntity.ok(workItems);
+                    }
+                    List<WorkItem> page = workItems.subList(0, pageSize);
+                    return ResponseEntity.ok()
+                            .header(WorkItemController.NEXT_CURSOR_HEADER, WorkItemCursor.encode(page.get(pageSize - 1).getId()))
+                            .body(page);
+                });
+    }
+
+    // Written as the Mongo cursor delivers them, at the pace the client reads
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<WorkItem> streamWorkItems(@RequestParam(required = false) Boolean processed,
+                                          @RequestParam(required = false) Integer value) {
+        return reactiveWorkItemService.streamWorkItems(processed, value);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Object>> createWorkItem(@RequestBody Mono<CreateWorkItemDto> createWorkItemDto) {
+        return createWorkItemDto.flatMap(dto -> {
+            List<String> errors = validator.validate(dto).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .toList();
+            if (!errors.isEmpty()) {
+                return Mono.just(ResponseEntity.badRequest().<Object>body(errors));
+            }
+            return reactiveWorkItemService.createWorkItem(dto.getValue())
+                    .map(id -> ResponseEntity.status(HttpStatus.CREATED).<Object>body(new CreateWorkItemResponseDto(id)));
+        });
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Object>> getWorkItem(@PathVariable String id) {
+        return reactiveWorkItemService.getWorkItem(id)
+                .map(workItem -> ResponseEntity.ok().<Object>body(workItem))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Work item not found"));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<String>> deleteWorkItem(@PathVariable String id) {
+        return reactiveWorkItemService.getWorkItem(id)
+                .flatMap(workItem -> {
+                    if (workItem.isProcessed()) {
+                        return Mono.just(ResponseEntity.badRequest().body("Work item has been processed and cannot be deleted"));
+                    }
+                    return reactiveWorkItemService.deleteWorkItem(id)
+                            .thenReturn(ResponseEntity.status(HttpStatus.NO_CONTENT).body("Work item deleted successfully"));
+                })
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Work item not found"));
+    }
+
+    @GetMapping("/report")
+    public Mono<ReportDto> getReport() {
+        return reactiveWorkItemService.generateReport();
+    }
+
+    // One row per value, sent as soon as it is calculated instead of after the whole report
+    @GetMapping(value = "/report/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ReportExport> streamReport() {
+        return reactiveWorkItemService.streamReport();
+    }
+}
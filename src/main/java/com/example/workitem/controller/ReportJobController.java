@@ -0,0 +1,95 @@
+package com.example.workitem.controller;
+
+import com.example.workitem.dtos.ReportJobDto;
+import com.example.workitem.exceptions.ReportJobRejectedException;
+import com.example.workitem.service.ReportFormat;
+import com.example.workitem.service.ReportJob;
+import com.example.workitem.service.ReportJobService;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@Tag(name = "Report Jobs", description = "Endpoints to generate reports in the background and download them when ready.")
+@RequestMapping("/work-items/reports")
+public class ReportJobController {
+
+    private final ReportJobService reportJobService;
+
+    @Autowired
+    public ReportJobController(ReportJobService reportJobService) {
+        this.reportJobService = reportJobService;
+    }
+
+    @PostMapping
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Report job queued, poll the Location header for the report", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ReportJobDto.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Unknown report format", content = @Content(mediaType = "text/plain")),
+            @ApiResponse(responseCode = "503", description = "Too many report jobs queued", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> createReportJob(@RequestParam(defaultValue = "pdf") String format) {
+        ReportFormat reportFormat = ReportFormat.fromName(format);
+        if (reportFormat == null) {
+            return ResponseEntity.badRequest().body("Unknown report format: " + format);
+        }
+
+        try {
+            ReportJob job = reportJobService.submit(reportFormat);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/work-items/reports/" + job.getId()))
+                    .body(toDto(job));
+        } catch (ReportJobRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Report ready, the body is the report itself"),
+            @ApiResponse(responseCode = "202", description = "Report job still queued or running", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ReportJobDto.class))
+            }),
+            @ApiResponse(responseCode = "404", description = "Report job not found", content = @Content(mediaType = "text/plain")),
+            @ApiResponse(responseCode = "500", description = "Report job failed", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ReportJobDto.class))
+            })
+    })
+    public ResponseEntity<?> getReportJob(@PathVariable String id) {
+        ReportJob job = reportJobService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Report job not found");
+        }
+
+        return switch (job.getStatus()) {
+            case DONE -> {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.parseMediaType(job.getFormat().getContentType()));
+                headers.setContentDispositionFormData("attachment", job.getFormat().getFileName());
+                headers.setETag(job.getEtag());
+                yield new ResponseEntity<>(job.getReport(), headers, HttpStatus.OK);
+            }
+            case FAILED -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(toDto(job));
+            default -> ResponseEntity.accepted().body(toDto(job));
+        };
+    }
+
+    private ReportJobDto toDto(ReportJob job) {
+        return new ReportJobDto(job.getId(), job.getFormat().name().toLowerCase(Locale.ROOT), job.getStatus().name(), job.getError());
+    }
+}
@@ -1,21 +1,36 @@
 package com.example.workitem.controller;
 
 
+import com.example.workitem.config.BatchProperties;
+import com.example.workitem.dtos.BatchItemResultDto;
 import com.example.workitem.dtos.CreateWorkItemDto;
 import com.example.workitem.dtos.CreateWorkItemResponseDto;
 import com.example.workitem.dtos.ReportDto;
 import com.example.workitem.exceptions.EmptyReportDataException;
 import com.example.workitem.exceptions.ReportGenerationException;
 import com.example.workitem.model.WorkItem;
+import com.example.workitem.service.FilledPdfReport;
+import com.example.workitem.service.ReportArtifactCache;
 import com.example.workitem.service.WorkItemService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
-import net.sf.jasperreports.engine.JRException;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -24,28 +39,87 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// Served by ReactiveWorkItemController in the reactive profile
 @RestController
+@Profile("!reactive")
 @Validated
 @Tag(name="Work Items", description = "Endpoints to process, retrieve, and to generate reports of work items.")
 @RequestMapping("/work-items")
 public class WorkItemController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final WorkItemService workItemService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final BatchProperties batchProperties;
+    private final ReportArtifactCache reportArtifactCache;
 
     @Autowired
-    public WorkItemController(WorkItemService workItemService) {
+    public WorkItemController(WorkItemService workItemService, ObjectMapper objectMapper, Validator validator,
+                              BatchProperties batchProperties, ReportArtifactCache reportArtifactCache) {
         this.workItemService = workItemService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchProperties = batchProperties;
+        this.reportArtifactCache = reportArtifactCache;
     }
 
     @GetMapping
-    public List<WorkItem> getAllWorkItems() {
-        return workItemService.getAllWorkItems();
+    @ApiResponse(responseCode = "200", description = "One page of work items in id order. The X-Next-Cursor header is set when more work items follow",
+            headers = @Header(name = NEXT_CURSOR_HEADER, description = "Pass as cursor to fetch the next page"),
+            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = WorkItem.class))))
+    public ResponseEntity<List<WorkItem>> getAllWorkItems(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                          @RequestParam(required = false) Boolean processed,
+                                                          @RequestParam(required = false) Integer value) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String afterId = cursor == null ? null : WorkItemCursor.decode(cursor);
+
+        // One extra work item tells whether there is a next page without a separate count
+        List<WorkItem> workItems = workItemService.getWorkItemsPage(afterId, pageSize + 1, processed, value);
+        if (workItems.size() <= pageSize) {
+            return ResponseEntity.ok(workItems);
+        }
+
+        List<WorkItem> page = workItems.subList(0, pageSize);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, WorkItemCursor.encode(page.get(pageSize - 1).getId()))
+                .body(page);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ApiResponse(responseCode = "200", description = "Every matching work item, one JSON document per line, written as they are read",
+            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE))
+    public ResponseEntity<StreamingResponseBody> streamWorkItems(@RequestParam(required = false) Boolean processed,
+                                                                 @RequestParam(required = false) Integer value) {
+        // Tomcat's response buffer decides when to flush, not every single work item
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            // The Mongo cursor is opened and closed on the streaming thread, only one batch is held in memory
+            try (Stream<WorkItem> workItems = workItemService.streamWorkItems(processed, value);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                for (WorkItem workItem : (Iterable<WorkItem>) workItems::iterator) {
+                    writer.writeValue(generator, workItem);
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PostMapping
@@ -69,6 +143,78 @@ public class WorkItemController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
     }
 
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "All work items created, ids are returned in request order", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = BatchItemResultDto.class))
+            }),
+            @ApiResponse(responseCode = "207", description = "Some work items were invalid, each result carries either an id or its errors", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = BatchItemResultDto.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Malformed body, empty or oversized batch, or no valid work items",
+                    content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> createWorkItems(InputStream body) throws IOException {
+        List<BatchItemResultDto> results = new ArrayList<>();
+        List<BatchItemResultDto> accepted = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+
+        // A JSON array is read element by element, NDJSON one value per line
+        try (MappingIterator<JsonNode> items = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+            while (items.hasNextValue()) {
+                JsonNode item = items.nextValue();
+                if (results.size() == batchProperties.getMaxSize()) {
+                    return ResponseEntity.badRequest()
+                            .body(List.of("Batch must contain at most " + batchProperties.getMaxSize() + " work items"));
+                }
+
+                BatchItemResultDto result = new BatchItemResultDto(results.size());
+                results.add(result);
+                CreateWorkItemDto createWorkItemDto = readBatchItem(item);
+                List<String> errors = createWorkItemDto == null
+                        ? List.of("Value must be a valid number")
+                        : validator.validate(createWorkItemDto).stream()
+                                .map(ConstraintViolation::getMessage)
+                                .collect(Collectors.toList());
+                if (errors.isEmpty()) {
+                    accepted.add(result);
+                    values.add(createWorkItemDto.getValue());
+                } else {
+                    result.setErrors(errors);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().body(List.of("Malformed batch body"));
+        }
+
+        if (results.isEmpty()) {
+            return ResponseEntity.badRequest().body(List.of("Batch must contain at least one work item"));
+        }
+        if (accepted.isEmpty()) {
+            return ResponseEntity.badRequest().body(results);
+        }
+
+        List<String> ids = workItemService.createWorkItems(values);
+        for (int i = 0; i < ids.size(); i++) {
+            accepted.get(i).setId(ids.get(i));
+        }
+
+        HttpStatus status = accepted.size() == results.size() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(results);
+    }
+
+    // Invalid JSON for a single item is reported against that item, not the whole batch
+    private CreateWorkItemDto readBatchItem(JsonNode item) {
+        if (!item.isObject()) {
+            return null;
+        }
+        try {
+            return objectMapper.treeToValue(item, CreateWorkItemDto.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
 
     @GetMapping("/{id}")
     @ApiResponses(value = {
@@ -113,11 +259,23 @@ public class WorkItemController {
 
 
     @GetMapping("/report")
-    @ApiResponse(responseCode = "200", description = "Success", content = {
-            @Content(mediaType = "application/json", schema = @Schema(implementation = ReportDto.class))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ReportDto.class))
+            }),
+            @ApiResponse(responseCode = "304", description = "Report unchanged since the ETag sent in If-None-Match")
     })
-    public ReportDto getReport() {
-       return workItemService.generateReport();
+    public ResponseEntity<ReportDto> getReport() {
+        ReportArtifactCache.ReportArtifact<ReportDto> report = reportArtifactCache.get(ReportArtifactCache.REPORT_KEY);
+        if (report == null) {
+            long version = reportArtifactCache.currentVersion();
+            ReportDto reportDto = workItemService.generateReport();
+            report = reportArtifactCache.put(ReportArtifactCache.REPORT_KEY, version, reportDto,
+                    ReportArtifactCache.etag(reportDto.getReportData()));
+        }
+
+        // A matching If-None-Match is answered with 304 from the ETag alone
+        return ResponseEntity.ok().eTag(report.getEtag()).body(report.getBody());
     }
 
 
@@ -125,27 +283,62 @@ public class WorkItemController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "PDF report downloaded",
                     content = @Content(mediaType = MediaType.APPLICATION_PDF_VALUE)),
+            @ApiResponse(responseCode = "304", description = "Report unchanged since the ETag sent in If-None-Match"),
             @ApiResponse(responseCode = "500", description = "Failed to generate PDF report",
                     content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE))
     })
-    public ResponseEntity<?> downloadPdfReport() throws ReportGenerationException, FileNotFoundException, JRException, EmptyReportDataException {
-        try{
-            byte[] pdfReport = workItemService.generatePdfReport();
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "report.pdf");
-
-            return new ResponseEntity<>(pdfReport, headers, HttpStatus.OK);
-        } catch (ReportGenerationException e) {
-            // Handle the exception and return an error response
-            String errorMessage = "Failed to generate PDF report";
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("message", errorMessage));
-        } catch (FileNotFoundException | JRException | EmptyReportDataException e) {
-            // Handle other exceptions if needed
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    public ResponseEntity<StreamingResponseBody> downloadPdfReport(WebRequest webRequest) throws ReportGenerationException, EmptyReportDataException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", "report.pdf");
+
+        ReportArtifactCache.ReportArtifact<byte[]> cachedReport = reportArtifactCache.get(ReportArtifactCache.PDF_REPORT_KEY);
+        if (cachedReport != null) {
+            // Streaming bodies skip Spring's conditional request handling, so the ETag is checked here
+            if (webRequest.checkNotModified(cachedReport.getEtag())) {
+                return null;
+            }
+            byte[] pdf = cachedReport.getBody();
+            headers.setETag(cachedReport.getEtag());
+            headers.setContentLength(pdf.length);
+            return new ResponseEntity<>(outputStream -> outputStream.write(pdf), headers, HttpStatus.OK);
+        }
+
+        // Fill on the request thread so an empty or failing report still gets an error status
+        long version = reportArtifactCache.currentVersion();
+        FilledPdfReport pdfReport = workItemService.fillPdfReport();
+        String etag = pdfReport.getEtag();
+        // The ETag comes from the report data, so an unchanged report is answered with 304 even after a cache miss
+        if (webRequest.checkNotModified(etag)) {
+            pdfReport.discard();
+            return null;
         }
+        headers.setETag(etag);
+
+        // Export straight into the response without a Content-Length, so it is sent chunked as it is written
+        int maxCachedBytes = reportArtifactCache.getMaxArtifactBytes();
+        StreamingResponseBody body = outputStream -> {
+            CappedCopyOutputStream copyingStream = new CappedCopyOutputStream(outputStream, maxCachedBytes);
+            pdfReport.exportTo(copyingStream);
+            copyingStream.flush();
+            byte[] pdf = copyingStream.copied();
+            if (pdf != null) {
+                reportArtifactCache.put(ReportArtifactCache.PDF_REPORT_KEY, version, pdf, etag);
+            }
+        };
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    @ExceptionHandler(ReportGenerationException.class)
+    public ResponseEntity<Map<String, String>> handleReportGenerationException(ReportGenerationException e) {
+        // Handle the exception and return an error response
+        String errorMessage = "Failed to generate PDF report";
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", errorMessage));
+    }
 
+    @ExceptionHandler(EmptyReportDataException.class)
+    public ResponseEntity<Void> handleEmptyReportDataException(EmptyReportDataException e) {
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
     }
 }
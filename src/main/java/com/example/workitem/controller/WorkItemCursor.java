@@ -0,0 +1,34 @@
+package com.example.workitem.controller;
+
+import com.example.workitem.exceptions.InvalidCursorException;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque paging cursor for GET /work-items. It wraps the id of the last work item on the previous page, so clients
+ * must not build or parse it themselves.
+ */
+final class WorkItemCursor {
+
+    private WorkItemCursor() {
+    }
+
+    static String encode(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decode(String cursor) {
+        String lastId;
+        try {
+            lastId = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Cursor is not valid");
+        }
+        if (!ObjectId.isValid(lastId)) {
+            throw new InvalidCursorException("Cursor is not valid");
+        }
+        return lastId;
+    }
+}
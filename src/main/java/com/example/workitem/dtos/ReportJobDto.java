@@ -0,0 +1,34 @@
+package com.example.workitem.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReportJobDto {
+    private String id;
+    private String format;
+    private String status;
+    private String error;
+
+    public ReportJobDto(String id, String format, String status, String error) {
+        this.id = id;
+        this.format = format;
+        this.status = status;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -42,4 +42,10 @@ public class GlobalExceptionHandler {
         ValidationError validationError = new ValidationError("Validation failed", errors);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(validationError);
     }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ValidationError> handleInvalidCursorException(InvalidCursorException ex) {
+        ValidationError validationError = new ValidationError("Validation failed", List.of(ex.getMessage()));
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(validationError);
+    }
 }
\ No newline at end of file
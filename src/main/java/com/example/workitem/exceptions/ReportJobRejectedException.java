@@ -0,0 +1,8 @@
+package com.example.workitem.exceptions;
+
+public class ReportJobRejectedException extends RuntimeException {
+
+    public ReportJobRejectedException(String message) {
+        super(message);
+    }
+}
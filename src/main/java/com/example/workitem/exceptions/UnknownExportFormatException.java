@@ -0,0 +1,18 @@
+package com.example.workitem.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+public class UnknownExportFormatException extends RuntimeException {
+
+    // 400 for an unknown format parameter, 406 when nothing in the Accept header can be produced
+    private final HttpStatus status;
+
+    public UnknownExportFormatException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.workitem.messaging;
+
+import com.example.workitem.config.ConsumerProperties;
+import com.example.workitem.config.RabbitMQProperties;
+import com.example.workitem.config.ThreadingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Resizes the work-item-queue listener container between the configured minimum and maximum consumers. The number of
+ * consumers is raised while the current backlog would take longer than the target drain time at the rate the consumers
+ * have been acking messages, and lowered one at a time once the backlog is small again. The container's own scaling still adds consumers above this floor.
+ * In virtual thread mode the listener already runs a fixed set of virtual consumers, so nothing is resized.
+ */
+@Component
+public class ConsumerConcurrencyScaler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerConcurrencyScaler.class);
+
+    private final AmqpAdmin amqpAdmin;
+    private final RabbitListenerEndpointRegistry listenerEndpointRegistry;
+    private final RabbitMQProperties rabbitMQProperties;
+    private final ConsumerProperties consumerProperties;
+    private final ProcessingLatencyTracker processingLatencyTracker;
+    private final ThreadingProperties threadingProperties;
+
+    private int consumers;
+
+    @Autowired
+    public ConsumerConcurrencyScaler(AmqpAdmin amqpAdmin, RabbitListenerEndpointRegistry listenerEndpointRegistry,
+                                     RabbitMQProperties rabbitMQProperties, ConsumerProperties consumerProperties,
+                                     ProcessingLatencyTracker processingLatencyTracker,
+                                     ThreadingProperties threadingProperties) {
+        this.amqpAdmin = amqpAdmin;
+        this.listenerEndpointRegistry = listenerEndpointRegistry;
+        this.rabbitMQProperties = rabbitMQProperties;
+        this.consumerProperties = consumerProperties;
+        this.processingLatencyTracker = processingLatencyTracker;
+        this.threadingProperties = threadingProperties;
+        this.consumers = rabbitMQProperties.getMinConsumers();
+    }
+
+    @Scheduled(fixedDelayString = "${workitem.consumer.autoscale.interval-ms:5000}")
+    public void scale() {
+        if (!consumerProperties.getAutoscale().isEnabled() || threadingProperties.usesVirtualThreads()) {
+            return;
+        }
+
+        Properties queueProperties = amqpAdmin.getQueueProperties(RabbitMQConfig.QUEUE_NAME);
+        if (queueProperties == null) {
+            logger.warn("Queue {} not found, consumer concurrency left at {}", RabbitMQConfig.QUEUE_NAME, consumers);
+            return;
+        }
+
+        int depth = ((Number) queueProperties.get(RabbitAdmin.QUEUE_MESSAGE_COUNT)).intValue();
+        ProcessingLatencyTracker.Sample sample = processingLatencyTracker.drain();
+        int desired = desiredConsumers(depth, sample.ackedPerSecond(), consumers);
+        if (desired == consumers) {
+            return;
+        }
+
+        for (MessageListenerContainer container : listenerEndpointRegistry.getListenerContainers()) {
+            if (container instanceof SimpleMessageListenerContainer simpleContainer
+                    && container.isRunning()
+                    && Arrays.asList(simpleContainer.getQueueNames()).contains(RabbitMQConfig.QUEUE_NAME)) {
+                simpleContainer.setConcurrentConsumers(desired);
+            }
+        }
+        logger.info("Consumer concurrency changed from {} to {}. Queue depth: {}, acked: {}/s, processing latency: {} ms",
+                consumers, desired, depth, String.format("%.1f", sample.ackedPerSecond()),
+                String.format("%.1f", sample.averageMillis()));
+        consumers = desired;
+    }
+
+    int desiredConsumers(int depth, double ackedPerSecond, int current) {
+        int min = rabbitMQProperties.getMinConsumers();
+        int max = rabbitMQProperties.getMaxConsumers();
+
+        boolean backlogGrowing;
+        boolean backlogSmall;
+        if (ackedPerSecond > 0) {
+            // Seconds the current consumers need to work through the backlog at their measured rate, which already
+            // counts the prefetch messages each of them processes at once
+            double drainSeconds = depth / ackedPerSecond;
+            long target = consumerProperties.getAutoscale().getTargetDrainSeconds();
+            backlogGrowing = drainSeconds > target;
+            backlogSmall = drainSeconds < target / 4.0;
+        } else {
+            // Nothing acked since the last tick, so fall back to how many messages the consumers can hold in flight
+            backlogGrowing = depth > (long) current * rabbitMQProperties.getPrefetch();
+            backlogSmall = depth == 0;
+        }
+
+        if (backlogGrowing) {
+            return Math.min(max, current * 2);
+        }
+        if (backlogSmall) {
+            return Math.max(min, current - 1);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.workitem.messaging;
+
+import com.example.workitem.config.OutboxProperties;
+import com.example.workitem.model.WorkItem;
+import com.example.workitem.repositories.WorkItemRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes work items saved as undispatched and flags them once the broker has confirmed their message. The flag
+ * lives on the work item document itself, so the item and its outbox entry are written in one atomic insert without
+ * needing a replica set. Each batch is first claimed with a lease, so relays on several instances never publish the
+ * same item at once. Delivery is at least once: an item whose confirm is lost is published again once its lease
+ * expires. The relay runs on its own thread, so draining a backlog never holds up the other scheduled jobs.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final WorkItemRepository workItemRepository;
+    private final WorkItemProducer workItemProducer;
+    private final OutboxProperties outboxProperties;
+    private final ScheduledExecutorService relayScheduler;
+
+    @Autowired
+    public OutboxRelay(WorkItemRepository workItemRepository, WorkItemProducer workItemProducer,
+                       OutboxProperties outboxProperties) {
+        this.workItemRepository = workItemRepository;
+        this.workItemProducer = workItemProducer;
+        this.outboxProperties = outboxProperties;
+        this.relayScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!outboxProperties.isEnabled()) {
+            return;
+        }
+        relayScheduler.scheduleWithFixedDelay(this::relaySafely, outboxProperties.getPollIntervalMs(),
+                outboxProperties.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    // An exception escaping a fixed delay task would cancel every later run
+    private void relaySafely() {
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            logger.error("Outbox relay round failed", e);
+        }
+    }
+
+    public void relay() {
+        if (!outboxProperties.isEnabled()) {
+            return;
+        }
+
+        // Keep draining while full batches come back so a backlog is not held to one batch per poll
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == outboxProperties.getBatchSize());
+    }
+
+    // Publishes one batch and returns the number of work items confirmed, or -1 when some were not
+    int relayBatch() {
+        List<WorkItem> workItems = workItemRepository.claimUndispatched(outboxProperties.getBatchSize(),
+                outboxProperties.getLeaseMs());
+        if (workItems.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, CompletableFuture<Void>> sends = new LinkedHashMap<>();
+        for (WorkItem workItem : workItems) {
+            sends.put(workItem.getId(), workItemProducer.sendWorkItem(workItem.getId(), workItem.getValue()));
+        }
+
+        try {
+            CompletableFuture.allOf(sends.values().toArray(new CompletableFuture[0]))
+                    .get(outboxProperties.getConfirmTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Whatever was confirmed is still flagged below, the rest is claimed again once its lease expires
+            logger.warn("Outbox batch not fully confirmed: {}", e.getMessage());
+        }
+
+        List<String> confirmed = new ArrayList<>(sends.size());
+        for (Map.Entry<String, CompletableFuture<Void>> send : sends.entrySet()) {
+            CompletableFuture<Void> future = send.getValue();
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                confirmed.add(send.getKey());
+            }
+        }
+        workItemRepository.markDispatched(confirmed);
+        logger.debug("Outbox relayed {} of {} work items", confirmed.size(), workItems.size());
+
+        return confirmed.size() == workItems.size() ? confirmed.size() : -1;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayScheduler.shutdown();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.workitem.messaging;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Moves parked work item messages back onto work-item-queue. Each message is acked on the parking lot only after the
+ * broker has confirmed the republished copy, so a crash or a nack in between leaves a duplicate rather than a lost
+ * message; the conditional update in the consumer makes the duplicate a no-op.
+ */
+@Component
+public class ParkingLotReplayer {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final AmqpAdmin amqpAdmin;
+
+    private static final long CONFIRM_TIMEOUT_MS = 5000;
+
+    private static final Logger logger = LoggerFactory.getLogger(ParkingLotReplayer.class);
+
+    public ParkingLotReplayer(RabbitTemplate rabbitTemplate, AmqpAdmin amqpAdmin) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+    }
+
+    public long getParkedCount() {
+        QueueInformation queueInfo = amqpAdmin.getQueueInfo(RabbitMQConfig.PARKING_LOT_QUEUE);
+        return queueInfo == null ? 0 : queueInfo.getMessageCount();
+    }
+
+    // Replays up to limit parked messages, oldest first, with a fresh set of retries; returns the number replayed
+    public int replay(int limit) {
+        Integer replayed = rabbitTemplate.execute(channel -> {
+            int count = 0;
+            channel.confirmSelect();
+            while (count < limit) {
+                GetResponse response = channel.basicGet(RabbitMQConfig.PARKING_LOT_QUEUE, false);
+                if (response == null) {
+                    break;
+                }
+
+                AMQP.BasicProperties properties = response.getProps();
+                Map<String, Object> headers = properties.getHeaders() == null
+                        ? new HashMap<>() : new HashMap<>(properties.getHeaders());
+                headers.remove(WorkItemRetryHandler.RETRY_COUNT_HEADER);
+                // x-death would otherwise keep growing with every round trip through the parking lot
+                headers.remove("x-death");
+                // Replayed messages have waited in the parking lot, not the queue, so they stay out of the queue wait timer
+                headers.remove(RabbitMQConfig.PUBLISHED_AT_HEADER);
+                channel.basicPublish("", RabbitMQConfig.QUEUE_NAME, properties.builder().headers(headers).build(),
+                        response.getBody());
+                // Throws on a nack or timeout, leaving the parked message unacked so it returns to the parking lot
+                channel.waitForConfirmsOrDie(CONFIRM_TIMEOUT_MS);
+                channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                count++;
+            }
+            return count;
+        });
+        logger.info("Replayed {} parked work item messages", replayed);
+        return replayed == null ? 0 : replayed;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.workitem.messaging;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Collects how many work items the consumers ack and how long each took, read and reset by ConsumerConcurrencyScaler on every tick
+@Component
+public class ProcessingLatencyTracker {
+
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder count = new LongAdder();
+    private final LongSupplier nanoClock;
+
+    private long lastDrainNanos;
+
+    private volatile double lastAverageMillis;
+
+    public ProcessingLatencyTracker() {
+        this(System::nanoTime);
+    }
+
+    ProcessingLatencyTracker(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.lastDrainNanos = nanoClock.getAsLong();
+    }
+
+    public void record(long nanos, int workItems) {
+        totalNanos.add(nanos);
+        count.add(workItems);
+    }
+
+    /**
+     * Work items acked per second since the previous call, and their average processing time, or the previous
+     * average when nothing was processed. The ack rate is measured rather than derived from the latency, because each
+     * consumer processes up to prefetch work items at once.
+     */
+    public synchronized Sample drain() {
+        long now = nanoClock.getAsLong();
+        long workItems = count.sumThenReset();
+        long nanos = totalNanos.sumThenReset();
+        long elapsedNanos = now - lastDrainNanos;
+        lastDrainNanos = now;
+        if (workItems > 0) {
+            lastAverageMillis = (double) nanos / workItems / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+        double ackedPerSecond = elapsedNanos > 0 ? workItems * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+        return new Sample(ackedPerSecond, lastAverageMillis);
+    }
+
+    public record Sample(double ackedPerSecond, double averageMillis) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.workitem.messaging;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the depth and consumer count of work-item-queue and the parking lot. Each scrape asks the broker with a
+ * passive queue declare; the gauges read NaN while the broker cannot be reached.
+ */
+@Component
+public class QueueDepthMetrics implements MeterBinder {
+
+    private final AmqpAdmin amqpAdmin;
+
+    public QueueDepthMetrics(AmqpAdmin amqpAdmin) {
+        this.amqpAdmin = amqpAdmin;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String queue : new String[]{RabbitMQConfig.QUEUE_NAME, RabbitMQConfig.PARKING_LOT_QUEUE}) {
+            Gauge.builder("workitem.queue.depth", amqpAdmin, admin -> messageCount(admin, queue))
+                    .description("Messages ready in the queue")
+                    .tag("queue", queue)
+                    .register(registry);
+            Gauge.builder("workitem.queue.consumers", amqpAdmin, admin -> consumerCount(admin, queue))
+                    .description("Consumers attached to the queue")
+                    .tag("queue", queue)
+                    .register(registry);
+        }
+    }
+
+    static double messageCount(AmqpAdmin amqpAdmin, String queue) {
+        QueueInformation queueInfo = amqpAdmin.getQueueInfo(queue);
+        return queueInfo == null ? Double.NaN : queueInfo.getMessageCount();
+    }
+
+    static double consumerCount(AmqpAdmin amqpAdmin, String queue) {
+        QueueInformation queueInfo = amqpAdmin.getQueueInfo(queue);
+        return queueInfo == null ? Double.NaN : queueInfo.getConsumerCount();
+    }
+}
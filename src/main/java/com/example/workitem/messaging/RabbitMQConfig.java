@@ -1,30 +1,75 @@
 package com.example.workitem.messaging;
 
 
+import com.example.workitem.config.ConsumerProperties;
+import com.example.workitem.config.PublisherProperties;
 import com.example.workitem.config.RabbitMQProperties;
+import com.example.workitem.config.RetryProperties;
+import com.example.workitem.config.ThreadingProperties;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.context.annotation.Profile;
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.ChannelPoolFactory;
+import reactor.rabbitmq.RabbitFlux;
+import reactor.rabbitmq.Sender;
+import reactor.rabbitmq.SenderOptions;
+
+import java.util.concurrent.Executor;
 
 @Configuration
 public class RabbitMQConfig {
 
-    private static final String QUEUE_NAME = "work-item-queue";
+    static final String QUEUE_NAME = "work-item-queue";
+
+    // Rejected work item messages are dead-lettered through this exchange into the parking lot
+    static final String DEAD_LETTER_EXCHANGE = "work-item.dlx";
+    static final String PARKING_LOT_QUEUE = "work-item-queue.parking-lot";
+
+    // Failed work items wait in a TTL queue behind this exchange, then expire back onto work-item-queue
+    static final String RETRY_EXCHANGE = "work-item.retry";
+
+    // Epoch millis at which a message was first published, used to time how long it waited in the queue
+    static final String PUBLISHED_AT_HEADER = "x-published-at";
 
     private  final RabbitMQProperties rabbitMQProperties;
 
+    private final ConsumerProperties consumerProperties;
+
+    private final PublisherProperties publisherProperties;
+
+    private final RetryProperties retryProperties;
+
+    private final ThreadingProperties threadingProperties;
+
 
 
-    public RabbitMQConfig(RabbitMQProperties rabbitMQProperties) {
+    public RabbitMQConfig(RabbitMQProperties rabbitMQProperties, ConsumerProperties consumerProperties,
+                          PublisherProperties publisherProperties, RetryProperties retryProperties,
+                          ThreadingProperties threadingProperties) {
         this.rabbitMQProperties = rabbitMQProperties;
+        this.consumerProperties = consumerProperties;
+        this.publisherProperties = publisherProperties;
+        this.retryProperties = retryProperties;
+        this.threadingProperties = threadingProperties;
+    }
+
+    // Retry queues are named after their delay, so changing the backoff declares new queues instead of clashing
+    // with the TTL of the existing ones
+    static String retryQueueName(long delayMs) {
+        return QUEUE_NAME + ".retry." + delayMs + "ms";
     }
 
 
@@ -36,34 +81,136 @@ public class RabbitMQConfig {
         connectionFactory.setPort(rabbitMQProperties.getPort());
         connectionFactory.setUsername(rabbitMQProperties.getUsername());
         connectionFactory.setPassword(rabbitMQProperties.getPassword());
+        if (publisherProperties.isConfirms()) {
+            // Confirms are matched to each send through its CorrelationData, unroutable messages are returned
+            connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+            connectionFactory.setPublisherReturns(true);
+        }
         return connectionFactory;
     }
 
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
-                                                                               ThreadPoolTaskExecutor taskExecutor) {
+                                                                               @Qualifier("listenerTaskExecutor") Executor taskExecutor) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        if (threadingProperties.usesVirtualThreads()) {
+            // A virtual consumer holds no pooled thread, so run a fixed, larger set of them and spread the unacked
+            // messages the platform consumers could hold at most across them
+            int consumers = Math.max(threadingProperties.getVirtualConsumers(), rabbitMQProperties.getMaxConsumers());
+            factory.setConcurrentConsumers(consumers);
+            factory.setMaxConcurrentConsumers(consumers);
+            factory.setPrefetchCount(Math.max(1,
+                    rabbitMQProperties.getPrefetch() * rabbitMQProperties.getMaxConsumers() / consumers));
+        } else {
+            // Start with the minimum number of consumers; ConsumerConcurrencyScaler moves it up to the maximum on backlog
+            factory.setConcurrentConsumers(rabbitMQProperties.getMinConsumers());
+            factory.setMaxConcurrentConsumers(rabbitMQProperties.getMaxConsumers());
+            factory.setPrefetchCount(rabbitMQProperties.getPrefetch());
+        }
+        factory.setTaskExecutor(taskExecutor);
+        // The listener returns a future and the container acks each message when it completes, so the consumer
+        // thread moves on to the next message; prefetch caps the messages in flight per consumer
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        // Failures are retried through the retry queues by the consumer; anything rejected beyond that is
+        // dead-lettered to the parking lot instead of being requeued at the head of the queue
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                                    @Qualifier("listenerTaskExecutor") Executor taskExecutor) {
+        ConsumerProperties.Batch batch = consumerProperties.getBatch();
+
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
-        factory.setConcurrentConsumers(2); // Set the maximum number of concurrent consumers
-        factory.setMaxConcurrentConsumers(2);
+        factory.setConcurrentConsumers(rabbitMQProperties.getMinConsumers());
+        factory.setMaxConcurrentConsumers(rabbitMQProperties.getMaxConsumers());
         factory.setTaskExecutor(taskExecutor);
+        // Hand up to batch.size messages to one listener call, or fewer once the receive timeout passes
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batch.getSize());
+        factory.setReceiveTimeout(batch.getReceiveTimeoutMs());
+        // The broker must be allowed to push at least a full batch, otherwise every batch waits for the timeout
+        factory.setPrefetchCount(Math.max(batch.getSize(), rabbitMQProperties.getPrefetch()));
+        factory.setDefaultRequeueRejected(false);
         return factory;
     }
 
     @Bean
     public RabbitTemplate template(ConnectionFactory connectionFactory) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(new Jackson2JsonMessageConverter());
+        // Work item messages go out in the binary format; JSON messages still decode
+        rabbitTemplate.setMessageConverter(new WorkItemMessageConverter());
+        rabbitTemplate.setMandatory(publisherProperties.isConfirms());
+        // Retries and republished confirms keep the time of the first publish
+        rabbitTemplate.setBeforePublishPostProcessors(message -> {
+            if (message.getMessageProperties().getHeader(PUBLISHED_AT_HEADER) == null) {
+                message.getMessageProperties().setHeader(PUBLISHED_AT_HEADER, System.currentTimeMillis());
+            }
+            return message;
+        });
         return rabbitTemplate;
     }
 
     @Bean
     public Queue workItemQueue(AmqpAdmin rabbitAdmin) {
-        Queue queue = new Queue(QUEUE_NAME);
+        Queue queue = QueueBuilder.durable(QUEUE_NAME)
+                .deadLetterExchange(DEAD_LETTER_EXCHANGE)
+                .deadLetterRoutingKey(PARKING_LOT_QUEUE)
+                .build();
+        rabbitAdmin.declareQueue(queue);
+        return queue;
+    }
+
+    @Bean
+    public Queue parkingLotQueue(AmqpAdmin rabbitAdmin) {
+        DirectExchange deadLetterExchange = new DirectExchange(DEAD_LETTER_EXCHANGE);
+        Queue queue = QueueBuilder.durable(PARKING_LOT_QUEUE).build();
+        rabbitAdmin.declareExchange(deadLetterExchange);
         rabbitAdmin.declareQueue(queue);
+        rabbitAdmin.declareBinding(BindingBuilder.bind(queue).to(deadLetterExchange).with(PARKING_LOT_QUEUE));
         return queue;
     }
 
+    // One queue per retry, each holding its messages for a longer TTL before dead-lettering them back to work-item-queue
+    @Bean
+    public DirectExchange retryExchange(AmqpAdmin rabbitAdmin) {
+        DirectExchange retryExchange = new DirectExchange(RETRY_EXCHANGE);
+        rabbitAdmin.declareExchange(retryExchange);
+        for (int retry = 1; retry <= retryProperties.getMaxRetries(); retry++) {
+            long delayMs = retryProperties.delayMs(retry);
+            Queue queue = QueueBuilder.durable(retryQueueName(delayMs))
+                    .ttl((int) delayMs)
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(QUEUE_NAME)
+                    .build();
+            rabbitAdmin.declareQueue(queue);
+            rabbitAdmin.declareBinding(BindingBuilder.bind(queue).to(retryExchange).with(queue.getName()));
+        }
+        return retryExchange;
+    }
+
+    // Publisher of the reactive profile: its own NIO connection, with the channels pooled instead of opened per send
+    @Bean(destroyMethod = "close")
+    @Profile("reactive")
+    public Sender reactiveSender() {
+        com.rabbitmq.client.ConnectionFactory connectionFactory = new com.rabbitmq.client.ConnectionFactory();
+        connectionFactory.setHost(rabbitMQProperties.getHost());
+        connectionFactory.setPort(rabbitMQProperties.getPort());
+        connectionFactory.setUsername(rabbitMQProperties.getUsername());
+        connectionFactory.setPassword(rabbitMQProperties.getPassword());
+        connectionFactory.useNio();
+        Mono<com.rabbitmq.client.Connection> connection = Mono
+                .fromCallable(() -> connectionFactory.newConnection("work-item-reactive-publisher"))
+                .cache();
+        return RabbitFlux.createSender(new SenderOptions()
+                .connectionMono(connection)
+                .channelPool(ChannelPoolFactory.createChannelPool(connection)));
+    }
+
     @Bean
     public AmqpAdmin amqpAdmin(ConnectionFactory connectionFactory) {
         return new RabbitAdmin(connectionFactory);
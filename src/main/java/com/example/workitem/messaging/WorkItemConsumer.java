@@ -2,20 +2,40 @@ package com.example.workitem.messaging;
 
 
 
+import com.example.workitem.config.ProcessingProperties;
 import com.example.workitem.model.WorkItem;
+import com.example.workitem.service.ProcessingResultCache;
+import com.example.workitem.service.WorkItemProcessor;
+import com.example.workitem.service.WorkItemProcessors;
 import com.example.workitem.service.WorkItemService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageListener;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Component
 public class WorkItemConsumer implements MessageListener {
@@ -24,57 +44,248 @@ public class WorkItemConsumer implements MessageListener {
 
     private final RabbitTemplate rabbitTemplate;
 
-    private final  ObjectMapper objectMapper = new ObjectMapper();
+    private final ProcessingLatencyTracker processingLatencyTracker;
+
+    private final WorkItemProcessors workItemProcessors;
+
+    private final ProcessingResultCache processingResultCache;
+
+    private final WorkItemRetryHandler workItemRetryHandler;
+
+    // Stores results once a processor completes, so processor threads never wait on MongoDB
+    private final ExecutorService persistenceExecutor;
+
+    private final MeterRegistry meterRegistry;
+
+    // Time from the first publish of a message to its delivery to this consumer
+    private final Timer queueWaitTimer;
+
+    private final WorkItemMessageConverter messageConverter = new WorkItemMessageConverter();
 
     private static final Logger logger = LoggerFactory.getLogger(WorkItemConsumer.class);
     @Autowired
-    public WorkItemConsumer(WorkItemService workItemService, RabbitTemplate rabbitTemplate) {
+    public WorkItemConsumer(WorkItemService workItemService, RabbitTemplate rabbitTemplate,
+                            ProcessingLatencyTracker processingLatencyTracker, WorkItemProcessors workItemProcessors,
+                            ProcessingResultCache processingResultCache, WorkItemRetryHandler workItemRetryHandler,
+                            ProcessingProperties processingProperties, MeterRegistry meterRegistry) {
         this.workItemService = workItemService;
         this.rabbitTemplate = rabbitTemplate;
+        this.processingLatencyTracker = processingLatencyTracker;
+        this.workItemProcessors = workItemProcessors;
+        this.processingResultCache = processingResultCache;
+        this.workItemRetryHandler = workItemRetryHandler;
+        this.meterRegistry = meterRegistry;
+        this.queueWaitTimer = Timer.builder("workitem.consume.queue.wait")
+                .description("Time work item messages wait in work-item-queue before they are delivered")
+                .register(meterRegistry);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.persistenceExecutor = Executors.newFixedThreadPool(processingProperties.getPersistenceThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "work-item-persist-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Override
     public void onMessage(Message message) {
-        HashMap<String, Object> messageBody = (HashMap<String, Object>) rabbitTemplate.getMessageConverter().fromMessage(message);
-        String messageString = (String) messageBody.get("id");
-        processWorkItem(messageString);
+        // Same route as the listener below; MessageListener acks on return, so only its outcome is waited for here
+        processWorkItem(message).join();
+    }
+
+    /**
+     * Single message listener. Returns as soon as the processor has been started; the container runs with manual
+     * acknowledgement and acks the message when the returned future completes, or rejects it when it fails.
+     * Up to prefetch messages per consumer can be in flight at once.
+     * A failed work item is handed to the retry handler and acked once the broker has confirmed the republished
+     * copy; the message is only rejected, and so dead-lettered to the parking lot, when it could not be republished.
+     */
+    @RabbitListener(queues = "work-item-queue", autoStartup = "#{!${workitem.consumer.batch.enabled:false}}")
+    public CompletableFuture<Void> processWorkItem(Message message) {
+        recordQueueWait(message);
+        String type = message.getMessageProperties().getType();
+        long start = System.nanoTime();
+        return processWorkItem(message, type)
+                .handle((stored, failure) -> {
+                    String outcome = failure != null ? "failed" : stored ? "processed" : "skipped";
+                    processingTimer(processorType(type), outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return failure == null ? CompletableFuture.<Void>completedFuture(null)
+                            : workItemRetryHandler.retryOrPark(message, failure);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    // Completes with whether the result was stored, or false when the work item was already processed
+    private CompletableFuture<Boolean> processWorkItem(Message message, String type) {
+        WorkItem receivedWorkItem;
+        try {
+            // Decoded once, straight from the body, whether it is binary or JSON
+            receivedWorkItem = messageConverter.fromMessage(message).toWorkItem();
+        } catch (MessageConversionException e) {
+            logger.error("Failed to process work item due to malformed message.", e);
+            // Retrying cannot fix the message, so it goes straight to the parking lot
+            return CompletableFuture.failedFuture(new AmqpRejectAndDontRequeueException("Malformed work item message", e));
+        }
+
+        WorkItemProcessor processor = workItemProcessors.forType(type);
+        if (processor == null) {
+            logger.warn("No processor for message type {}. ID: {}", type, receivedWorkItem.getId());
+            return CompletableFuture.failedFuture(new AmqpRejectAndDontRequeueException("No processor for message type " + type));
+        }
+
+        // No lookup first: the conditional update checks that the work item exists, has this value and is unprocessed
+        long start = System.nanoTime();
+        CompletableFuture<Integer> processing;
+        try {
+            processing = processingResultCache.process(processor, receivedWorkItem).toCompletableFuture();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return processing
+                .thenApplyAsync(result -> {
+                    if (workItemService.markProcessed(receivedWorkItem, result)) {
+                        processingLatencyTracker.record(System.nanoTime() - start, 1);
+                        logger.info("Work item processed successfully. ID: {}", receivedWorkItem.getId());
+                        return true;
+                    }
+                    logger.warn("Work item not found, already processed or value mismatch. ID: {}", receivedWorkItem.getId());
+                    return false;
+                }, persistenceExecutor)
+                .toCompletableFuture();
     }
 
+    /**
+     * Batch mode listener. Looks the whole batch up with one $in query and stores the results with one bulk write.
+     * The processors of the batch run concurrently, so the batch takes as long as its slowest work item.
+     * Work items whose processor fails are retried individually, and a failed bulk write retries every processed
+     * work item of the batch, so the batch is acknowledged when this method returns either way.
+     */
+    @RabbitListener(queues = "work-item-queue", containerFactory = "batchRabbitListenerContainerFactory",
+            autoStartup = "${workitem.consumer.batch.enabled:false}")
+    public void processWorkItems(List<Message> messages) {
+        // Expected value, message type and message of every work item in the batch, keyed by ID
+        Map<String, Integer> receivedValues = new LinkedHashMap<>();
+        Map<String, String> receivedTypes = new HashMap<>();
+        Map<String, Message> receivedMessages = new HashMap<>();
+        // Republished copies of failed messages; the batch is acked on return, so their confirms are awaited first
+        List<CompletableFuture<Void>> republished = new ArrayList<>();
+        for (Message message : messages) {
+            recordQueueWait(message);
+            try {
+                WorkItemMessage receivedMessage = messageConverter.fromMessage(message);
+                receivedValues.put(receivedMessage.id(), receivedMessage.value());
+                receivedTypes.put(receivedMessage.id(), message.getMessageProperties().getType());
+                receivedMessages.put(receivedMessage.id(), message);
+            } catch (MessageConversionException e) {
+                logger.error("Failed to process work item due to malformed message.", e);
+                republished.add(workItemRetryHandler.park(message,
+                        new AmqpRejectAndDontRequeueException("Malformed work item message", e)));
+            }
+        }
 
+        long start = System.nanoTime();
+        List<WorkItem> candidates = new ArrayList<>();
+        List<String> candidateTypes = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (WorkItem workItem : workItemService.getWorkItems(receivedValues.keySet())) {
+            Integer receivedValue = receivedValues.get(workItem.getId());
+            if (receivedValue == null || workItem.getValue() != receivedValue || workItem.isProcessed()) {
+                logger.warn("Invalid work item ID or value mismatch. ID: {}", workItem.getId());
+                continue;
+            }
 
+            String type = receivedTypes.get(workItem.getId());
+            WorkItemProcessor processor = workItemProcessors.forType(type);
+            if (processor == null) {
+                logger.warn("No processor for message type {}. ID: {}", type, workItem.getId());
+                republished.add(workItemRetryHandler.park(receivedMessages.get(workItem.getId()),
+                        new AmqpRejectAndDontRequeueException("No processor for message type " + type)));
+                continue;
+            }
+            candidates.add(workItem);
+            candidateTypes.add(processor.getType());
+            try {
+                results.add(processingResultCache.process(processor, workItem).toCompletableFuture());
+            } catch (RuntimeException e) {
+                results.add(CompletableFuture.failedFuture(e));
+            }
+        }
 
-    @RabbitListener(queues = "work-item-queue")
-    private void processWorkItem(String message) {
+        List<WorkItem> processedWorkItems = new ArrayList<>();
+        List<String> processedTypes = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            WorkItem workItem = candidates.get(i);
+            try {
+                workItem.setResult(results.get(i).get());
+                processedWorkItems.add(workItem);
+                processedTypes.add(candidateTypes.get(i));
+            } catch (InterruptedException e) {
+                // Nothing has been written yet, so the whole batch goes back to the queue
+                Thread.currentThread().interrupt();
+                throw new ImmediateRequeueAmqpException("Interrupted while processing work item batch", e);
+            } catch (ExecutionException e) {
+                republished.add(workItemRetryHandler.retryOrPark(receivedMessages.get(workItem.getId()), e.getCause()));
+                processingTimer(candidateTypes.get(i), "failed").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
 
         try {
-            WorkItem receivedWorkItem = objectMapper.readValue(message, WorkItem.class);
-            WorkItem workItem = workItemService.getWorkItem(receivedWorkItem.getId());
-
-            // Check if the work item exists and if the value matches
-            if (workItem != null && workItem.getValue() == receivedWorkItem.getValue()) {
-                // Simulate processing delay
-                try {
-                    Thread.sleep(workItem.getValue() * 10);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return;
-                }
-
-                // Calculate the result
-                int result = workItem.getValue() * workItem.getValue();
-
-                // Update the work item in the database
-                workItem.setProcessed(true);
-                workItem.setResult(result);
-                workItemService.saveWorkItem(workItem);
-                logger.info("Work item processed successfully. ID: {}", workItem.getId());
-            } else {
-                logger.warn("Invalid work item ID or value mismatch. ID: {}", receivedWorkItem.getId());
+            workItemService.markAllProcessed(processedWorkItems);
+        } catch (RuntimeException e) {
+            // Work items the unordered bulk write did store are skipped as already processed when retried
+            logger.warn("Bulk write of work item batch failed, retrying {} work items", processedWorkItems.size(), e);
+            for (WorkItem workItem : processedWorkItems) {
+                republished.add(workItemRetryHandler.retryOrPark(receivedMessages.get(workItem.getId()), e));
             }
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-            logger.error("Failed to process work item due to JSON processing error.", e);
+            awaitRepublished(republished);
+            return;
+        }
+        awaitRepublished(republished);
+        long elapsed = System.nanoTime() - start;
+        processingLatencyTracker.record(elapsed, processedWorkItems.size());
+        // Every work item of the batch is stored with the bulk write, so each one took the whole batch
+        for (String type : processedTypes) {
+            processingTimer(type, "processed").record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        logger.info("Work item batch processed successfully. Messages: {}, processed: {}", messages.size(), processedWorkItems.size());
+    }
+
+    // Waits once for the whole batch; each confirm is bounded by the retry handler, and a failed one fails the batch
+    private static void awaitRepublished(List<CompletableFuture<Void>> republished) {
+        try {
+            CompletableFuture.allOf(republished.toArray(new CompletableFuture[0])).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while republishing failed work item messages", e);
+        } catch (ExecutionException e) {
+            throw new AmqpException("Failed work item messages could not be republished", e.getCause());
         }
     }
 
+    // Only first deliveries are timed; retried messages also spent their backoff delays in the retry queues
+    private void recordQueueWait(Message message) {
+        Object publishedAt = message.getMessageProperties().getHeader(RabbitMQConfig.PUBLISHED_AT_HEADER);
+        if (publishedAt instanceof Number publishedAtMillis && WorkItemRetryHandler.retryCount(message) == 0) {
+            queueWaitTimer.record(Math.max(0, System.currentTimeMillis() - publishedAtMillis.longValue()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Tagged with the processor type rather than the raw message type, which comes from the message
+    private String processorType(String type) {
+        WorkItemProcessor processor = workItemProcessors.forType(type);
+        return processor == null ? "unknown" : processor.getType();
+    }
+
+    private Timer processingTimer(String type, String outcome) {
+        return Timer.builder("workitem.consume.processing")
+                .description("Time from delivery of a work item message until its result is stored")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persistenceExecutor.shutdown();
+    }
+
 }
@@ -0,0 +1,17 @@
+package com.example.workitem.messaging;
+
+import com.example.workitem.model.WorkItem;
+
+/**
+ * Body of a work-item-queue message: the work item to process and the value it was created with.
+ * Encoded by {@link WorkItemMessageConverter}.
+ */
+public record WorkItemMessage(String id, int value) {
+
+    // The work item as the processors and the conditional update expect it, not yet processed
+    public WorkItem toWorkItem() {
+        WorkItem workItem = new WorkItem(value);
+        workItem.setId(id);
+        return workItem;
+    }
+}
@@ -1,13 +1,24 @@
 package com.example.workitem.messaging;
 
+import com.example.workitem.config.PublisherProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class WorkItemProducer {
@@ -18,19 +29,157 @@ public class WorkItemProducer {
 
     private final RabbitTemplate rabbitTemplate;
 
+    private final PublisherProperties publisherProperties;
+
+    // Bounds the number of published messages still waiting for a broker confirm
+    private final Semaphore outstandingConfirms;
+
+    // Republishes nacked or returned messages so the confirm callback thread is never blocked
+    private final ScheduledExecutorService retryScheduler;
+
+    // Time from the first publish attempt to the broker confirm, or to the send returning without confirms
+    private final Timer sentTimer;
+    private final Timer confirmedTimer;
+    private final Timer failedTimer;
+
     @Autowired
-    public WorkItemProducer(RabbitTemplate rabbitTemplate) {
+    public WorkItemProducer(RabbitTemplate rabbitTemplate, PublisherProperties publisherProperties,
+                            MeterRegistry meterRegistry) {
         this.rabbitTemplate = rabbitTemplate;
+        this.publisherProperties = publisherProperties;
+        this.sentTimer = publishTimer(meterRegistry, "sent");
+        this.confirmedTimer = publishTimer(meterRegistry, "confirmed");
+        this.failedTimer = publishTimer(meterRegistry, "failed");
+        this.outstandingConfirms = new Semaphore(publisherProperties.getMaxOutstandingConfirms());
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "work-item-publish-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    public void sendWorkItem(String id, int value) {
+    /**
+     * Publishes a work item to the queue. Without confirms the returned future is already complete; with
+     * confirms it completes once the broker has acked the message, or fails after the configured attempts.
+     */
+    public CompletableFuture<Void> sendWorkItem(String id, int value) {
+        Object message = workItemMessage(id, value);
+
+        if (!publisherProperties.isConfirms()) {
+            long start = System.nanoTime();
+            rabbitTemplate.convertAndSend(QUEUE_NAME, message);
+            sentTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            logger.info("Work item sent. ID: {}, Value: {}", id, value);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        long start = System.nanoTime();
+        try {
+            // A broker that stops confirming must not hold the calling thread forever
+            if (!outstandingConfirms.tryAcquire(publisherProperties.getOutstandingConfirmsTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                logger.error("Work item {} not published, {} messages still waiting for a confirm", id,
+                        publisherProperties.getMaxOutstandingConfirms());
+                result.completeExceptionally(new AmqpException("Work item " + id + " not published: "
+                        + publisherProperties.getMaxOutstandingConfirms() + " messages still waiting for a confirm"));
+                return result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return result;
+        }
+        publish(new PendingMessage(id, value, message, result, System.nanoTime()), 1);
+        return result;
+    }
+
+    private void publish(PendingMessage pending, int attempt) {
+        CorrelationData correlationData = new CorrelationData(pending.id + ":" + attempt);
+        try {
+            rabbitTemplate.convertAndSend("", QUEUE_NAME, pending.message, correlationData);
+        } catch (AmqpException e) {
+            retryOrFail(pending, attempt, e.getMessage());
+            return;
+        }
+        correlationData.getFuture().whenComplete((confirm, throwable) -> {
+            if (throwable != null) {
+                retryOrFail(pending, attempt, throwable.getMessage());
+            } else if (correlationData.getReturned() != null) {
+                retryOrFail(pending, attempt, "returned: " + correlationData.getReturned().getReplyText());
+            } else if (!confirm.isAck()) {
+                retryOrFail(pending, attempt, "nacked: " + confirm.getReason());
+            } else {
+                outstandingConfirms.release();
+                confirmedTimer.record(System.nanoTime() - pending.startNanos, TimeUnit.NANOSECONDS);
+                pending.result.complete(null);
+                logger.info("Work item sent. ID: {}, Value: {}", pending.id, pending.value);
+            }
+        });
+    }
+
+    private void retryOrFail(PendingMessage pending, int attempt, String reason) {
+        if (attempt < publisherProperties.getMaxAttempts() && !retryScheduler.isShutdown()) {
+            long delay = publisherProperties.getRetryBackoffMs() << (attempt - 1);
+            logger.warn("Work item {} not confirmed ({}), retrying in {} ms", pending.id, reason, delay);
+            // The permit stays held so retries still count against the outstanding window
+            retryScheduler.schedule(() -> publish(pending, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+        outstandingConfirms.release();
+        failedTimer.record(System.nanoTime() - pending.startNanos, TimeUnit.NANOSECONDS);
+        logger.error("Work item {} could not be published after {} attempts: {}", pending.id, attempt, reason);
+        pending.result.completeExceptionally(new AmqpException(
+                "Work item " + pending.id + " not confirmed after " + attempt + " attempts: " + reason));
+    }
+
+    private Object workItemMessage(String id, int value) {
+        return workItemMessage(id, value, publisherProperties.isBinaryMessages());
+    }
+
+    // The id/value map is what consumers from before the binary format read, as JSON; shared with ReactiveWorkItemProducer
+    static Object workItemMessage(String id, int value, boolean binary) {
+        if (binary) {
+            return new WorkItemMessage(id, value);
+        }
         Map<String, Object> message = new HashMap<>();
         message.put("id", id);
         message.put("value", value);
-        rabbitTemplate.convertAndSend(QUEUE_NAME, message);
+        return message;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdown();
+    }
+
+    // The workitem.publish timer of one outcome, registered by both producers so the two stacks report alike
+    static Timer publishTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("workitem.publish")
+                .description("Time to publish a work item message, including confirms and republishes")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static final class PendingMessage {
+
+        private final String id;
+
+        private final int value;
+
+        private final Object message;
+
+        private final CompletableFuture<Void> result;
+
+        private final long startNanos;
 
-        // Log the sent work item
-        logger.info("Work item sent. ID: {}, Value: {}", id, value);
+        private PendingMessage(String id, int value, Object message, CompletableFuture<Void> result, long startNanos) {
+            this.id = id;
+            this.value = value;
+            this.message = message;
+            this.result = result;
+            this.startNanos = startNanos;
+        }
     }
 
 }
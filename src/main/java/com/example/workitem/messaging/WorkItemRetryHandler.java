@@ -0,0 +1,140 @@
+package com.example.workitem.messaging;
+
+import com.example.workitem.config.PublisherProperties;
+import com.example.workitem.config.RetryProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageBuilderSupport;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes failed work item messages through the retry topology declared in {@link RabbitMQConfig}. A failed message
+ * is republished to the retry queue for its next attempt, where it waits out the backoff delay before expiring back
+ * onto work-item-queue, so the consumer moves on instead of requeueing it at the head of the queue.
+ * Messages that cannot succeed, or have used up their retries, go to the parking lot.
+ */
+@Component
+public class WorkItemRetryHandler {
+
+    // Number of retries the message has been through so far
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+
+    // Last failure of the message, kept for whoever inspects the parking lot
+    public static final String LAST_ERROR_HEADER = "x-last-error";
+
+    private static final long CONFIRM_TIMEOUT_MS = 5000;
+
+    private static final int MAX_ERROR_LENGTH = 512;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final RetryProperties retryProperties;
+
+    private final PublisherProperties publisherProperties;
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkItemRetryHandler.class);
+
+    public WorkItemRetryHandler(RabbitTemplate rabbitTemplate, RetryProperties retryProperties,
+                                PublisherProperties publisherProperties) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.retryProperties = retryProperties;
+        this.publisherProperties = publisherProperties;
+    }
+
+    /**
+     * Schedules the next retry of a failed message, or parks it when it is out of retries or the failure is
+     * an {@link AmqpRejectAndDontRequeueException}. The returned future completes once the broker has taken the
+     * republished copy, and fails when it could not be republished, in which case the caller must not acknowledge
+     * the original. The received message is left as it is; the copy carries the retry headers.
+     */
+    public CompletableFuture<Void> retryOrPark(Message message, Throwable failure) {
+        Throwable cause = unwrap(failure);
+        int retries = retryCount(message);
+        if (cause instanceof AmqpRejectAndDontRequeueException || retries >= retryProperties.getMaxRetries()) {
+            return park(message, cause);
+        }
+
+        int retry = retries + 1;
+        Message copy = copyOf(message)
+                .setHeader(RETRY_COUNT_HEADER, retry)
+                .setHeader(LAST_ERROR_HEADER, describe(cause))
+                .build();
+        long delayMs = retryProperties.delayMs(retry);
+        logger.warn("Work item message failed, retry {} of {} in {} ms: {}", retry, retryProperties.getMaxRetries(),
+                delayMs, describe(cause));
+        return publish(RabbitMQConfig.RETRY_EXCHANGE, RabbitMQConfig.retryQueueName(delayMs), copy);
+    }
+
+    // Moves a copy of the message to the parking lot, where it stays until it is replayed
+    public CompletableFuture<Void> park(Message message, Throwable failure) {
+        Throwable cause = unwrap(failure);
+        Message copy = copyOf(message).setHeader(LAST_ERROR_HEADER, describe(cause)).build();
+        logger.error("Work item message parked after {} retries", retryCount(message), cause);
+        return publish(RabbitMQConfig.DEAD_LETTER_EXCHANGE, RabbitMQConfig.PARKING_LOT_QUEUE, copy);
+    }
+
+    static int retryCount(Message message) {
+        Object header = message.getMessageProperties().getHeader(RETRY_COUNT_HEADER);
+        return header instanceof Number number ? number.intValue() : 0;
+    }
+
+    // New properties and headers, so the received message's own properties are never changed
+    private static MessageBuilderSupport<Message> copyOf(Message message) {
+        return MessageBuilder.withBody(message.getBody())
+                .copyProperties(message.getMessageProperties())
+                // Received messages carry no delivery mode of their own, and the copy must survive a broker restart
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+    }
+
+    // Completes when the broker has confirmed the copy; nothing waits on a thread for it
+    private CompletableFuture<Void> publish(String exchange, String routingKey, Message message) {
+        try {
+            if (!publisherProperties.isConfirms()) {
+                rabbitTemplate.send(exchange, routingKey, message);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            CorrelationData correlationData = new CorrelationData();
+            rabbitTemplate.send(exchange, routingKey, message, correlationData);
+            return correlationData.getFuture()
+                    .thenAccept(confirm -> {
+                        if (!confirm.isAck() || correlationData.getReturned() != null) {
+                            throw new AmqpException("Work item message not accepted by " + routingKey + ": " + confirm.getReason());
+                        }
+                    })
+                    .orTimeout(CONFIRM_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                    .exceptionallyCompose(e -> {
+                        Throwable cause = unwrap(e);
+                        return CompletableFuture.failedFuture(cause instanceof AmqpException ? cause
+                                : new AmqpException("Work item message not confirmed by " + routingKey, cause));
+                    });
+        } catch (AmqpException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static String describe(Throwable cause) {
+        String description = cause == null ? "unknown" : cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        return description.length() > MAX_ERROR_LENGTH ? description.substring(0, MAX_ERROR_LENGTH) : description;
+    }
+}
@@ -1,13 +1,26 @@
 package com.example.workitem.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Objects;
 
+// The ObjectId _id holds the creation time, so its default index already serves creation-time ordering and ranges
 @Document(collection = "workitems")
+@CompoundIndexes({
+        // Filters on processed, or on processed and value, paged in _id order
+        @CompoundIndex(name = WorkItem.PROCESSED_VALUE_INDEX, def = "{'processed': 1, 'value': 1, '_id': 1}"),
+        // The outbox relay's scan for unconfirmed messages
+        @CompoundIndex(name = WorkItem.DISPATCHED_INDEX, def = "{'dispatched': 1, 'processed': 1, '_id': 1}")
+})
 public class WorkItem {
 
+    public static final String PROCESSED_VALUE_INDEX = "processed_value";
+    public static final String DISPATCHED_INDEX = "dispatched_processed";
+
     @Id
     private String id;
 
@@ -19,6 +32,10 @@ public class WorkItem {
     private boolean processed;
     private Integer result;
 
+    // Outbox flag, written in the same document as the work item and set once the broker has confirmed its message
+    @JsonIgnore
+    private boolean dispatched;
+
     public WorkItem(){}
 
     // Constructors, getters, and setters
@@ -58,6 +75,14 @@ public class WorkItem {
         this.result = result;
     }
 
+    public boolean isDispatched() {
+        return dispatched;
+    }
+
+    public void setDispatched(boolean dispatched) {
+        this.dispatched = dispatched;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
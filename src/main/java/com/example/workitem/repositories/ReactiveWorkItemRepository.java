@@ -0,0 +1,10 @@
+package com.example.workitem.repositories;
+
+import com.example.workitem.model.WorkItem;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+// Non-blocking counterpart of WorkItemRepository for the reactive profile, which enables the reactive Mongo support
+@Repository
+public interface ReactiveWorkItemRepository extends ReactiveMongoRepository<WorkItem, String>, ReactiveWorkItemRepositoryCustom {
+}
@@ -0,0 +1,21 @@
+package com.example.workitem.repositories;
+
+import com.example.workitem.dtos.ReportExport;
+import com.example.workitem.model.WorkItem;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveWorkItemRepositoryCustom {
+
+    // Emits one row per value from the same $group aggregation as WorkItemRepositoryCustom.aggregateReportData
+    Flux<ReportExport> aggregateReportRows();
+
+    // Deletes the work item and emits it as it was at the time of deletion, or completes empty when there was none
+    Mono<WorkItem> removeById(String id);
+
+    // Emits up to limit work items with an _id after afterId (all when null), in _id order, filtered when processed or value are set
+    Flux<WorkItem> findPage(String afterId, int limit, Boolean processed, Integer value);
+
+    // Emits the matching work items in _id order from one Mongo cursor, as fast as the subscriber requests them
+    Flux<WorkItem> streamAll(Boolean processed, Integer value);
+}
@@ -0,0 +1,46 @@
+package com.example.workitem.repositories;
+
+import com.example.workitem.dtos.ReportExport;
+import com.example.workitem.model.WorkItem;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class ReactiveWorkItemRepositoryCustomImpl implements ReactiveWorkItemRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ReactiveWorkItemRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Flux<ReportExport> aggregateReportRows() {
+        return reactiveMongoTemplate.aggregate(WorkItemRepositoryCustomImpl.reportAggregation(), WorkItem.class, Document.class)
+                .map(row -> {
+                    ReportExport reportExport = new ReportExport(((Number) row.get("_id")).intValue());
+                    reportExport.setTotalItems(((Number) row.get("totalItems")).intValue());
+                    reportExport.setProcessedItems(((Number) row.get("processedItems")).intValue());
+                    return reportExport;
+                });
+    }
+
+    @Override
+    public Mono<WorkItem> removeById(String id) {
+        return reactiveMongoTemplate.findAndRemove(Query.query(where("_id").is(id)), WorkItem.class);
+    }
+
+    @Override
+    public Flux<WorkItem> findPage(String afterId, int limit, Boolean processed, Integer value) {
+        return reactiveMongoTemplate.find(WorkItemRepositoryCustomImpl.pageQuery(afterId, limit, processed, value), WorkItem.class);
+    }
+
+    @Override
+    public Flux<WorkItem> streamAll(Boolean processed, Integer value) {
+        return reactiveMongoTemplate.find(WorkItemRepositoryCustomImpl.streamQuery(processed, value), WorkItem.class);
+    }
+}
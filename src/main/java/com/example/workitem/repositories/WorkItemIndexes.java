@@ -0,0 +1,126 @@
+package com.example.workitem.repositories;
+
+import com.example.workitem.config.IndexProperties;
+import com.example.workitem.model.WorkItem;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the indexes declared on {@link WorkItem} at startup, since Spring Boot leaves automatic index creation off,
+ * and logs the query plan of the hot queries so a missing index shows up as a collection scan in the log.
+ */
+@Component
+public class WorkItemIndexes {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkItemIndexes.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final IndexProperties indexProperties;
+
+    @Autowired
+    public WorkItemIndexes(MongoTemplate mongoTemplate, IndexProperties indexProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.indexProperties = indexProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            if (indexProperties.isEnsureOnStartup()) {
+                ensureIndexes();
+            }
+            if (indexProperties.isExplainOnStartup()) {
+                explainHotQueries();
+            }
+        } catch (RuntimeException e) {
+            // Queries still work without the indexes, only slower, so this must not stop the application
+            logger.warn("Could not check the work item indexes: {}", e.getMessage());
+        }
+    }
+
+    // Resolves the @CompoundIndex annotations of WorkItem and creates each index; existing indexes are left as they are
+    public List<String> ensureIndexes() {
+        IndexResolver indexResolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        IndexOperations indexOperations = mongoTemplate.indexOps(WorkItem.class);
+        List<String> indexNames = new ArrayList<>();
+        for (IndexDefinition indexDefinition : indexResolver.resolveIndexFor(WorkItem.class)) {
+            indexNames.add(indexOperations.ensureIndex(indexDefinition));
+        }
+        logger.info("Work item indexes ensured: {}", indexNames);
+        return indexNames;
+    }
+
+    // Explains each hot query and returns its flattened winning plan by name, in the order they were explained
+    public Map<String, String> explainHotQueries() {
+        String collection = mongoTemplate.getCollectionName(WorkItem.class);
+        Document byId = new Document("_id", 1);
+        Map<String, String> plans = new LinkedHashMap<>();
+        explain(plans, "page by processed and value", new Document("find", collection)
+                .append("filter", new Document("processed", false).append("value", 1))
+                .append("sort", byId).append("limit", 101));
+        // WorkItemRepository.findByProcessedFalse with a page of 100 in index order; a Slice reads one extra row
+        explain(plans, "unprocessed page", new Document("find", collection)
+                .append("filter", new Document("processed", false))
+                .append("sort", new Document("value", 1).append("_id", 1)).append("limit", 101));
+        // WorkItemRepository.countByValueAndProcessed
+        explain(plans, "count by value and processed", new Document("count", collection)
+                .append("query", new Document("value", 1).append("processed", false)));
+        explain(plans, "outbox scan", new Document("find", collection)
+                .append("filter", new Document("dispatched", false).append("processed", false)
+                        .append(WorkItemRepositoryCustomImpl.DISPATCH_LEASE_FIELD,
+                                new Document("$not", new Document("$gte", System.currentTimeMillis()))))
+                .append("sort", byId).append("limit", 500));
+        return plans;
+    }
+
+    private void explain(Map<String, String> plans, String name, Document command) {
+        Document explained = mongoTemplate.getDb()
+                .runCommand(new Document("explain", command).append("verbosity", "queryPlanner"));
+        Document queryPlanner = explained.get("queryPlanner", Document.class);
+        String plan = describePlan(queryPlanner == null ? null : queryPlanner.get("winningPlan", Document.class));
+        if (plan.contains("COLLSCAN")) {
+            logger.warn("Query '{}' scans the whole collection: {}", name, plan);
+        } else {
+            logger.info("Query '{}' plan: {}", name, plan);
+        }
+        plans.put(name, plan);
+    }
+
+    /**
+     * Flattens a winning plan into its stages from the top down, e.g. "LIMIT <- FETCH <- IXSCAN processed_value".
+     * The slot based engine of MongoDB 7 nests the classic plan under queryPlan, which is unwrapped first.
+     */
+    static String describePlan(Document winningPlan) {
+        if (winningPlan == null) {
+            return "unknown";
+        }
+        Document stage = winningPlan.containsKey("queryPlan") ? winningPlan.get("queryPlan", Document.class) : winningPlan;
+
+        List<String> stages = new ArrayList<>();
+        while (stage != null) {
+            String name = stage.getString("stage");
+            stages.add(stage.containsKey("indexName") ? name + " " + stage.getString("indexName") : name);
+            if (stage.containsKey("inputStage")) {
+                stage = stage.get("inputStage", Document.class);
+            } else {
+                List<Document> inputStages = stage.getList("inputStages", Document.class);
+                stage = inputStages == null || inputStages.isEmpty() ? null : inputStages.get(0);
+            }
+        }
+        return String.join(" <- ", stages);
+    }
+}
@@ -1,9 +1,17 @@
 package com.example.workitem.repositories;
 
 import com.example.workitem.model.WorkItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface WorkItemRepository extends MongoRepository<WorkItem, String> {
-}
\ No newline at end of file
+public interface WorkItemRepository extends MongoRepository<WorkItem, String>, WorkItemRepositoryCustom {
+
+    // Answered from the processed_value index alone
+    long countByValueAndProcessed(int value, boolean processed);
+
+    // A slice skips the count query a Page would run; sort by value then _id to walk the processed_value index in order
+    Slice<WorkItem> findByProcessedFalse(Pageable pageable);
+}
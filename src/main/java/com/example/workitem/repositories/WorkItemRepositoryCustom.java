@@ -0,0 +1,37 @@
+package com.example.workitem.repositories;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.model.WorkItem;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface WorkItemRepositoryCustom {
+
+    // Counts the total and processed work items per value with a single $group aggregation
+    Map<Integer, ReportDto.ReportItem> aggregateReportData();
+
+    // Deletes the work item and returns it as it was at the time of deletion
+    Optional<WorkItem> removeById(String id);
+
+    // Stores the result when the work item exists, still has this value and is unprocessed; false when nothing matched
+    boolean markProcessed(String id, int value, int result);
+
+    // Stores the result of every still unprocessed work item with one unordered bulk write and returns the ones it modified
+    List<WorkItem> markAllProcessed(List<WorkItem> workItems);
+
+    // Returns up to limit work items with an _id after afterId (all when null), in _id order, filtered when processed or value are set
+    List<WorkItem> findPage(String afterId, int limit, Boolean processed, Integer value);
+
+    // Streams the matching work items in _id order from one Mongo cursor, the stream must be closed
+    Stream<WorkItem> streamAll(Boolean processed, Integer value);
+
+    // Leases up to limit unprocessed, unconfirmed work items that no other relay holds and returns them, oldest first
+    List<WorkItem> claimUndispatched(int limit, long leaseMs);
+
+    // Flags the given work items as published, drops their lease and returns the number modified
+    long markDispatched(Collection<String> ids);
+}
@@ -0,0 +1,188 @@
+package com.example.workitem.repositories;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.model.WorkItem;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class WorkItemRepositoryCustomImpl implements WorkItemRepositoryCustom {
+
+    static final String PROCESSED_BATCH_FIELD = "processedBatch";
+    static final String DISPATCH_CLAIM_FIELD = "dispatchClaim";
+    static final String DISPATCH_LEASE_FIELD = "dispatchLeaseUntil";
+
+    private final MongoTemplate mongoTemplate;
+
+    public WorkItemRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Map<Integer, ReportDto.ReportItem> aggregateReportData() {
+        Map<Integer, ReportDto.ReportItem> reportData = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(reportAggregation(), WorkItem.class, Document.class).getMappedResults()) {
+            ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+            reportItem.setTotalItems(((Number) row.get("totalItems")).intValue());
+            reportItem.setProcessedItems(((Number) row.get("processedItems")).intValue());
+            reportData.put(((Number) row.get("_id")).intValue(), reportItem);
+        }
+        return reportData;
+    }
+
+    // { $group: { _id: "$value", totalItems: { $sum: 1 }, processedItems: { $sum: { $cond: [processed, 1, 0] } } } }
+    static Aggregation reportAggregation() {
+        return Aggregation.newAggregation(
+                Aggregation.group("value")
+                        .count().as("totalItems")
+                        .sum(ConditionalOperators.when(ComparisonOperators.valueOf("processed").equalToValue(true))
+                                .then(1)
+                                .otherwise(0)).as("processedItems"));
+    }
+
+    @Override
+    public Optional<WorkItem> removeById(String id) {
+        return Optional.ofNullable(mongoTemplate.findAndRemove(Query.query(where("_id").is(id)), WorkItem.class));
+    }
+
+    @Override
+    public boolean markProcessed(String id, int value, int result) {
+        // One conditional write: a duplicate delivery, a changed value or a deleted work item matches nothing
+        Query query = Query.query(where("_id").is(id).and("value").is(value).and("processed").is(false));
+        Update update = new Update().set("processed", true).set("result", result);
+        return mongoTemplate.updateFirst(query, update, WorkItem.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public List<WorkItem> markAllProcessed(List<WorkItem> workItems) {
+        if (workItems.isEmpty()) {
+            return List.of();
+        }
+
+        // Tags the rows this write modifies, a bulk result only counts them and does not say which they were
+        String batchId = new ObjectId().toHexString();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WorkItem.class);
+        for (WorkItem workItem : workItems) {
+            bulkOperations.updateOne(
+                    Query.query(where("_id").is(workItem.getId()).and("value").is(workItem.getValue()).and("processed").is(false)),
+                    new Update().set("processed", true).set("result", workItem.getResult()).set(PROCESSED_BATCH_FIELD, batchId));
+        }
+        int modified = bulkOperations.execute().getModifiedCount();
+        if (modified == 0) {
+            return List.of();
+        }
+
+        List<WorkItem> modifiedWorkItems = workItems;
+        if (modified < workItems.size()) {
+            // Some items were duplicates or were changed in the meantime, read back which ones this batch wrote
+            Query query = Query.query(where("_id").in(ids(workItems)).and(PROCESSED_BATCH_FIELD).is(batchId));
+            query.fields().include("_id");
+            Set<String> modifiedIds = mongoTemplate.find(query, WorkItem.class).stream()
+                    .map(WorkItem::getId)
+                    .collect(Collectors.toSet());
+            modifiedWorkItems = workItems.stream().filter(workItem -> modifiedIds.contains(workItem.getId())).toList();
+        }
+
+        // The tag is only needed until the rows are known, so it is not left behind on the work items
+        mongoTemplate.updateMulti(Query.query(where("_id").in(ids(modifiedWorkItems)).and(PROCESSED_BATCH_FIELD).is(batchId)),
+                new Update().unset(PROCESSED_BATCH_FIELD), WorkItem.class);
+        return modifiedWorkItems;
+    }
+
+    private static List<String> ids(List<WorkItem> workItems) {
+        return workItems.stream().map(WorkItem::getId).toList();
+    }
+
+    @Override
+    public List<WorkItem> findPage(String afterId, int limit, Boolean processed, Integer value) {
+        return mongoTemplate.find(pageQuery(afterId, limit, processed, value), WorkItem.class);
+    }
+
+    @Override
+    public Stream<WorkItem> streamAll(Boolean processed, Integer value) {
+        return mongoTemplate.stream(streamQuery(processed, value), WorkItem.class);
+    }
+
+    static Query pageQuery(String afterId, int limit, Boolean processed, Integer value) {
+        Criteria criteria = filter(processed, value);
+        if (afterId != null) {
+            // Keyset paging: the _id index seeks straight to the page instead of skipping the earlier ones
+            criteria.and("_id").gt(new ObjectId(afterId));
+        }
+        return Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(limit);
+    }
+
+    static Query streamQuery(Boolean processed, Integer value) {
+        return Query.query(filter(processed, value)).with(Sort.by(Sort.Direction.ASC, "_id"));
+    }
+
+    private static Criteria filter(Boolean processed, Integer value) {
+        Criteria criteria = new Criteria();
+        if (processed != null) {
+            criteria.and("processed").is(processed);
+        }
+        if (value != null) {
+            criteria.and("value").is(value);
+        }
+        return criteria;
+    }
+
+    @Override
+    public List<WorkItem> claimUndispatched(int limit, long leaseMs) {
+        long now = System.currentTimeMillis();
+        Query candidates = Query.query(claimable(where("dispatched").is(false), now))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(limit);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, WorkItem.class).stream().map(WorkItem::getId).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Every row is claimed by its own conditional write, so of two relays racing for an item only one gets it
+        String claim = new ObjectId().toHexString();
+        mongoTemplate.updateMulti(Query.query(claimable(where("_id").in(ids).and("dispatched").is(false), now)),
+                new Update().set(DISPATCH_CLAIM_FIELD, claim).set(DISPATCH_LEASE_FIELD, now + leaseMs),
+                WorkItem.class);
+        Query claimed = Query.query(where("_id").in(ids).and(DISPATCH_CLAIM_FIELD).is(claim))
+                .with(Sort.by(Sort.Direction.ASC, "_id"));
+        return mongoTemplate.find(claimed, WorkItem.class);
+    }
+
+    // Processed items are skipped: a consumer saving an item it received can overwrite the flag set by the relay
+    private static Criteria claimable(Criteria criteria, long now) {
+        // $not $gte also matches items that were never leased
+        return criteria.and("processed").is(false).and(DISPATCH_LEASE_FIELD).not().gte(now);
+    }
+
+    @Override
+    public long markDispatched(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return mongoTemplate.updateMulti(Query.query(where("_id").in(ids)),
+                new Update().set("dispatched", true).unset(DISPATCH_CLAIM_FIELD).unset(DISPATCH_LEASE_FIELD),
+                WorkItem.class).getModifiedCount();
+    }
+}
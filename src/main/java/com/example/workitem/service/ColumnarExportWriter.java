@@ -0,0 +1,148 @@
+package com.example.workitem.service;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.model.WorkItem;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A compact column-oriented binary format, laid out like a minimal Parquet file. All numbers are big-endian.
+ * <pre>
+ * "WICOL" version:byte
+ * columnCount:int  { name:UTF type:byte } per column
+ * { rowCount:int  column chunk per column } per row group, at most ROW_GROUP_SIZE rows
+ * 0:int   end of file
+ * </pre>
+ * Column chunks hold the values of one column for the rows of the group: STRING as one UTF per row, INT32 as one int
+ * per row, BOOLEAN as a bitmap of (rowCount + 7) / 8 bytes, and NULLABLE_INT32 as a bitmap of present values followed
+ * by an int for each present value. Only one row group is buffered at a time.
+ */
+public class ColumnarExportWriter implements ExportWriter {
+
+    public static final String CONTENT_TYPE = "application/vnd.workitem.columnar";
+    static final byte[] MAGIC = {'W', 'I', 'C', 'O', 'L'};
+    static final byte VERSION = 1;
+    static final int ROW_GROUP_SIZE = 8192;
+
+    static final byte STRING = 1;
+    static final byte INT32 = 2;
+    static final byte BOOLEAN = 3;
+    static final byte NULLABLE_INT32 = 4;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public void writeWorkItems(Iterator<WorkItem> workItems, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+        writeHeader(out, new String[]{"id", "value", "processed", "result"},
+                new byte[]{STRING, INT32, BOOLEAN, NULLABLE_INT32});
+
+        String[] ids = new String[ROW_GROUP_SIZE];
+        int[] values = new int[ROW_GROUP_SIZE];
+        boolean[] processed = new boolean[ROW_GROUP_SIZE];
+        boolean[] hasResult = new boolean[ROW_GROUP_SIZE];
+        int[] results = new int[ROW_GROUP_SIZE];
+        int rowCount = 0;
+        while (workItems.hasNext()) {
+            WorkItem workItem = workItems.next();
+            ids[rowCount] = workItem.getId() == null ? "" : workItem.getId();
+            values[rowCount] = workItem.getValue();
+            processed[rowCount] = workItem.isProcessed();
+            hasResult[rowCount] = workItem.getResult() != null;
+            results[rowCount] = hasResult[rowCount] ? workItem.getResult() : 0;
+            rowCount++;
+            if (rowCount == ROW_GROUP_SIZE) {
+                writeWorkItemGroup(out, rowCount, ids, values, processed, hasResult, results);
+                rowCount = 0;
+            }
+        }
+        if (rowCount > 0) {
+            writeWorkItemGroup(out, rowCount, ids, values, processed, hasResult, results);
+        }
+        out.writeInt(0);
+        out.flush();
+    }
+
+    @Override
+    public void writeReport(Map<Integer, ReportDto.ReportItem> reportData, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+        writeHeader(out, new String[]{"value", "totalItems", "processedItems"}, new byte[]{INT32, INT32, INT32});
+
+        int[] values = new int[ROW_GROUP_SIZE];
+        int[] totalItems = new int[ROW_GROUP_SIZE];
+        int[] processedItems = new int[ROW_GROUP_SIZE];
+        int rowCount = 0;
+        for (Map.Entry<Integer, ReportDto.ReportItem> entry : new TreeMap<>(reportData).entrySet()) {
+            values[rowCount] = entry.getKey();
+            totalItems[rowCount] = entry.getValue().getTotalItems();
+            processedItems[rowCount] = entry.getValue().getProcessedItems();
+            rowCount++;
+            if (rowCount == ROW_GROUP_SIZE) {
+                writeReportGroup(out, rowCount, values, totalItems, processedItems);
+                rowCount = 0;
+            }
+        }
+        if (rowCount > 0) {
+            writeReportGroup(out, rowCount, values, totalItems, processedItems);
+        }
+        out.writeInt(0);
+        out.flush();
+    }
+
+    private void writeHeader(DataOutputStream out, String[] names, byte[] types) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            out.writeUTF(names[i]);
+            out.writeByte(types[i]);
+        }
+    }
+
+    private void writeWorkItemGroup(DataOutputStream out, int rowCount, String[] ids, int[] values, boolean[] processed,
+                                    boolean[] hasResult, int[] results) throws IOException {
+        out.writeInt(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            out.writeUTF(ids[i]);
+        }
+        writeInts(out, values, rowCount);
+        writeBitmap(out, processed, rowCount);
+        writeBitmap(out, hasResult, rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            if (hasResult[i]) {
+                out.writeInt(results[i]);
+            }
+        }
+    }
+
+    private void writeReportGroup(DataOutputStream out, int rowCount, int[] values, int[] totalItems,
+                                  int[] processedItems) throws IOException {
+        out.writeInt(rowCount);
+        writeInts(out, values, rowCount);
+        writeInts(out, totalItems, rowCount);
+        writeInts(out, processedItems, rowCount);
+    }
+
+    private void writeInts(DataOutputStream out, int[] column, int rowCount) throws IOException {
+        for (int i = 0; i < rowCount; i++) {
+            out.writeInt(column[i]);
+        }
+    }
+
+    // Bit i % 8 of byte i / 8 is set when row i is true
+    private void writeBitmap(DataOutputStream out, boolean[] column, int rowCount) throws IOException {
+        byte[] bitmap = new byte[(rowCount + 7) / 8];
+        for (int i = 0; i < rowCount; i++) {
+            if (column[i]) {
+                bitmap[i / 8] |= (byte) (1 << (i % 8));
+            }
+        }
+        out.write(bitmap);
+    }
+}
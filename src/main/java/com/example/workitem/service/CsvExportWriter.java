@@ -0,0 +1,60 @@
+package com.example.workitem.service;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.model.WorkItem;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * RFC 4180 CSV with a header row. Every column is an id, a number or a boolean, so no field needs quoting.
+ */
+public class CsvExportWriter implements ExportWriter {
+
+    static final String WORK_ITEM_HEADER = "id,value,processed,result";
+    static final String REPORT_HEADER = "value,totalItems,processedItems";
+    private static final String LINE_END = "\r\n";
+
+    @Override
+    public void writeWorkItems(Iterator<WorkItem> workItems, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(WORK_ITEM_HEADER);
+        writer.write(LINE_END);
+        while (workItems.hasNext()) {
+            WorkItem workItem = workItems.next();
+            writer.write(workItem.getId() == null ? "" : workItem.getId());
+            writer.write(',');
+            writer.write(Integer.toString(workItem.getValue()));
+            writer.write(',');
+            writer.write(Boolean.toString(workItem.isProcessed()));
+            writer.write(',');
+            // An unprocessed work item has no result, written as an empty field
+            writer.write(workItem.getResult() == null ? "" : workItem.getResult().toString());
+            writer.write(LINE_END);
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void writeReport(Map<Integer, ReportDto.ReportItem> reportData, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(REPORT_HEADER);
+        writer.write(LINE_END);
+        for (Map.Entry<Integer, ReportDto.ReportItem> entry : new TreeMap<>(reportData).entrySet()) {
+            writer.write(entry.getKey().toString());
+            writer.write(',');
+            writer.write(Integer.toString(entry.getValue().getTotalItems()));
+            writer.write(',');
+            writer.write(Integer.toString(entry.getValue().getProcessedItems()));
+            writer.write(LINE_END);
+        }
+        writer.flush();
+    }
+}
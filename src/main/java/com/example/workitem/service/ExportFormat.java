@@ -0,0 +1,40 @@
+package com.example.workitem.service;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+    CSV("text/csv", "csv", new CsvExportWriter()),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx", new XlsxExportWriter()),
+    COLUMNAR(ColumnarExportWriter.CONTENT_TYPE, "wicol", new ColumnarExportWriter());
+
+    private final String contentType;
+    private final String extension;
+    private final ExportWriter writer;
+
+    ExportFormat(String contentType, String extension, ExportWriter writer) {
+        this.contentType = contentType;
+        this.extension = extension;
+        this.writer = writer;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public ExportWriter getWriter() {
+        return writer;
+    }
+
+    // Case-insensitive lookup, returns null for an unknown format
+    public static ExportFormat fromName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.workitem.service;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.model.WorkItem;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Writes work items or report aggregates in one export format. Work items are consumed one at a time from the
+ * iterator, so a Mongo cursor can be exported without loading the collection. The stream is flushed, not closed.
+ */
+public interface ExportWriter {
+
+    void writeWorkItems(Iterator<WorkItem> workItems, OutputStream outputStream) throws IOException;
+
+    void writeReport(Map<Integer, ReportDto.ReportItem> reportData, OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,61 @@
+package com.example.workitem.service;
+
+import com.example.workitem.exceptions.ReportGenerationException;
+import io.micrometer.core.instrument.Timer;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A filled PDF report waiting to be exported. Filling runs while the response can still report an error; exporting
+ * writes the PDF to any stream, such as the servlet response, without building it in memory first. The ETag is
+ * derived from the report data, so it is known before the PDF is exported.
+ */
+public class FilledPdfReport {
+
+    private final JasperPrint jasperPrint;
+
+    private final JRVirtualizer virtualizer;
+
+    private final Timer exportTimer;
+
+    private final String etag;
+
+    public FilledPdfReport(JasperPrint jasperPrint, JRVirtualizer virtualizer, Timer exportTimer, String etag) {
+        this.jasperPrint = jasperPrint;
+        this.virtualizer = virtualizer;
+        this.exportTimer = exportTimer;
+        this.etag = etag;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    // Exports the report once and releases the pages held by the virtualizer; the stream is flushed, not closed
+    public void exportTo(OutputStream outputStream) throws ReportGenerationException {
+        long start = System.nanoTime();
+        try {
+            JRPdfExporter exporter = new JRPdfExporter();
+            exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+            exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputStream));
+            exporter.exportReport();
+        } catch (JRException e) {
+            throw new ReportGenerationException("Failed to generate PDF report: JasperReports exception.", e);
+        } finally {
+            virtualizer.cleanup();
+            exportTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Releases the pages held by the virtualizer without exporting, for a report the client already has
+    public void discard() {
+        virtualizer.cleanup();
+    }
+}
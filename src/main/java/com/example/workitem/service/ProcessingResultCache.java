@@ -0,0 +1,133 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ProcessingProperties;
+import com.example.workitem.model.WorkItem;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes the results of pure processors by processor type and cache key. A hit completes straight away, so the work
+ * item goes directly to persistence without the processing delay. The pending result is cached as soon as the first
+ * work item starts processing, so concurrent work items with the same input wait for that one instead of each
+ * starting their own. A failed result is dropped and the next work item tries again.
+ */
+@Component
+public class ProcessingResultCache implements MeterBinder {
+
+    private final ProcessingProperties.Cache cacheProperties;
+
+    private final Map<String, CachedResult> results;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public ProcessingResultCache(ProcessingProperties processingProperties) {
+        this.cacheProperties = processingProperties.getCache();
+        // Access order turns the map into an LRU, the eldest entry is dropped once maxEntries is exceeded
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > cacheProperties.getMaxEntries();
+            }
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("workitem.processing.cache", this, ProcessingResultCache::getHitCount)
+                .description("Processing results served from or added to the result cache")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("workitem.processing.cache", this, ProcessingResultCache::getMissCount)
+                .description("Processing results served from or added to the result cache")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("workitem.processing.cache.size", this, ProcessingResultCache::size)
+                .description("Processing results held in the result cache")
+                .register(registry);
+    }
+
+    // Runs the processor, or returns the cached result of an earlier work item with the same input
+    public CompletionStage<Integer> process(WorkItemProcessor processor, WorkItem workItem) {
+        if (!cacheProperties.isEnabled() || !processor.isPure()) {
+            return processor.process(workItem);
+        }
+
+        String key = processor.getType() + ":" + processor.cacheKey(workItem);
+        CompletableFuture<Integer> result;
+        synchronized (this) {
+            CachedResult cached = results.get(key);
+            long ageMs = cached == null ? 0 : (System.nanoTime() - cached.createdAtNanos) / 1_000_000;
+            if (cached != null && ageMs < cacheProperties.getTtlMs()) {
+                hits.increment();
+                return cached.result.copy();
+            }
+            misses.increment();
+            result = new CompletableFuture<>();
+            results.put(key, new CachedResult(result, System.nanoTime()));
+        }
+
+        // Started outside the lock, a processor may complete on the calling thread
+        CompletionStage<Integer> processed;
+        try {
+            processed = processor.process(workItem);
+        } catch (RuntimeException e) {
+            processed = CompletableFuture.failedFuture(e);
+        }
+        processed.whenComplete((value, failure) -> {
+            if (failure != null) {
+                remove(key, result);
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result.copy();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    private synchronized void remove(String key, CompletableFuture<Integer> result) {
+        CachedResult cached = results.get(key);
+        if (cached != null && cached.result == result) {
+            results.remove(key);
+        }
+    }
+
+    private static final class CachedResult {
+
+        private final CompletableFuture<Integer> result;
+
+        private final long createdAtNanos;
+
+        private CachedResult(CompletableFuture<Integer> result, long createdAtNanos) {
+            this.result = result;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+}
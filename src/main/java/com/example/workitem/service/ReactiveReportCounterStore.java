@@ -0,0 +1,58 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ReportProperties;
+import com.example.workitem.dtos.ReportDto;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link ReportCounterStore} for the reactive profile. It writes the same versioned upserts
+ * to the same report_counters document, built by ReportCounterStore, and reads it the same way.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveReportCounterStore {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ReportProperties reportProperties;
+
+    @Autowired
+    public ReactiveReportCounterStore(ReactiveMongoTemplate reactiveMongoTemplate, ReportProperties reportProperties) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.reportProperties = reportProperties;
+    }
+
+    public boolean isEnabled() {
+        return reportProperties.getMode() == ReportProperties.Mode.COUNTERS;
+    }
+
+    public Mono<Void> recordCreated(int value) {
+        return increment(ReportCounterStore.created(value));
+    }
+
+    public Mono<Void> recordDeleted(int value, boolean processed) {
+        return increment(ReportCounterStore.deleted(value, processed));
+    }
+
+    public Mono<Map<Integer, ReportDto.ReportItem>> snapshot() {
+        return reactiveMongoTemplate.findById(ReportCounterStore.DOCUMENT_ID, Document.class, ReportCounterStore.COLLECTION)
+                .map(ReportCounterStore::reportData)
+                .defaultIfEmpty(new HashMap<>());
+    }
+
+    private Mono<Void> increment(Update update) {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+        return reactiveMongoTemplate.upsert(ReportCounterStore.counters(), ReportCounterStore.versioned(update),
+                ReportCounterStore.COLLECTION).then();
+    }
+}
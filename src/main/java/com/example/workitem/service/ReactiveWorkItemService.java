@@ -0,0 +1,147 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.OutboxProperties;
+import com.example.workitem.config.ReportProperties;
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.dtos.ReportExport;
+import com.example.workitem.messaging.ReactiveWorkItemProducer;
+import com.example.workitem.model.WorkItem;
+import com.example.workitem.repositories.ReactiveWorkItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request path of the reactive profile: the operations of {@link WorkItemServiceImpl} that the HTTP endpoints need,
+ * on the reactive Mongo driver and the reactive producer. Work items are still processed by WorkItemConsumer, which
+ * keeps using the blocking service.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveWorkItemService {
+
+    private final ReactiveWorkItemRepository reactiveWorkItemRepository;
+    private final ReactiveWorkItemProducer reactiveWorkItemProducer;
+    private final ReportProperties reportProperties;
+    private final ReactiveReportCounterStore reactiveReportCounterStore;
+    private final OutboxProperties outboxProperties;
+    private final ReportArtifactCache reportArtifactCache;
+    private final Timer reportTimer;
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveWorkItemService.class);
+
+    @Autowired
+    public ReactiveWorkItemService(ReactiveWorkItemRepository reactiveWorkItemRepository,
+                                   ReactiveWorkItemProducer reactiveWorkItemProducer, ReportProperties reportProperties,
+                                   ReactiveReportCounterStore reactiveReportCounterStore, OutboxProperties outboxProperties,
+                                   ReportArtifactCache reportArtifactCache, MeterRegistry meterRegistry) {
+        this.reactiveWorkItemRepository = reactiveWorkItemRepository;
+        this.reactiveWorkItemProducer = reactiveWorkItemProducer;
+        this.reportProperties = reportProperties;
+        this.reactiveReportCounterStore = reactiveReportCounterStore;
+        this.outboxProperties = outboxProperties;
+        this.reportArtifactCache = reportArtifactCache;
+        this.reportTimer = Timer.builder("workitem.report.generate")
+                .description("Time to calculate the report data")
+                .tag("mode", reportProperties.getMode().name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+
+    public Flux<WorkItem> getWorkItemsPage(String afterId, int limit, Boolean processed, Integer value) {
+        return reactiveWorkItemRepository.findPage(afterId, limit, processed, value);
+    }
+
+    public Flux<WorkItem> streamWorkItems(Boolean processed, Integer value) {
+        return reactiveWorkItemRepository.streamAll(processed, value);
+    }
+
+    public Mono<WorkItem> getWorkItem(String id) {
+        return reactiveWorkItemRepository.findById(id);
+    }
+
+    public Mono<String> createWorkItem(int value) {
+        WorkItem workItem = new WorkItem(value);
+        // With the outbox the message is left to OutboxRelay, which picks up every item saved as undispatched
+        workItem.setDispatched(!outboxProperties.isEnabled());
+        return reactiveWorkItemRepository.save(workItem)
+                .flatMap(saved -> reactiveReportCounterStore.recordCreated(value).thenReturn(saved.getId()))
+                .doOnNext(id -> {
+                    reportArtifactCache.invalidate();
+                    if (!outboxProperties.isEnabled()) {
+                        // Not awaited, like WorkItemServiceImpl does not wait for the confirm either
+                        reactiveWorkItemProducer.sendWorkItem(id, value)
+                                .subscribe(null, failure -> logger.error("Work item {} was not published", id, failure));
+                    }
+                    logger.info("Work item created with ID: {}", id);
+                });
+    }
+
+    // Completes empty when there was no such work item
+    public Mono<WorkItem> deleteWorkItem(String id) {
+        return reactiveWorkItemRepository.removeById(id)
+                .flatMap(removed -> reactiveReportCounterStore.recordDeleted(removed.getValue(), removed.isProcessed())
+                        .thenReturn(removed))
+                .doOnNext(removed -> reportArtifactCache.invalidate());
+    }
+
+    /**
+     * Emits the report one value at a time. In aggregation mode every row is sent as the $group stage returns it;
+     * the counters and in-memory modes have to read their whole input first.
+     */
+    public Flux<ReportExport> streamReport() {
+        return switch (reportProperties.getMode()) {
+            case AGGREGATION -> reactiveWorkItemRepository.aggregateReportRows();
+            case COUNTERS -> reactiveReportCounterStore.snapshot().flatMapIterable(ReactiveWorkItemService::toRows);
+            case IN_MEMORY -> reactiveWorkItemRepository.findAll()
+                    .collect(HashMap<Integer, ReportDto.ReportItem>::new, (reportData, workItem) -> {
+                        ReportDto.ReportItem reportItem = reportData.computeIfAbsent(workItem.getValue(), value -> new ReportDto.ReportItem());
+                        reportItem.incrementTotalItems();
+                        if (workItem.isProcessed()) {
+                            reportItem.incrementProcessedItems();
+                        }
+                    })
+                    .flatMapIterable(ReactiveWorkItemService::toRows);
+        };
+    }
+
+    public Mono<ReportDto> generateReport() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return streamReport()
+                    .collectMap(ReportExport::getValue, row -> {
+                        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+                        reportItem.setTotalItems(row.getTotalItems());
+                        reportItem.setProcessedItems(row.getProcessedItems());
+                        return reportItem;
+                    })
+                    .map(reportData -> {
+                        reportTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        ReportDto reportDto = new ReportDto();
+                        reportDto.setReportData(reportData);
+                        return reportDto;
+                    });
+        });
+    }
+
+    private static Iterable<ReportExport> toRows(Map<Integer, ReportDto.ReportItem> reportData) {
+        return reportData.entrySet().stream()
+                .map(entry -> {
+                    ReportExport reportExport = new ReportExport(entry.getKey());
+                    reportExport.setTotalItems(entry.getValue().getTotalItems());
+                    reportExport.setProcessedItems(entry.getValue().getProcessedItems());
+                    return reportExport;
+                })
+                .toList();
+    }
+}
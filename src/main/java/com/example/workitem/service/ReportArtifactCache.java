@@ -0,0 +1,149 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ReportProperties;
+import com.example.workitem.dtos.ReportDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps generated reports keyed by a local data version that is bumped on every create, delete and process. An
+ * artifact is served while the version is unchanged and it is younger than the configured TTL, so a cache hit
+ * touches neither MongoDB nor JasperReports. The TTL bounds how stale a report can be when another instance
+ * changed the data.
+ */
+@Component
+public class ReportArtifactCache {
+
+    public static final String REPORT_KEY = "report";
+    public static final String PDF_REPORT_KEY = "report-pdf";
+
+    private final ReportProperties reportProperties;
+
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    private final Map<String, ReportArtifact<?>> artifacts;
+
+    @Autowired
+    public ReportArtifactCache(ReportProperties reportProperties) {
+        this.reportProperties = reportProperties;
+        // Access order turns the map into an LRU, the eldest entry is dropped once maxEntries is exceeded
+        this.artifacts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ReportArtifact<?>> eldest) {
+                return size() > reportProperties.getCache().getMaxEntries();
+            }
+        };
+    }
+
+    public int getMaxArtifactBytes() {
+        return reportProperties.getCache().getMaxArtifactBytes();
+    }
+
+    public long currentVersion() {
+        return dataVersion.get();
+    }
+
+    // Called whenever the data behind the reports changes
+    public void invalidate() {
+        dataVersion.incrementAndGet();
+    }
+
+    // Returns the artifact for the key if it was built from the current data version and has not expired
+    @SuppressWarnings("unchecked")
+    public synchronized <T> ReportArtifact<T> get(String key) {
+        if (!reportProperties.getCache().isEnabled()) {
+            return null;
+        }
+        ReportArtifact<?> artifact = artifacts.get(key);
+        if (artifact == null) {
+            return null;
+        }
+        long ageMs = (System.nanoTime() - artifact.createdAtNanos) / 1_000_000;
+        if (artifact.version != dataVersion.get() || ageMs >= reportProperties.getCache().getTtlMs()) {
+            artifacts.remove(key);
+            return null;
+        }
+        return (ReportArtifact<T>) artifact;
+    }
+
+    /**
+     * Stores an artifact built from the data version read before it was generated. If the data changed in the
+     * meantime the artifact is already stale and is never served from the cache.
+     */
+    public synchronized <T> ReportArtifact<T> put(String key, long version, T body, String etag) {
+        ReportArtifact<T> artifact = new ReportArtifact<>(body, etag, version, System.nanoTime());
+        if (reportProperties.getCache().isEnabled() && version == dataVersion.get()) {
+            artifacts.put(key, artifact);
+        }
+        return artifact;
+    }
+
+    // Strong ETag over the exact bytes of an artifact
+    public static String etag(byte[] content) {
+        return "\"" + sha256(content) + "\"";
+    }
+
+    // Strong ETag over the report counts, identical counts always give the same JSON body
+    public static String etag(Map<Integer, ReportDto.ReportItem> reportData) {
+        return etag(counts(reportData).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Strong ETag of the PDF rendered from the report counts; the suffix keeps it apart from the JSON report's ETag
+    public static String pdfEtag(Map<Integer, ReportDto.ReportItem> reportData) {
+        return etag((counts(reportData) + "pdf").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String counts(Map<Integer, ReportDto.ReportItem> reportData) {
+        StringBuilder counts = new StringBuilder();
+        for (Map.Entry<Integer, ReportDto.ReportItem> entry : new TreeMap<>(reportData).entrySet()) {
+            counts.append(entry.getKey()).append(':')
+                    .append(entry.getValue().getTotalItems()).append(':')
+                    .append(entry.getValue().getProcessedItems()).append(';');
+        }
+        return counts.toString();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static final class ReportArtifact<T> {
+
+        private final T body;
+
+        private final String etag;
+
+        private final long version;
+
+        private final long createdAtNanos;
+
+        private ReportArtifact(T body, String etag, long version, long createdAtNanos) {
+            this.body = body;
+            this.etag = etag;
+            this.version = version;
+            this.createdAtNanos = createdAtNanos;
+        }
+
+        public T getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.workitem.service;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.repositories.WorkItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+public class ReportCounterReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportCounterReconciler.class);
+
+    // Each attempt re-reads the counters, so a steady stream of writes only delays the reconcile to the next run
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final WorkItemRepository workItemRepository;
+    private final ReportCounterStore reportCounterStore;
+    private final ReportArtifactCache reportArtifactCache;
+
+    @Autowired
+    public ReportCounterReconciler(WorkItemRepository workItemRepository, ReportCounterStore reportCounterStore,
+                                   ReportArtifactCache reportArtifactCache) {
+        this.workItemRepository = workItemRepository;
+        this.reportCounterStore = reportCounterStore;
+        this.reportArtifactCache = reportArtifactCache;
+    }
+
+    /**
+     * Rebuilds the report counters from the work items collection and returns the per-value drift that was corrected.
+     * Runs once at startup and then periodically. The counters are read before the collection is aggregated and
+     * overwritten with $set only if their version is still the one read, so a create, delete or process counted in
+     * between is never applied twice; the reconcile is retried instead.
+     */
+    @Scheduled(fixedDelayString = "${workitem.report.reconcile-interval-ms:300000}")
+    public Map<Integer, ReportDto.ReportItem> reconcile() {
+        if (!reportCounterStore.isEnabled()) {
+            return new HashMap<>();
+        }
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            ReportCounterStore.Snapshot counted = reportCounterStore.versionedSnapshot();
+            Map<Integer, ReportDto.ReportItem> actual = workItemRepository.aggregateReportData();
+            Map<Integer, ReportDto.ReportItem> drift = drift(actual, counted.reportData());
+            if (drift.isEmpty()) {
+                logger.info("Report counters reconciled. Values with drift: 0");
+                return drift;
+            }
+            if (reportCounterStore.replace(counted.version(), actual)) {
+                for (Map.Entry<Integer, ReportDto.ReportItem> entry : drift.entrySet()) {
+                    logger.warn("Report counter drift for value {}: total items {}, processed items {}", entry.getKey(),
+                            entry.getValue().getTotalItems(), entry.getValue().getProcessedItems());
+                }
+                reportArtifactCache.invalidate();
+                logger.info("Report counters reconciled. Values with drift: {}", drift.size());
+                return drift;
+            }
+            logger.debug("Report counters changed during reconcile attempt {}", attempt);
+        }
+
+        logger.warn("Report counters kept changing during {} reconcile attempts, left for the next run", MAX_ATTEMPTS);
+        return new HashMap<>();
+    }
+
+    private static Map<Integer, ReportDto.ReportItem> drift(Map<Integer, ReportDto.ReportItem> actual,
+                                                            Map<Integer, ReportDto.ReportItem> counted) {
+        Map<Integer, ReportDto.ReportItem> drift = new HashMap<>();
+        Set<Integer> values = new HashSet<>(actual.keySet());
+        values.addAll(counted.keySet());
+        for (Integer value : values) {
+            ReportDto.ReportItem actualItem = actual.getOrDefault(value, new ReportDto.ReportItem());
+            ReportDto.ReportItem countedItem = counted.getOrDefault(value, new ReportDto.ReportItem());
+            int totalDrift = actualItem.getTotalItems() - countedItem.getTotalItems();
+            int processedDrift = actualItem.getProcessedItems() - countedItem.getProcessedItems();
+            if (totalDrift == 0 && processedDrift == 0) {
+                continue;
+            }
+
+            ReportDto.ReportItem driftItem = new ReportDto.ReportItem();
+            driftItem.setTotalItems(totalDrift);
+            driftItem.setProcessedItems(processedDrift);
+            drift.put(value, driftItem);
+        }
+        return drift;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ReportProperties;
+import com.example.workitem.dtos.ReportDto;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Materialized per-value report counters, kept in a single document of the report_counters collection:
+ * { _id: "workitems", totalItems: { "5": 12, ... }, processedItems: { "5": 7, ... }, version: 42 }.
+ * Every change is an atomic $inc, so reading the report costs one small document regardless of collection size.
+ * Every change also bumps the version, which lets the reconciler overwrite the counters only when nothing changed
+ * them since it read them.
+ */
+@Component
+public class ReportCounterStore {
+
+    static final String COLLECTION = "report_counters";
+    static final String DOCUMENT_ID = "workitems";
+    static final String TOTAL_ITEMS = "totalItems";
+    static final String PROCESSED_ITEMS = "processedItems";
+    static final String VERSION = "version";
+
+    private final MongoTemplate mongoTemplate;
+    private final ReportProperties reportProperties;
+
+    @Autowired
+    public ReportCounterStore(MongoTemplate mongoTemplate, ReportProperties reportProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.reportProperties = reportProperties;
+    }
+
+    public boolean isEnabled() {
+        return reportProperties.getMode() == ReportProperties.Mode.COUNTERS;
+    }
+
+    public void recordCreated(int value) {
+        increment(created(value));
+    }
+
+    public void recordCreated(Map<Integer, Integer> createdByValue) {
+        Update update = new Update();
+        for (Map.Entry<Integer, Integer> entry : createdByValue.entrySet()) {
+            update.inc(TOTAL_ITEMS + "." + entry.getKey(), entry.getValue());
+        }
+        increment(update);
+    }
+
+    public void recordDeleted(int value, boolean processed) {
+        increment(deleted(value, processed));
+    }
+
+    public void recordProcessed(int value) {
+        increment(new Update().inc(PROCESSED_ITEMS + "." + value, 1));
+    }
+
+    public void recordProcessed(Map<Integer, Integer> processedByValue) {
+        Update update = new Update();
+        for (Map.Entry<Integer, Integer> entry : processedByValue.entrySet()) {
+            update.inc(PROCESSED_ITEMS + "." + entry.getKey(), entry.getValue());
+        }
+        increment(update);
+    }
+
+    /**
+     * Overwrites the counters with the given report data, provided no write has bumped the version since the snapshot
+     * was read. Returns false, changing nothing, when another write got in first.
+     */
+    public boolean replace(long expectedVersion, Map<Integer, ReportDto.ReportItem> reportData) {
+        Document totalItems = new Document();
+        Document processedItems = new Document();
+        for (Map.Entry<Integer, ReportDto.ReportItem> entry : reportData.entrySet()) {
+            totalItems.put(String.valueOf(entry.getKey()), entry.getValue().getTotalItems());
+            processedItems.put(String.valueOf(entry.getKey()), entry.getValue().getProcessedItems());
+        }
+
+        // A counters document written before versions existed has no version field, which reads as version 0
+        Criteria version = where("_id").is(DOCUMENT_ID).and(VERSION);
+        Query query = Query.query(expectedVersion == 0 ? version.exists(false) : version.is(expectedVersion));
+        Update update = new Update().set(TOTAL_ITEMS, totalItems).set(PROCESSED_ITEMS, processedItems).inc(VERSION, 1);
+        try {
+            UpdateResult result = mongoTemplate.upsert(query, update, COLLECTION);
+            return result.getMatchedCount() == 1 || result.getUpsertedId() != null;
+        } catch (DuplicateKeyException e) {
+            // The document was missing when read but has been created since, so the upsert clashed with it
+            return false;
+        }
+    }
+
+    public Map<Integer, ReportDto.ReportItem> snapshot() {
+        return versionedSnapshot().reportData();
+    }
+
+    public Snapshot versionedSnapshot() {
+        Document counters = mongoTemplate.findById(DOCUMENT_ID, Document.class, COLLECTION);
+        if (counters == null) {
+            return new Snapshot(0, new HashMap<>());
+        }
+        Number version = counters.get(VERSION, Number.class);
+        return new Snapshot(version == null ? 0 : version.longValue(), reportData(counters));
+    }
+
+    // Reads the report data out of the counters document
+    static Map<Integer, ReportDto.ReportItem> reportData(Document counters) {
+        Map<Integer, ReportDto.ReportItem> reportData = new HashMap<>();
+
+        Document totalItems = counters.get(TOTAL_ITEMS, new Document());
+        Document processedItems = counters.get(PROCESSED_ITEMS, new Document());
+        for (Map.Entry<String, Object> entry : totalItems.entrySet()) {
+            int total = ((Number) entry.getValue()).intValue();
+            // Values whose items have all been deleted are left out, like they are in the other report modes
+            if (total <= 0) {
+                continue;
+            }
+            ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+            reportItem.setTotalItems(total);
+            Object processed = processedItems.get(entry.getKey());
+            reportItem.setProcessedItems(processed == null ? 0 : ((Number) processed).intValue());
+            reportData.put(Integer.valueOf(entry.getKey()), reportItem);
+        }
+        return reportData;
+    }
+
+    private void increment(Update update) {
+        if (!isEnabled()) {
+            return;
+        }
+        mongoTemplate.upsert(counters(), versioned(update), COLLECTION);
+    }
+
+    // The updates and the upsert target shared with ReactiveReportCounterStore, so both stores write the same document
+    static Update created(int value) {
+        return new Update().inc(TOTAL_ITEMS + "." + value, 1);
+    }
+
+    static Update deleted(int value, boolean processed) {
+        Update update = new Update().inc(TOTAL_ITEMS + "." + value, -1);
+        if (processed) {
+            update.inc(PROCESSED_ITEMS + "." + value, -1);
+        }
+        return update;
+    }
+
+    static Query counters() {
+        return Query.query(where("_id").is(DOCUMENT_ID));
+    }
+
+    // Every change bumps the version, which replace() checks before overwriting the counters
+    static Update versioned(Update update) {
+        return update.inc(VERSION, 1);
+    }
+
+    // The report data together with the version of the counters document it was read from
+    public record Snapshot(long version, Map<Integer, ReportDto.ReportItem> reportData) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.workitem.service;
+
+import com.example.workitem.dtos.ReportDto;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Feeds the aggregated report rows to JasperReports in value order. Fields are read straight from the report items
+ * instead of through JRBeanCollectionDataSource's reflection over intermediate ReportExport beans.
+ */
+public class ReportDataSource implements JRDataSource {
+
+    private final Iterator<Map.Entry<Integer, ReportDto.ReportItem>> rows;
+
+    private Map.Entry<Integer, ReportDto.ReportItem> current;
+
+    public ReportDataSource(Map<Integer, ReportDto.ReportItem> reportData) {
+        this.rows = new TreeMap<>(reportData).entrySet().iterator();
+    }
+
+    @Override
+    public boolean next() {
+        if (!rows.hasNext()) {
+            return false;
+        }
+        current = rows.next();
+        return true;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        return switch (field.getName()) {
+            case "value" -> current.getKey();
+            case "totalItems" -> current.getValue().getTotalItems();
+            case "processedItems" -> current.getValue().getProcessedItems();
+            default -> throw new JRException("Unknown report field: " + field.getName());
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.workitem.service;
+
+import java.util.Locale;
+
+public enum ReportFormat {
+    JSON("application/json", "report.json"),
+    PDF("application/pdf", "report.pdf");
+
+    private final String contentType;
+    private final String fileName;
+
+    ReportFormat(String contentType, String fileName) {
+        this.contentType = contentType;
+        this.fileName = fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    // Case-insensitive lookup, returns null for an unknown format
+    public static ReportFormat fromName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.workitem.service;
+
+public class ReportJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private final String id;
+    private final ReportFormat format;
+    private volatile Status status = Status.QUEUED;
+    private volatile byte[] report;
+    private volatile String etag;
+    private volatile String error;
+    private volatile long finishedAtMillis;
+
+    public ReportJob(String id, ReportFormat format) {
+        this.id = id;
+        this.format = format;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ReportFormat getFormat() {
+        return format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public byte[] getReport() {
+        return report;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getFinishedAtMillis() {
+        return finishedAtMillis;
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    void start() {
+        status = Status.RUNNING;
+    }
+
+    void complete(byte[] report, String etag) {
+        this.report = report;
+        this.etag = etag;
+        this.finishedAtMillis = System.currentTimeMillis();
+        // Written last so a poller that sees DONE also sees the report
+        this.status = Status.DONE;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.finishedAtMillis = System.currentTimeMillis();
+        this.status = Status.FAILED;
+    }
+}
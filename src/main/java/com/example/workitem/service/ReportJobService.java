@@ -0,0 +1,140 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ReportProperties;
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.exceptions.ReportJobRejectedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates reports in the background on a small bounded pool, so report requests cannot tie up the servlet threads
+ * that serve the rest of the API. A request for a format that is already queued or running against the same data
+ * version joins that job instead of starting another one.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    private final WorkItemService workItemService;
+    private final ReportArtifactCache reportArtifactCache;
+    private final ObjectMapper objectMapper;
+    private final ReportProperties reportProperties;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    // Queued and running jobs by format and data version, guarded by this
+    private final Map<String, ReportJob> inFlight = new HashMap<>();
+
+    @Autowired
+    public ReportJobService(WorkItemService workItemService, ReportArtifactCache reportArtifactCache,
+                            ObjectMapper objectMapper, ReportProperties reportProperties) {
+        this.workItemService = workItemService;
+        this.reportArtifactCache = reportArtifactCache;
+        this.objectMapper = objectMapper;
+        this.reportProperties = reportProperties;
+
+        ReportProperties.Jobs jobProperties = reportProperties.getJobs();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(jobProperties.getMaxConcurrent(), jobProperties.getMaxConcurrent(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(jobProperties.getQueueCapacity()),
+                runnable -> new Thread(runnable, "report-job-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public synchronized ReportJob submit(ReportFormat format) {
+        String dedupeKey = format + ":" + reportArtifactCache.currentVersion();
+        ReportJob existing = inFlight.get(dedupeKey);
+        if (existing != null) {
+            return existing;
+        }
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), format);
+        try {
+            executor.execute(() -> run(job, dedupeKey));
+        } catch (RejectedExecutionException e) {
+            throw new ReportJobRejectedException("Too many report jobs, try again later");
+        }
+        jobs.put(job.getId(), job);
+        inFlight.put(dedupeKey, job);
+        logger.info("Report job {} queued for format {}", job.getId(), format);
+        return job;
+    }
+
+    public ReportJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    private void run(ReportJob job, String dedupeKey) {
+        job.start();
+        try {
+            render(job);
+            logger.info("Report job {} done", job.getId());
+        } catch (Exception e) {
+            logger.error("Report job {} failed", job.getId(), e);
+            job.fail(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+        } finally {
+            synchronized (this) {
+                inFlight.remove(dedupeKey, job);
+            }
+        }
+    }
+
+    // Reuses the artifact cache of the synchronous endpoints, so a job and a direct download share one generation
+    private void render(ReportJob job) throws Exception {
+        switch (job.getFormat()) {
+            case PDF -> {
+                ReportArtifactCache.ReportArtifact<byte[]> pdfReport =
+                        reportArtifactCache.get(ReportArtifactCache.PDF_REPORT_KEY);
+                if (pdfReport == null) {
+                    long version = reportArtifactCache.currentVersion();
+                    FilledPdfReport filledReport = workItemService.fillPdfReport();
+                    ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+                    filledReport.exportTo(pdf);
+                    pdfReport = reportArtifactCache.put(ReportArtifactCache.PDF_REPORT_KEY, version, pdf.toByteArray(),
+                            filledReport.getEtag());
+                }
+                job.complete(pdfReport.getBody(), pdfReport.getEtag());
+            }
+            case JSON -> {
+                ReportArtifactCache.ReportArtifact<ReportDto> report =
+                        reportArtifactCache.get(ReportArtifactCache.REPORT_KEY);
+                if (report == null) {
+                    long version = reportArtifactCache.currentVersion();
+                    ReportDto reportDto = workItemService.generateReport();
+                    report = reportArtifactCache.put(ReportArtifactCache.REPORT_KEY, version, reportDto,
+                            ReportArtifactCache.etag(reportDto.getReportData()));
+                }
+                job.complete(objectMapper.writeValueAsBytes(report.getBody()), report.getEtag());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${workitem.report.jobs.cleanup-interval-ms:60000}")
+    public void evictFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - reportProperties.getJobs().getRetentionMs();
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAtMillis() < cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
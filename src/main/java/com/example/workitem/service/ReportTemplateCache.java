@@ -0,0 +1,108 @@
+package com.example.workitem.service;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Holds the compiled PDF report template. A report3.jasper precompiled at build time is loaded as is; otherwise
+ * report3.jrxml is compiled once and compiled again only when its last-modified time changes.
+ */
+@Component
+public class ReportTemplateCache {
+
+    static final String TEMPLATE_LOCATION = "classpath:report3.jrxml";
+    static final String COMPILED_TEMPLATE_LOCATION = "classpath:report3.jasper";
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportTemplateCache.class);
+
+    private final ResourceLoader resourceLoader;
+
+    private volatile CompiledTemplate compiledTemplate;
+
+    @Autowired
+    public ReportTemplateCache(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    // Compiles the template before the first PDF request instead of during it
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            getReport();
+        } catch (JRException | FileNotFoundException e) {
+            logger.warn("Could not compile the report template at startup, retrying on first use", e);
+        }
+    }
+
+    public JasperReport getReport() throws JRException, FileNotFoundException {
+        Resource precompiled = resourceLoader.getResource(COMPILED_TEMPLATE_LOCATION);
+        Resource template = precompiled.exists() ? precompiled : resourceLoader.getResource(TEMPLATE_LOCATION);
+        if (!template.exists()) {
+            throw new FileNotFoundException("Report template " + TEMPLATE_LOCATION + " not found");
+        }
+
+        long lastModified = lastModified(template);
+        CompiledTemplate current = compiledTemplate;
+        if (current != null && current.lastModified == lastModified) {
+            return current.report;
+        }
+
+        synchronized (this) {
+            current = compiledTemplate;
+            if (current == null || current.lastModified != lastModified) {
+                current = new CompiledTemplate(load(template, template == precompiled), lastModified);
+                compiledTemplate = current;
+            }
+        }
+        return current.report;
+    }
+
+    private JasperReport load(Resource template, boolean precompiled) throws JRException, FileNotFoundException {
+        long start = System.nanoTime();
+        try (InputStream inputStream = template.getInputStream()) {
+            JasperReport report = precompiled
+                    ? (JasperReport) JRLoader.loadObject(inputStream)
+                    : JasperCompileManager.compileReport(inputStream);
+            logger.info("Report template {} {} in {} ms", template.getFilename(), precompiled ? "loaded" : "compiled",
+                    (System.nanoTime() - start) / 1_000_000);
+            return report;
+        } catch (IOException e) {
+            throw new FileNotFoundException("Report template " + template.getDescription() + " could not be read");
+        }
+    }
+
+    private long lastModified(Resource template) {
+        try {
+            return template.lastModified();
+        } catch (IOException e) {
+            // Resources without a timestamp are compiled once and never reloaded
+            return 0L;
+        }
+    }
+
+    private static final class CompiledTemplate {
+
+        private final JasperReport report;
+
+        private final long lastModified;
+
+        private CompiledTemplate(JasperReport report, long lastModified) {
+            this.report = report;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.workitem.service;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+
+/**
+ * Compiles a .jrxml template to a .jasper file. Used by the precompileReports Gradle task so the application can
+ * load the compiled template instead of compiling it at runtime.
+ */
+public final class ReportTemplateCompiler {
+
+    private ReportTemplateCompiler() {
+    }
+
+    public static void main(String[] args) throws JRException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: ReportTemplateCompiler <source.jrxml> <target.jasper>");
+        }
+        JasperCompileManager.compileReportToFile(args[0], args[1]);
+    }
+}
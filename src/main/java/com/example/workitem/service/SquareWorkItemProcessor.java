@@ -0,0 +1,62 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ProcessingProperties;
+import com.example.workitem.model.WorkItem;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The original processing step: value squared after a delay of value * delay-per-value-ms
+@Component
+public class SquareWorkItemProcessor implements WorkItemProcessor {
+
+    public static final String TYPE = "square";
+
+    private final ProcessingProperties processingProperties;
+
+    // Only fires timers, so a single thread can keep thousands of delayed work items in flight
+    private final ScheduledExecutorService delayScheduler;
+
+    @Autowired
+    public SquareWorkItemProcessor(ProcessingProperties processingProperties) {
+        this.processingProperties = processingProperties;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.delayScheduler = Executors.newScheduledThreadPool(processingProperties.getSchedulerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "work-item-delay-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public CompletionStage<Integer> process(WorkItem workItem) {
+        int value = workItem.getValue();
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        try {
+            // A timer instead of Thread.sleep, so a waiting work item holds no thread
+            delayScheduler.schedule(() -> result.complete(value * value),
+                    value * processingProperties.getDelayPerValueMs(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delayScheduler.shutdown();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.workitem.service;
+
+import com.example.workitem.model.WorkItem;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Computes the result of a work item. Implementations are Spring beans, picked per message by the AMQP type property
+ * through {@link WorkItemProcessors}.
+ * <p>
+ * {@link #process} must not block: slow work is scheduled and the returned stage completes later, so the consumer
+ * thread is free to take the next message while this one is in flight.
+ * <p>
+ * Results are memoized by {@link ProcessingResultCache} under {@link #cacheKey}. A processor whose result depends on
+ * anything besides that key, or that has side effects, must return false from {@link #isPure}.
+ */
+public interface WorkItemProcessor {
+
+    // Message type handled by this processor
+    String getType();
+
+    CompletionStage<Integer> process(WorkItem workItem);
+
+    // Whether the same cache key always gives the same result, so a cached result can be reused
+    default boolean isPure() {
+        return true;
+    }
+
+    // The inputs the result depends on
+    default String cacheKey(WorkItem workItem) {
+        return Integer.toString(workItem.getValue());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ProcessingProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Registry of every WorkItemProcessor bean, keyed by the message type it handles
+@Component
+public class WorkItemProcessors {
+
+    private final Map<String, WorkItemProcessor> processors = new HashMap<>();
+    private final ProcessingProperties processingProperties;
+
+    @Autowired
+    public WorkItemProcessors(List<WorkItemProcessor> processors, ProcessingProperties processingProperties) {
+        for (WorkItemProcessor processor : processors) {
+            WorkItemProcessor existing = this.processors.putIfAbsent(processor.getType(), processor);
+            if (existing != null) {
+                throw new IllegalStateException("Processors " + existing.getClass().getName() + " and "
+                        + processor.getClass().getName() + " both handle message type " + processor.getType());
+            }
+        }
+        this.processingProperties = processingProperties;
+    }
+
+    // Returns the processor for the message type, the default processor when type is empty, or null when none matches
+    public WorkItemProcessor forType(String type) {
+        return processors.get(type == null || type.isBlank() ? processingProperties.getDefaultType() : type);
+    }
+}
@@ -6,14 +6,23 @@ import com.example.workitem.model.WorkItem;
 import net.sf.jasperreports.engine.JRException;
 
 import java.io.FileNotFoundException;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface WorkItemService {
     List<WorkItem> getAllWorkItems();
+    List<WorkItem> getWorkItemsPage(String afterId, int limit, Boolean processed, Integer value);
+    Stream<WorkItem> streamWorkItems(Boolean processed, Integer value);
     String createWorkItem(int value);
+    List<String> createWorkItems(List<Integer> values);
     WorkItem getWorkItem(String id);
+    List<WorkItem> getWorkItems(Collection<String> ids);
     void deleteWorkItem(String id);
     void saveWorkItem(WorkItem workItem);
+    boolean markProcessed(WorkItem workItem, int result);
+    void markAllProcessed(List<WorkItem> workItems);
     ReportDto generateReport();
     byte[] generatePdfReport() throws FileNotFoundException, JRException, EmptyReportDataException;
+    FilledPdfReport fillPdfReport() throws EmptyReportDataException;
 }
\ No newline at end of file
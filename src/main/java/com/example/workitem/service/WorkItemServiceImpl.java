@@ -1,5 +1,7 @@
 package com.example.workitem.service;
 
+import com.example.workitem.config.OutboxProperties;
+import com.example.workitem.config.ReportProperties;
 import com.example.workitem.dtos.ReportDto;
 import com.example.workitem.dtos.ReportExport;
 import com.example.workitem.exceptions.EmptyReportDataException;
@@ -7,73 +9,220 @@ import com.example.workitem.exceptions.ReportGenerationException;
 import com.example.workitem.messaging.WorkItemProducer;
 import com.example.workitem.model.WorkItem;
 import com.example.workitem.repositories.WorkItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import net.sf.jasperreports.engine.*;
-import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
-import net.sf.jasperreports.engine.export.JRPdfExporter;
-import net.sf.jasperreports.export.SimpleExporterInput;
-import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.util.ResourceUtils;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 @Service
 public class WorkItemServiceImpl implements WorkItemService {
 
     private final WorkItemRepository workItemRepository;
     private final WorkItemProducer workItemProducer;
+    private final ReportProperties reportProperties;
+    private final ReportCounterStore reportCounterStore;
+    private final OutboxProperties outboxProperties;
+    private final ReportTemplateCache reportTemplateCache;
+    private final ReportArtifactCache reportArtifactCache;
+    private final Timer reportTimer;
+    private final Timer pdfFillTimer;
+    private final Timer pdfExportTimer;
 
     private static final Logger logger = LoggerFactory.getLogger(WorkItemServiceImpl.class);
 
+    // Filled report pages kept uncompressed in the heap while a PDF is being filled and exported
+    private static final int VIRTUALIZER_MAX_PAGES = 10;
+
     @Autowired
-    public WorkItemServiceImpl(WorkItemRepository workItemRepository, WorkItemProducer workItemProducer) {
+    public WorkItemServiceImpl(WorkItemRepository workItemRepository, WorkItemProducer workItemProducer,
+                               ReportProperties reportProperties, ReportCounterStore reportCounterStore,
+                               OutboxProperties outboxProperties, ReportTemplateCache reportTemplateCache,
+                               ReportArtifactCache reportArtifactCache, MeterRegistry meterRegistry) {
         this.workItemRepository = workItemRepository;
         this.workItemProducer = workItemProducer;
+        this.reportProperties = reportProperties;
+        this.reportCounterStore = reportCounterStore;
+        this.outboxProperties = outboxProperties;
+        this.reportTemplateCache = reportTemplateCache;
+        this.reportArtifactCache = reportArtifactCache;
+        this.reportTimer = Timer.builder("workitem.report.generate")
+                .description("Time to calculate the report data")
+                .tag("mode", reportProperties.getMode().name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+        this.pdfFillTimer = Timer.builder("workitem.report.pdf")
+                .description("Time to fill or export the PDF report")
+                .tag("phase", "fill")
+                .register(meterRegistry);
+        this.pdfExportTimer = Timer.builder("workitem.report.pdf")
+                .description("Time to fill or export the PDF report")
+                .tag("phase", "export")
+                .register(meterRegistry);
     }
 
     public List<WorkItem> getAllWorkItems() {
         return workItemRepository.findAll();
     }
 
+    @Override
+    public List<WorkItem> getWorkItemsPage(String afterId, int limit, Boolean processed, Integer value) {
+        return workItemRepository.findPage(afterId, limit, processed, value);
+    }
+
+    @Override
+    public Stream<WorkItem> streamWorkItems(Boolean processed, Integer value) {
+        return workItemRepository.streamAll(processed, value);
+    }
+
     @Override
     public String createWorkItem(int value) {
         WorkItem workItem = new WorkItem(value);
+        // With the outbox the message is left to OutboxRelay, which picks up every item saved as undispatched
+        workItem.setDispatched(!outboxProperties.isEnabled());
         workItemRepository.save(workItem);
-        workItemProducer.sendWorkItem(workItem.getId(), workItem.getValue());
+        reportCounterStore.recordCreated(workItem.getValue());
+        reportArtifactCache.invalidate();
+        if (!outboxProperties.isEnabled()) {
+            workItemProducer.sendWorkItem(workItem.getId(), workItem.getValue());
+        }
 
         logger.info("Work item created with ID: {}", workItem.getId());
 
         return workItem.getId();
     }
 
+    @Override
+    public List<String> createWorkItems(List<Integer> values) {
+        if (values.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<WorkItem> workItems = new ArrayList<>(values.size());
+        Map<Integer, Integer> createdByValue = new HashMap<>();
+        for (int value : values) {
+            WorkItem workItem = new WorkItem(value);
+            workItem.setDispatched(!outboxProperties.isEnabled());
+            workItems.add(workItem);
+            createdByValue.merge(value, 1, Integer::sum);
+        }
+
+        // One insert for the whole batch, the ids are assigned on the same instances in order
+        workItemRepository.insert(workItems);
+        reportCounterStore.recordCreated(createdByValue);
+        reportArtifactCache.invalidate();
+
+        // Sends are not awaited one by one, the producer keeps them in flight up to its confirm window
+        List<String> ids = new ArrayList<>(workItems.size());
+        for (WorkItem workItem : workItems) {
+            if (!outboxProperties.isEnabled()) {
+                workItemProducer.sendWorkItem(workItem.getId(), workItem.getValue());
+            }
+            ids.add(workItem.getId());
+        }
+
+        logger.info("Created {} work items in one batch", ids.size());
 
+        return ids;
+    }
 
     @Override
     public WorkItem getWorkItem(String id) {
         return workItemRepository.findById(id).orElse(null);
     }
 
+    @Override
+    public List<WorkItem> getWorkItems(Collection<String> ids) {
+        // Resolved with a single $in query
+        return workItemRepository.findAllById(ids);
+    }
+
     @Override
     public void deleteWorkItem(String id) {
-        workItemRepository.deleteById(id);
+        if (!reportCounterStore.isEnabled()) {
+            workItemRepository.deleteById(id);
+        } else {
+            // Delete and read back in one round trip so the counters are decremented for the item that was actually removed
+            workItemRepository.removeById(id)
+                    .ifPresent(workItem -> reportCounterStore.recordDeleted(workItem.getValue(), workItem.isProcessed()));
+        }
+        reportArtifactCache.invalidate();
     }
 
     @Override
     public void saveWorkItem(WorkItem workItem) {
         workItemRepository.save(workItem);
+        reportArtifactCache.invalidate();
+    }
+
+    @Override
+    public boolean markProcessed(WorkItem workItem, int result) {
+        // Only processed and result are written, and only while the work item is unprocessed, so a redelivered
+        // message costs one no-op update and cannot bring back a work item deleted in the meantime
+        if (!workItemRepository.markProcessed(workItem.getId(), workItem.getValue(), result)) {
+            return false;
+        }
+        workItem.setProcessed(true);
+        workItem.setResult(result);
+        reportCounterStore.recordProcessed(workItem.getValue());
+        reportArtifactCache.invalidate();
+        return true;
+    }
+
+    @Override
+    public void markAllProcessed(List<WorkItem> workItems) {
+        if (workItems.isEmpty()) {
+            return;
+        }
+
+        List<WorkItem> modified = workItemRepository.markAllProcessed(workItems);
+        workItems.forEach(workItem -> workItem.setProcessed(true));
+
+        // Duplicates and items changed in the meantime were not written, so only the modified ones are counted
+        Map<Integer, Integer> processedByValue = new HashMap<>();
+        for (WorkItem workItem : modified) {
+            processedByValue.merge(workItem.getValue(), 1, Integer::sum);
+        }
+        if (!processedByValue.isEmpty()) {
+            reportCounterStore.recordProcessed(processedByValue);
+            reportArtifactCache.invalidate();
+        }
+
+        logger.info("Work item batch processed. Items: {}, modified: {}", workItems.size(), modified.size());
     }
 
     @Override
     public ReportDto generateReport() {
+        // Calculate the report data from the counters, inside MongoDB or from the full collection
+        long start = System.nanoTime();
+        Map<Integer, ReportDto.ReportItem> reportData = switch (reportProperties.getMode()) {
+            case IN_MEMORY -> countReportDataInMemory();
+            case COUNTERS -> reportCounterStore.snapshot();
+            case AGGREGATION -> workItemRepository.aggregateReportData();
+        };
+        reportTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        // Create the ReportDTO object
+        ReportDto reportDTO = new ReportDto();
+        reportDTO.setReportData(reportData);
+
+        return reportDTO;
+    }
+
+    private Map<Integer, ReportDto.ReportItem> countReportDataInMemory() {
         // Retrieve all work items from the database
         List<WorkItem> allWorkItems = workItemRepository.findAll();
 
@@ -98,14 +247,9 @@ public class WorkItemServiceImpl implements WorkItemService {
             logger.debug("Work item processed: {}", processed);
         }
 
-        // Create the ReportDTO object
-        ReportDto reportDTO = new ReportDto();
-        reportDTO.setReportData(reportData);
-
-        return reportDTO;
+        return reportData;
     }
 
-
     public List<ReportExport> getReportsForExport() {
         // Retrieve all work items from the database
         ReportDto reportDto = generateReport();
@@ -126,7 +270,6 @@ public class WorkItemServiceImpl implements WorkItemService {
             reportExport.setProcessedItems(processedItems);
 
             reportExports.add(reportExport);
-
         }
 
         return reportExports;
@@ -134,40 +277,47 @@ public class WorkItemServiceImpl implements WorkItemService {
 
     @Override
     public byte[] generatePdfReport() throws ReportGenerationException, EmptyReportDataException {
+        FilledPdfReport pdfReport = fillPdfReport();
+
+        // Export the filled report to PDF in memory
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        pdfReport.exportTo(outputStream);
+
+        logger.info("PDF report generated");
 
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public FilledPdfReport fillPdfReport() throws ReportGenerationException, EmptyReportDataException {
         logger.info("Generating PDF report");
+        long start = System.nanoTime();
         try {
-
-            List<WorkItem> allWorkItems = workItemRepository.findAll();
+            // Fetch the report data once, it decides emptiness and feeds the report
+            Map<Integer, ReportDto.ReportItem> reportData = generateReport().getReportData();
 
             // Check if report data is empty
-            if (allWorkItems.isEmpty()) {
+            if (reportData.isEmpty()) {
                 throw new EmptyReportDataException("No work items found for generating the report.");
             }
-            // Load the JasperReports template
-            File file = ResourceUtils.getFile("classpath:report3.jrxml");
-            JasperReport jasperReport = JasperCompileManager.compileReport(file.getAbsolutePath());
+            // Load the compiled JasperReports template
+            JasperReport jasperReport = reportTemplateCache.getReport();
 
-            // Fetch the report data
-            List<ReportExport> reportData = getReportsForExport();
-            // Create a JRDataSource using the report data
-            JRDataSource dataSource = new JRBeanCollectionDataSource(reportData);
+            // Create a JRDataSource directly over the report data
+            JRDataSource dataSource = new ReportDataSource(reportData);
 
-            // Compile the JasperPrint object
+            // Keep only a few filled pages in the heap, the rest are held gzipped until export
+            JRVirtualizer virtualizer = new JRGzipVirtualizer(VIRTUALIZER_MAX_PAGES);
+
+            // Fill the JasperPrint object
             Map<String, Object> parameters = new HashMap<>();
             parameters.put("createdBy", "promise bello");
+            parameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
             JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, parameters, dataSource);
+            virtualizer.setReadOnly(true);
 
-            // Export the JasperPrint to PDF
-            JRPdfExporter exporter = new JRPdfExporter();
-            exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputStream));
-            exporter.exportReport();
-
-            logger.info("PDF report generated");
-
-            return outputStream.toByteArray();
+            pdfFillTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new FilledPdfReport(jasperPrint, virtualizer, pdfExportTimer, ReportArtifactCache.pdfEtag(reportData));
         } catch (FileNotFoundException e) {
             logger.error("Failed to generate PDF report: JasperReports template file not found", e);
             throw new ReportGenerationException("Failed to generate PDF report: JasperReports template file not found.", e);
@@ -176,8 +326,4 @@ public class WorkItemServiceImpl implements WorkItemService {
             throw new ReportGenerationException("Failed to generate PDF report: JasperReports exception.", e);
         }
     }
-
-
-
-
 }
@@ -0,0 +1,99 @@
+package com.example.workitem.service;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.model.WorkItem;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * XLSX through POI's streaming SXSSF workbook. Only the last {@link #ROW_WINDOW} rows stay in memory, older rows are
+ * flushed to a compressed temp file that is deleted once the workbook has been written.
+ */
+public class XlsxExportWriter implements ExportWriter {
+
+    static final int ROW_WINDOW = 100;
+    static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    static final String WORK_ITEM_SHEET = "Work items";
+    static final String REPORT_SHEET = "Report";
+
+    private static final String[] WORK_ITEM_HEADER = {"id", "value", "processed", "result"};
+    private static final String[] REPORT_HEADER = {"value", "totalItems", "processedItems"};
+
+    @Override
+    public void writeWorkItems(Iterator<WorkItem> workItems, OutputStream outputStream) throws IOException {
+        SXSSFWorkbook workbook = newWorkbook();
+        try {
+            Sheet sheet = null;
+            int rowIndex = MAX_ROWS_PER_SHEET;
+            int sheetCount = 0;
+            while (workItems.hasNext()) {
+                // A sheet holds at most 1,048,576 rows including the header, larger exports continue on a new sheet
+                if (rowIndex == MAX_ROWS_PER_SHEET) {
+                    sheetCount++;
+                    sheet = createSheet(workbook, sheetCount == 1 ? WORK_ITEM_SHEET : WORK_ITEM_SHEET + " " + sheetCount,
+                            WORK_ITEM_HEADER);
+                    rowIndex = 1;
+                }
+                WorkItem workItem = workItems.next();
+                Row row = sheet.createRow(rowIndex++);
+                row.createCell(0).setCellValue(workItem.getId());
+                row.createCell(1).setCellValue(workItem.getValue());
+                row.createCell(2).setCellValue(workItem.isProcessed());
+                if (workItem.getResult() != null) {
+                    row.createCell(3).setCellValue(workItem.getResult());
+                }
+            }
+            if (sheet == null) {
+                createSheet(workbook, WORK_ITEM_SHEET, WORK_ITEM_HEADER);
+            }
+            workbook.write(outputStream);
+            outputStream.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    @Override
+    public void writeReport(Map<Integer, ReportDto.ReportItem> reportData, OutputStream outputStream) throws IOException {
+        SXSSFWorkbook workbook = newWorkbook();
+        try {
+            Sheet sheet = createSheet(workbook, REPORT_SHEET, REPORT_HEADER);
+            int rowIndex = 1;
+            for (Map.Entry<Integer, ReportDto.ReportItem> entry : new TreeMap<>(reportData).entrySet()) {
+                Row row = sheet.createRow(rowIndex++);
+                row.createCell(0).setCellValue(entry.getKey());
+                row.createCell(1).setCellValue(entry.getValue().getTotalItems());
+                row.createCell(2).setCellValue(entry.getValue().getProcessedItems());
+            }
+            workbook.write(outputStream);
+            outputStream.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private SXSSFWorkbook newWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    private Sheet createSheet(SXSSFWorkbook workbook, String name, String[] header) {
+        Sheet sheet = workbook.createSheet(name);
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < header.length; i++) {
+            headerRow.createCell(i).setCellValue(header[i]);
+        }
+        return sheet;
+    }
+}
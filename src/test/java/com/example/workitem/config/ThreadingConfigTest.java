@@ -0,0 +1,52 @@
+package com.example.workitem.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ThreadingConfigTest {
+
+    private ThreadingProperties threadingProperties;
+
+    private ThreadingConfig threadingConfig;
+
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    @BeforeEach
+    public void setup() {
+        threadingProperties = new ThreadingProperties();
+        threadingConfig = new ThreadingConfig(threadingProperties);
+        taskExecutor = mock(ThreadPoolTaskExecutor.class);
+    }
+
+    @Test
+    public void listenerTaskExecutor_PlatformMode_UsesThreadPool() {
+        // Act
+        Executor executor = threadingConfig.listenerTaskExecutor(taskExecutor);
+
+        // Assert
+        assertSame(taskExecutor, executor);
+    }
+
+    @Test
+    public void listenerTaskExecutor_VirtualMode_UsesVirtualThreadsWhenAvailable() {
+        // Arrange
+        threadingProperties.setMode(ThreadingProperties.Mode.VIRTUAL);
+
+        // Act
+        Executor executor = threadingConfig.listenerTaskExecutor(taskExecutor);
+
+        // Assert
+        if (VirtualThreads.isSupported()) {
+            assertTrue(executor instanceof SimpleAsyncTaskExecutor);
+        } else {
+            assertSame(taskExecutor, executor);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.workitem.controller;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.model.WorkItem;
+import com.example.workitem.service.ColumnarExportWriter;
+import com.example.workitem.service.WorkItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class ExportControllerTest {
+
+    private WorkItemService workItemService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        workItemService = mock(WorkItemService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ExportController(workItemService)).build();
+    }
+
+    @Test
+    public void exportWorkItems_WithFormatParam_ShouldStreamCsv() throws Exception {
+        // Arrange
+        WorkItem workItem = new WorkItem(5);
+        workItem.setId("a1");
+        AtomicBoolean cursorClosed = new AtomicBoolean();
+        when(workItemService.streamWorkItems(false, null))
+                .thenReturn(Stream.of(workItem).onClose(() -> cursorClosed.set(true)));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/work-items/export/items").param("format", "csv").param("processed", "false"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("work-items.csv")))
+                .andExpect(content().string("id,value,processed,result\r\na1,5,false,\r\n"));
+        // The cursor is closed once the export is written
+        assertTrue(cursorClosed.get());
+    }
+
+    @Test
+    public void exportReport_WithAcceptHeader_ShouldPickTheFormat() throws Exception {
+        // Arrange
+        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+        reportItem.setTotalItems(2);
+        ReportDto reportDto = new ReportDto();
+        reportDto.setReportData(Map.of(3, reportItem));
+        when(workItemService.generateReport()).thenReturn(reportDto);
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/work-items/export/report")
+                        .header(HttpHeaders.ACCEPT, "text/csv;q=0.5, " + ColumnarExportWriter.CONTENT_TYPE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, ColumnarExportWriter.CONTENT_TYPE))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("report.wicol")));
+    }
+
+    @Test
+    public void exportWorkItems_WithUnknownFormat_ShouldReturnBadRequest() throws Exception {
+        // Act and Assert
+        mockMvc.perform(get("/work-items/export/items").param("format", "parquet"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(workItemService);
+    }
+
+    @Test
+    public void exportWorkItems_WithUnsupportedAccept_ShouldReturnNotAcceptable() throws Exception {
+        // Act and Assert
+        mockMvc.perform(get("/work-items/export/items").header(HttpHeaders.ACCEPT, "application/pdf"))
+                .andExpect(status().isNotAcceptable());
+
+        verifyNoInteractions(workItemService);
+    }
+}
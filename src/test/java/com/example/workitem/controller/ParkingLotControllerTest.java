@@ -0,0 +1,56 @@
+package com.example.workitem.controller;
+
+import com.example.workitem.messaging.ParkingLotReplayer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class ParkingLotControllerTest {
+
+    private ParkingLotReplayer parkingLotReplayer;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        parkingLotReplayer = mock(ParkingLotReplayer.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ParkingLotController(parkingLotReplayer)).build();
+    }
+
+    @Test
+    public void getParkedCount_ShouldReturnQueueDepth() throws Exception {
+        // Arrange
+        when(parkingLotReplayer.getParkedCount()).thenReturn(12L);
+
+        // Act and Assert
+        mockMvc.perform(get("/admin/parking-lot"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parked").value(12));
+    }
+
+    @Test
+    public void replay_ShouldReplayUpToLimit() throws Exception {
+        // Arrange
+        when(parkingLotReplayer.replay(250)).thenReturn(40);
+
+        // Act and Assert
+        mockMvc.perform(post("/admin/parking-lot/replay").param("limit", "250"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.replayed").value(40));
+    }
+
+    @Test
+    public void replay_WithLimitOutOfRange_ShouldReturnBadRequest() throws Exception {
+        // Act and Assert
+        mockMvc.perform(post("/admin/parking-lot/replay").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(parkingLotReplayer);
+    }
+}
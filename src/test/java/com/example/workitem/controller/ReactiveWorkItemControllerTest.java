@@ -0,0 +1,130 @@
+package com.example.workitem.controller;
+
+import com.example.workitem.dtos.ReportExport;
+import com.example.workitem.exceptions.GlobalExceptionHandler;
+import com.example.workitem.model.WorkItem;
+import com.example.workitem.service.ReactiveWorkItemService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.Mockito.*;
+
+public class ReactiveWorkItemControllerTest {
+
+    private ReactiveWorkItemService reactiveWorkItemService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    public void setUp() {
+        reactiveWorkItemService = mock(ReactiveWorkItemService.class);
+        ReactiveWorkItemController controller = new ReactiveWorkItemController(reactiveWorkItemService,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        webTestClient = WebTestClient.bindToController(controller)
+                .controllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    public void createWorkItem_ValidValue_ReturnsCreatedId() {
+        // Arrange
+        when(reactiveWorkItemService.createWorkItem(5)).thenReturn(Mono.just("647a5efb406dc9099538d392"));
+
+        // Act and Assert
+        webTestClient.post().uri("/work-items")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"value\":5}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.id").isEqualTo("647a5efb406dc9099538d392");
+    }
+
+    @Test
+    public void createWorkItem_ValueTooLarge_ReturnsBadRequest() {
+        // Act and Assert
+        webTestClient.post().uri("/work-items")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"value\":11}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$[0]").isEqualTo("Value must be at most 10");
+        verify(reactiveWorkItemService, never()).createWorkItem(anyInt());
+    }
+
+    @Test
+    public void getWorkItem_Missing_ReturnsNotFound() {
+        // Arrange
+        when(reactiveWorkItemService.getWorkItem("1")).thenReturn(Mono.empty());
+
+        // Act and Assert
+        webTestClient.get().uri("/work-items/1")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody(String.class).isEqualTo("Work item not found");
+    }
+
+    @Test
+    public void deleteWorkItem_Processed_ReturnsBadRequestWithoutDeleting() {
+        // Arrange
+        WorkItem workItem = new WorkItem(3);
+        workItem.setProcessed(true);
+        when(reactiveWorkItemService.getWorkItem("1")).thenReturn(Mono.just(workItem));
+
+        // Act and Assert
+        webTestClient.delete().uri("/work-items/1")
+                .exchange()
+                .expectStatus().isBadRequest();
+        verify(reactiveWorkItemService, never()).deleteWorkItem(anyString());
+    }
+
+    @Test
+    public void getAllWorkItems_MorePages_SetsNextCursor() {
+        // Arrange: one work item more than the page asks for
+        WorkItem first = new WorkItem(1);
+        first.setId("647a5efb406dc9099538d392");
+        WorkItem second = new WorkItem(2);
+        second.setId("647a5efb406dc9099538d393");
+        when(reactiveWorkItemService.getWorkItemsPage(null, 2, null, null)).thenReturn(Flux.just(first, second));
+
+        // Act and Assert
+        webTestClient.get().uri("/work-items?limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(WorkItemController.NEXT_CURSOR_HEADER, WorkItemCursor.encode(first.getId()))
+                .expectBody().jsonPath("$.length()").isEqualTo(1);
+    }
+
+    @Test
+    public void getAllWorkItems_InvalidCursor_ReturnsBadRequest() {
+        // Act and Assert
+        webTestClient.get().uri("/work-items?cursor=not-a-cursor")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void streamReport_WritesOneRowPerLine() {
+        // Arrange
+        ReportExport first = new ReportExport(1);
+        first.setTotalItems(4);
+        ReportExport second = new ReportExport(2);
+        second.setTotalItems(6);
+        second.setProcessedItems(1);
+        when(reactiveWorkItemService.streamReport()).thenReturn(Flux.just(first, second));
+
+        // Act and Assert
+        webTestClient.get().uri("/work-items/report/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).isEqualTo(
+                        "{\"value\":1,\"totalItems\":4,\"processedItems\":0}\n" +
+                        "{\"value\":2,\"totalItems\":6,\"processedItems\":1}\n");
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.workitem.controller;
+
+import com.example.workitem.exceptions.ReportJobRejectedException;
+import com.example.workitem.service.ReportFormat;
+import com.example.workitem.service.ReportJob;
+import com.example.workitem.service.ReportJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class ReportJobControllerTest {
+
+    private ReportJobService reportJobService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        reportJobService = mock(ReportJobService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ReportJobController(reportJobService)).build();
+    }
+
+    @Test
+    public void createReportJob_ShouldReturnAcceptedWithLocation() throws Exception {
+        // Arrange
+        when(reportJobService.submit(ReportFormat.PDF)).thenReturn(new ReportJob("job-1", ReportFormat.PDF));
+
+        // Act and Assert
+        mockMvc.perform(post("/work-items/reports").param("format", "pdf"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/work-items/reports/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    public void createReportJob_WithUnknownFormat_ShouldReturnBadRequest() throws Exception {
+        // Act and Assert
+        mockMvc.perform(post("/work-items/reports").param("format", "docx"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(reportJobService);
+    }
+
+    @Test
+    public void createReportJob_WhenQueueIsFull_ShouldReturnServiceUnavailable() throws Exception {
+        // Arrange
+        when(reportJobService.submit(ReportFormat.PDF)).thenThrow(new ReportJobRejectedException("Too many report jobs"));
+
+        // Act and Assert
+        mockMvc.perform(post("/work-items/reports"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    public void getReportJob_WhenRunning_ShouldReturnStatus() throws Exception {
+        // Arrange
+        ReportJob job = new ReportJob("job-1", ReportFormat.PDF);
+        when(reportJobService.getJob("job-1")).thenReturn(job);
+
+        // Act and Assert
+        mockMvc.perform(get("/work-items/reports/job-1"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    public void getReportJob_WhenDone_ShouldReturnReport() throws Exception {
+        // Arrange
+        ReportJob job = mock(ReportJob.class);
+        when(job.getStatus()).thenReturn(ReportJob.Status.DONE);
+        when(job.getFormat()).thenReturn(ReportFormat.PDF);
+        when(job.getReport()).thenReturn("pdf".getBytes());
+        when(job.getEtag()).thenReturn("\"etag\"");
+        when(reportJobService.getJob("job-1")).thenReturn(job);
+
+        // Act and Assert
+        mockMvc.perform(get("/work-items/reports/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"etag\""))
+                .andExpect(content().bytes("pdf".getBytes()));
+    }
+
+    @Test
+    public void getReportJob_WithUnknownId_ShouldReturnNotFound() throws Exception {
+        // Act and Assert
+        mockMvc.perform(get("/work-items/reports/missing"))
+                .andExpect(status().isNotFound());
+    }
+}
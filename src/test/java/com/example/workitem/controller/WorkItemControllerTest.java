@@ -1,12 +1,19 @@
 package com.example.workitem.controller;
 
 
+import com.example.workitem.config.BatchProperties;
+import com.example.workitem.config.ReportProperties;
 import com.example.workitem.dtos.CreateWorkItemDto;
 import com.example.workitem.dtos.CreateWorkItemResponseDto;
 import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.exceptions.GlobalExceptionHandler;
 import com.example.workitem.exceptions.ReportGenerationException;
 import com.example.workitem.model.WorkItem;
+import com.example.workitem.service.FilledPdfReport;
+import com.example.workitem.service.ReportArtifactCache;
 import com.example.workitem.service.WorkItemService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,13 +36,16 @@ import org.springframework.validation.ObjectError;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
+import java.util.stream.Stream;
 
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -51,10 +61,17 @@ public class WorkItemControllerTest {
     @Mock
     private WorkItemService workItemService;
 
+    private BatchProperties batchProperties;
+
+    private ReportArtifactCache reportArtifactCache;
+
     @BeforeEach
     public void setUp() {
         workItemService = mock(WorkItemService.class);
-        workItemController = new WorkItemController(workItemService);
+        batchProperties = new BatchProperties();
+        reportArtifactCache = new ReportArtifactCache(new ReportProperties());
+        workItemController = new WorkItemController(workItemService, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), batchProperties, reportArtifactCache);
         mockMvc = MockMvcBuilders.standaloneSetup(workItemController).build();
     }
 
@@ -62,7 +79,7 @@ public class WorkItemControllerTest {
     void getAllWorkItems_ShouldReturnListOfWorkItems() throws Exception {
         // Arrange
         List<WorkItem> expectedWorkItems = List.of(new WorkItem(1), new WorkItem(2));
-        when(workItemService.getAllWorkItems()).thenReturn(expectedWorkItems);
+        when(workItemService.getWorkItemsPage(null, 101, null, null)).thenReturn(expectedWorkItems);
 
         // Act and Assert
         mockMvc.perform(get("/work-items")
@@ -71,9 +88,10 @@ public class WorkItemControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(expectedWorkItems.size())))
                 .andExpect(jsonPath("$[0].value").value(1))
-                .andExpect(jsonPath("$[1].value").value(2));
+                .andExpect(jsonPath("$[1].value").value(2))
+                .andExpect(header().doesNotExist(WorkItemController.NEXT_CURSOR_HEADER));
 
-        verify(workItemService, times(1)).getAllWorkItems();
+        verify(workItemService, times(1)).getWorkItemsPage(null, 101, null, null);
     }
 
 
@@ -81,7 +99,7 @@ public class WorkItemControllerTest {
     void getAllWorkItems_WithNoWorkItems_ShouldReturnEmptyList() throws Exception {
         // Arrange
         List<WorkItem> expectedWorkItems = Collections.emptyList();
-        when(workItemService.getAllWorkItems()).thenReturn(expectedWorkItems);
+        when(workItemService.getWorkItemsPage(null, 101, null, null)).thenReturn(expectedWorkItems);
 
         // Act and Assert
         mockMvc.perform(get("/work-items")
@@ -90,7 +108,73 @@ public class WorkItemControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(0)));
 
-        verify(workItemService, times(1)).getAllWorkItems();
+        verify(workItemService, times(1)).getWorkItemsPage(null, 101, null, null);
+    }
+
+    @Test
+    void getAllWorkItems_WithMoreWorkItems_ShouldReturnCursorForNextPage() throws Exception {
+        // Arrange
+        String lastId = "647a5efb406dc9099538d392";
+        WorkItem first = new WorkItem(1);
+        first.setId("647a5efb406dc9099538d391");
+        WorkItem second = new WorkItem(2);
+        second.setId(lastId);
+        WorkItem extra = new WorkItem(3);
+        extra.setId("647a5efb406dc9099538d393");
+        when(workItemService.getWorkItemsPage(null, 3, false, 2)).thenReturn(List.of(first, second, extra));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/work-items")
+                        .param("limit", "2")
+                        .param("processed", "false")
+                        .param("value", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andReturn();
+
+        // Assert: the cursor leads to the page after the last work item returned
+        String cursor = result.getResponse().getHeader(WorkItemController.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+        mockMvc.perform(get("/work-items").param("cursor", cursor).param("limit", "2"))
+                .andExpect(status().isOk());
+        verify(workItemService, times(1)).getWorkItemsPage(lastId, 3, null, null);
+    }
+
+    @Test
+    void getAllWorkItems_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        // Arrange
+        MockMvc mockMvcWithAdvice = MockMvcBuilders.standaloneSetup(workItemController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        // Act and Assert
+        mockMvcWithAdvice.perform(get("/work-items").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]").value("Cursor is not valid"));
+
+        verify(workItemService, never()).getWorkItemsPage(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void streamWorkItems_ShouldWriteOneWorkItemPerLine() throws Exception {
+        // Arrange
+        when(workItemService.streamWorkItems(true, null)).thenReturn(Stream.of(new WorkItem(1), new WorkItem(2)));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/work-items/stream")
+                        .param("processed", "true")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"value\":1"));
+        assertTrue(lines[1].contains("\"value\":2"));
     }
 
 
@@ -133,6 +217,57 @@ public class WorkItemControllerTest {
         verify(workItemService, never()).createWorkItem(createWorkItemDto.getValue());
     }
 
+    @Test
+    public void createWorkItems_WithJsonArray_ShouldReturnIdsInOrder() throws Exception {
+        // Arrange
+        when(workItemService.createWorkItems(List.of(5, 2))).thenReturn(List.of("a", "b"));
+
+        // Act and Assert
+        mockMvc.perform(post("/work-items/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"value\": 5}, {\"value\": 2}]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value("a"))
+                .andExpect(jsonPath("$[1].id").value("b"));
+
+        verify(workItemService, times(1)).createWorkItems(List.of(5, 2));
+    }
+
+    @Test
+    public void createWorkItems_WithInvalidNdjsonLines_ShouldReportThemPerItem() throws Exception {
+        // Arrange
+        when(workItemService.createWorkItems(List.of(4, 9))).thenReturn(List.of("a", "b"));
+
+        // Act and Assert
+        mockMvc.perform(post("/work-items/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"value\": 4}\n{\"value\": 15}\n{\"value\": \"x\"}\n{\"value\": 9}\n"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[0].id").value("a"))
+                .andExpect(jsonPath("$[1].errors[0]").value("Value must be at most 10"))
+                .andExpect(jsonPath("$[2].errors[0]").value("Value must be a valid number"))
+                .andExpect(jsonPath("$[3].index").value(3))
+                .andExpect(jsonPath("$[3].id").value("b"));
+
+        verify(workItemService, times(1)).createWorkItems(List.of(4, 9));
+    }
+
+    @Test
+    public void createWorkItems_WithOversizedBatch_ShouldReturnBadRequest() throws Exception {
+        // Arrange
+        batchProperties.setMaxSize(1);
+
+        // Act and Assert
+        mockMvc.perform(post("/work-items/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"value\": 5}, {\"value\": 2}]"))
+                .andExpect(status().isBadRequest());
+
+        verify(workItemService, never()).createWorkItems(anyList());
+    }
+
 
 
 
@@ -274,16 +409,85 @@ public class WorkItemControllerTest {
     }
 
 
-    // Test for downloadPdfReport method when PDF report is generated successfully
+    @Test
+    public void getReport_WithMatchingETag_ShouldReturnNotModifiedWithoutRegenerating() throws Exception {
+        // Arrange
+        ReportDto reportDto = new ReportDto();
+        reportDto.setReportData(new LinkedHashMap<>());
+        when(workItemService.generateReport()).thenReturn(reportDto);
+        String etag = mockMvc.perform(get("/work-items/report"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act and Assert
+        mockMvc.perform(get("/work-items/report").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        verify(workItemService, times(1)).generateReport();
+    }
+
+    @Test
+    public void downloadPdfReport_AfterDataChange_ShouldRegenerate() throws Exception {
+        // Arrange: the first download is streamed and cached, the next one carries the cached ETag
+        FilledPdfReport first = pdfReport("first".getBytes());
+        FilledPdfReport second = pdfReport("second".getBytes());
+        when(workItemService.fillPdfReport()).thenReturn(first, second);
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/work-items/report-pdf")).andReturn()))
+                .andExpect(status().isOk());
+        String etag = mockMvc.perform(asyncDispatch(mockMvc.perform(get("/work-items/report-pdf")).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("first".getBytes()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        mockMvc.perform(get("/work-items/report-pdf").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // Act
+        reportArtifactCache.invalidate();
+
+        // Assert
+        MvcResult result = mockMvc.perform(get("/work-items/report-pdf").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("second".getBytes()));
+        verify(workItemService, times(2)).fillPdfReport();
+    }
+
+    @Test
+    public void downloadPdfReport_WithUnchangedDataAfterCacheMiss_ShouldReturnNotModifiedWithoutExporting() throws Exception {
+        // Arrange: the cache is invalidated, but the refilled report has the same data and therefore the same ETag
+        FilledPdfReport first = pdfReport("same".getBytes());
+        FilledPdfReport second = pdfReport("same".getBytes());
+        when(workItemService.fillPdfReport()).thenReturn(first, second);
+        String etag = mockMvc.perform(asyncDispatch(mockMvc.perform(get("/work-items/report-pdf")).andReturn()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(ReportArtifactCache.etag("same".getBytes()), etag);
+        reportArtifactCache.invalidate();
+
+        // Act and Assert
+        mockMvc.perform(get("/work-items/report-pdf").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(second, never()).exportTo(any());
+        verify(second, times(1)).discard();
+    }
+
     @Test
     public void downloadPdfReport_WithSuccessfulReportGeneration_ShouldReturnPdfReport() throws Exception {
         // Arrange
         byte[] expectedPdfReport = "Sample PDF Report".getBytes();
-        when(workItemService.generatePdfReport()).thenReturn(expectedPdfReport);
+        FilledPdfReport pdfReport = pdfReport(expectedPdfReport);
+        when(workItemService.fillPdfReport()).thenReturn(pdfReport);
 
         // Act and Assert
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/work-items/report-pdf")
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders.get("/work-items/report-pdf")
                         .accept(MediaType.APPLICATION_PDF)) // Set the Accept header to specify PDF content
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_PDF))
                 .andReturn();
@@ -294,8 +498,11 @@ public class WorkItemControllerTest {
 
         assertTrue(contentDisposition.contains("filename=\"" + expectedFilename + "\""));
         assertArrayEquals(expectedPdfReport, response.getContentAsByteArray());
+        // Streamed without a length, so the servlet container sends it chunked
+        assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
 
-        verify(workItemService, times(1)).generatePdfReport();
+        verify(workItemService, times(1)).fillPdfReport();
+        verify(pdfReport, times(1)).exportTo(any());
     }
 
 
@@ -304,7 +511,7 @@ public class WorkItemControllerTest {
     @Test
     public void downloadPdfReport_WithReportGenerationException_ShouldReturnErrorResponse() throws Exception {
         // Arrange
-        when(workItemService.generatePdfReport()).thenThrow(ReportGenerationException.class);
+        when(workItemService.fillPdfReport()).thenThrow(ReportGenerationException.class);
 
         // Act and Assert
         mockMvc.perform(get("/work-items/report-pdf").accept(MediaType.APPLICATION_JSON))
@@ -312,6 +519,17 @@ public class WorkItemControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.message").value("Failed to generate PDF report"));
 
-        verify(workItemService, times(1)).generatePdfReport();
+        verify(workItemService, times(1)).fillPdfReport();
+    }
+
+    private FilledPdfReport pdfReport(byte[] pdf) {
+        FilledPdfReport pdfReport = mock(FilledPdfReport.class);
+        when(pdfReport.getEtag()).thenReturn(ReportArtifactCache.etag(pdf));
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(0);
+            outputStream.write(pdf);
+            return null;
+        }).when(pdfReport).exportTo(any());
+        return pdfReport;
     }
-}
\ No newline at end of file
+}
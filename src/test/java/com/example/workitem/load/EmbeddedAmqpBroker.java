@@ -0,0 +1,55 @@
+package com.example.workitem.load;
+
+import org.apache.qpid.server.SystemLauncher;
+import org.apache.qpid.server.model.SystemConfig;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory Qpid Broker-J speaking AMQP 0-9-1, standing in for RabbitMQ in the end-to-end load test. Queues, the
+ * default exchange, prefetch, manual acks and publisher confirms behave like RabbitMQ; the RabbitMQ-specific
+ * x-message-ttl and x-dead-letter-* queue arguments are not applied, so the retry topology is not exercised.
+ */
+class EmbeddedAmqpBroker implements AutoCloseable {
+
+    // Virtual host the broker serves; the application must connect to it by name
+    static final String VIRTUAL_HOST = "default";
+
+    private final SystemLauncher systemLauncher = new SystemLauncher();
+
+    private final int port;
+
+    EmbeddedAmqpBroker() throws Exception {
+        this.port = freePort();
+        Map<String, String> context = new HashMap<>();
+        context.put("qpid.amqp_port", String.valueOf(port));
+        context.put("qpid.work_dir", Files.createTempDirectory("qpid-load-test").toString());
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(SystemConfig.TYPE, "Memory");
+        attributes.put(SystemConfig.INITIAL_CONFIGURATION_LOCATION,
+                EmbeddedAmqpBroker.class.getResource("/qpid-load-config.json").toExternalForm());
+        attributes.put(SystemConfig.STARTUP_LOGGED_TO_SYSTEM_OUT, false);
+        attributes.put(SystemConfig.CONTEXT, context);
+        systemLauncher.startup(attributes);
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        systemLauncher.shutdown();
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
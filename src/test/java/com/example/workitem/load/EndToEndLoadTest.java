@@ -0,0 +1,281 @@
+package com.example.workitem.load;
+
+import com.example.workitem.WorkItemApplication;
+import com.example.workitem.model.WorkItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the whole application against an in-memory Qpid broker and an embedded mongod, creates work items through
+ * POST /work-items at a fixed rate and records three latencies in HDR histograms:
+ * <ul>
+ *     <li>create: the POST round trip, measured from when the request was due, so a stalled server also counts
+ *     the requests it held back</li>
+ *     <li>create-to-processed: from the create response until a 25 ms poll of MongoDB finds the work item processed.
+ *     This is the delay a client sees, so it includes the outbox poll interval and up to one poll of this test</li>
+ *     <li>report: GET /work-items/report with the report cache off, sampled while the load runs</li>
+ * </ul>
+ * Each histogram is written as a percentile distribution (.hgrm, milliseconds) to load.reportDir. The consumer side
+ * is reported from the application's own workitem.consume.queue.wait and workitem.consume.processing timers, which
+ * time every message without polling, and by the drain throughput: the work items the consumers processed, and so
+ * acked, per second from the first create until the last one was found processed, next to the thread mode.
+ * Run with ./gradlew loadTest --tests '*EndToEndLoadTest' -Pload.rate=200 -Pload.durationSeconds=60, and add
+ * -Pload.profile=reactive to measure the reactive stack instead, or -Pload.threads=virtual to run the listener consumers
+ * and HTTP requests on virtual threads.
+ */
+@Tag("load")
+public class EndToEndLoadTest {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private static final long PROCESSED_POLL_MS = 25;
+
+    private static final int PROCESSED_POLL_BATCH = 1000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    public void createProcessAndReport_AtConfiguredRate() throws Exception {
+        int rate = Integer.getInteger("load.rate", 100);
+        int durationSeconds = Integer.getInteger("load.durationSeconds", 30);
+        int reportRate = Integer.getInteger("load.reportRate", 2);
+        int drainSeconds = Integer.getInteger("load.drainSeconds", 120);
+        Path reportDir = Path.of(System.getProperty("load.reportDir", "build/reports/load"));
+        String profile = System.getProperty("load.profile", "");
+        String threads = System.getProperty("load.threads", "platform");
+
+        Histogram createLatency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Histogram createToProcessedLatency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Histogram reportLatency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        // Created work items waiting to be processed, with the time their create response arrived
+        Map<String, Long> pending = new ConcurrentHashMap<>();
+        AtomicInteger failures = new AtomicInteger();
+        // Work items found processed, and when the latest of them was found
+        AtomicInteger processed = new AtomicInteger();
+        AtomicLong lastProcessedNanos = new AtomicLong();
+
+        try (EmbeddedAmqpBroker broker = new EmbeddedAmqpBroker();
+             TransitionWalker.ReachedState<RunningMongodProcess> mongod = Mongod.instance().start(Version.Main.V6_0);
+             ConfigurableApplicationContext application = startApplication(broker, mongod.current().getServerAddress(), profile, threads)) {
+            URI baseUri = URI.create("http://localhost:" + application.getEnvironment().getProperty("local.server.port"));
+            MongoTemplate mongoTemplate = application.getBean(MongoTemplate.class);
+
+            ScheduledExecutorService background = Executors.newScheduledThreadPool(2);
+            background.scheduleWithFixedDelay(() -> pollProcessed(mongoTemplate, pending, createToProcessedLatency, processed, lastProcessedNanos),
+                    PROCESSED_POLL_MS, PROCESSED_POLL_MS, TimeUnit.MILLISECONDS);
+            background.scheduleAtFixedRate(() -> getReport(baseUri, reportLatency, failures),
+                    0, 1_000_000_000L / reportRate, TimeUnit.NANOSECONDS);
+
+            // Open loop: request i is due at start + i * interval, whether or not the earlier ones have answered
+            int total = rate * durationSeconds;
+            long intervalNanos = 1_000_000_000L / rate;
+            long start = System.nanoTime();
+            List<CompletableFuture<Void>> creates = new ArrayList<>(total);
+            for (int i = 0; i < total; i++) {
+                long due = start + i * intervalNanos;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                creates.add(createWorkItem(baseUri, i % 10 + 1, due, createLatency, pending, failures));
+            }
+            CompletableFuture.allOf(creates.toArray(new CompletableFuture[0])).get(drainSeconds, TimeUnit.SECONDS);
+            long lastCreate = System.nanoTime();
+            int processedAtLastCreate = processed.get();
+            double achievedRate = total / ((lastCreate - start) / 1_000_000_000.0);
+
+            long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainSeconds);
+            while (!pending.isEmpty() && System.nanoTime() < drainDeadline) {
+                Thread.sleep(PROCESSED_POLL_MS);
+            }
+            background.shutdownNow();
+            background.awaitTermination(10, TimeUnit.SECONDS);
+
+            System.out.printf("Offered %d creates/sec for %d s, achieved %.1f creates/sec (%s stack, %s threads)%n", rate,
+                    durationSeconds, achievedRate, profile.isEmpty() ? "servlet" : profile, threads);
+            reportDrain(threads, start, lastCreate, lastProcessedNanos.get(), processed.get(), processedAtLastCreate);
+            report(reportDir, "create", createLatency);
+            report(reportDir, "create-to-processed", createToProcessedLatency);
+            report(reportDir, "report", reportLatency);
+            reportTimers(application.getBean(MeterRegistry.class), "workitem.consume.queue.wait");
+            reportTimers(application.getBean(MeterRegistry.class), "workitem.consume.processing");
+
+            assertEquals(0, failures.get(), "Failed requests");
+            assertTrue(pending.isEmpty(), pending.size() + " work items not processed within " + drainSeconds + " s");
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(EmbeddedAmqpBroker broker, ServerAddress mongoAddress, String profile,
+                                                            String threads) {
+        return new SpringApplicationBuilder(WorkItemApplication.class)
+                .profiles(profile.isEmpty() ? new String[0] : new String[]{profile})
+                .properties(
+                        "server.port=0",
+                        "spring.rabbitmq.host=localhost",
+                        "spring.rabbitmq.port=" + broker.getPort(),
+                        "spring.rabbitmq.virtual-host=" + EmbeddedAmqpBroker.VIRTUAL_HOST,
+                        "spring.data.mongodb.host=" + mongoAddress.getHost().getHostAddress(),
+                        "spring.data.mongodb.port=" + mongoAddress.getPort(),
+                        "spring.data.mongodb.database=load-test",
+                        // Measure report generation, not the ETag cache
+                        "workitem.report.cache.enabled=false",
+                        "workitem.threads.mode=" + threads,
+                        // Client-side percentiles on the consumer timers, read back by reportTimers
+                        "management.metrics.distribution.percentiles.workitem.consume=0.5,0.99,0.999")
+                .run();
+    }
+
+    private CompletableFuture<Void> createWorkItem(URI baseUri, int value, long dueNanos, Histogram createLatency,
+                                                   Map<String, Long> pending, AtomicInteger failures) {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/work-items"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"value\":" + value + "}"))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenAccept(response -> {
+                    long now = System.nanoTime();
+                    record(createLatency, now - dueNanos);
+                    if (response.statusCode() != 201) {
+                        failures.incrementAndGet();
+                        return;
+                    }
+                    try {
+                        pending.put(objectMapper.readTree(response.body()).get("id").asText(), now);
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                    }
+                })
+                .exceptionally(failure -> {
+                    failures.incrementAndGet();
+                    return null;
+                });
+    }
+
+    private void pollProcessed(MongoTemplate mongoTemplate, Map<String, Long> pending, Histogram createToProcessedLatency,
+                               AtomicInteger processed, AtomicLong lastProcessedNanos) {
+        List<String> ids = pending.keySet().stream().limit(PROCESSED_POLL_BATCH).toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").in(ids).and("processed").is(true));
+        query.fields().include("_id");
+        long now = System.nanoTime();
+        for (WorkItem workItem : mongoTemplate.find(query, WorkItem.class)) {
+            Long createdAt = pending.remove(workItem.getId());
+            if (createdAt != null) {
+                record(createToProcessedLatency, now - createdAt);
+                processed.incrementAndGet();
+                lastProcessedNanos.set(now);
+            }
+        }
+    }
+
+    private void getReport(URI baseUri, Histogram reportLatency, AtomicInteger failures) {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/work-items/report")).GET().build();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            record(reportLatency, System.nanoTime() - start);
+            if (response.statusCode() != 200) {
+                failures.incrementAndGet();
+            }
+        } catch (IOException e) {
+            failures.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void record(Histogram histogram, long nanos) {
+        histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    // Writes the percentile distribution in milliseconds, the format read by the HdrHistogram plotter
+    private static void report(Path reportDir, String name, Histogram histogram) throws IOException {
+        Files.createDirectories(reportDir);
+        Path file = reportDir.resolve(name + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+        System.out.printf("%-20s count=%-8d p50=%8.1f ms  p99=%8.1f ms  p99.9=%8.1f ms  max=%8.1f ms  -> %s%n", name,
+                histogram.getTotalCount(), histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0, file);
+    }
+
+    /**
+     * Prints how fast the consumers acked work items over the whole run, and over the backlog left when the last create
+     * was answered. Measured here rather than from workitem.consume.processing, which batch mode records once per batch.
+     */
+    private static void reportDrain(String threads, long start, long lastCreate, long lastProcessed, int processed,
+                                    int processedAtLastCreate) {
+        if (processed == 0) {
+            System.out.printf("Drain (%s threads): no work items processed%n", threads);
+            return;
+        }
+        double seconds = (lastProcessed - start) / 1_000_000_000.0;
+        System.out.printf("Drain (%s threads): %d work items acked in %.1f s, %.1f acked/sec%n", threads, processed,
+                seconds, processed / seconds);
+        int backlog = processed - processedAtLastCreate;
+        if (backlog > 0 && lastProcessed > lastCreate) {
+            double backlogSeconds = (lastProcessed - lastCreate) / 1_000_000_000.0;
+            System.out.printf("Drain (%s threads): backlog of %d after the last create acked in %.1f s, %.1f acked/sec%n",
+                    threads, backlog, backlogSeconds, backlog / backlogSeconds);
+        }
+    }
+
+    // Prints the percentiles the application recorded itself, one line per tag combination
+    private static void reportTimers(MeterRegistry meterRegistry, String name) {
+        for (Timer timer : meterRegistry.find(name).timers()) {
+            StringBuilder line = new StringBuilder(name);
+            timer.getId().getTags().forEach(tag -> line.append(' ').append(tag.getKey()).append('=').append(tag.getValue()));
+            line.append(String.format(" count=%d", timer.count()));
+            for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                line.append(String.format("  p%s=%.1f ms", percentile.percentile() * 100,
+                        percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            line.append(String.format("  max=%.1f ms", timer.max(TimeUnit.MILLISECONDS)));
+            System.out.println(line);
+        }
+    }
+}
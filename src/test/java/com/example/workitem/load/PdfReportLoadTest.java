@@ -0,0 +1,81 @@
+package com.example.workitem.load;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.service.ReportDataSource;
+import com.example.workitem.service.ReportTemplateCache;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prints the PDF latency with a cold template cache (the template compiled for every report, as before) and with a
+ * warm one (compiled once, reused). Run with ./gradlew loadTest.
+ */
+@Tag("load")
+public class PdfReportLoadTest {
+
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void pdfLatency_ColdVersusWarmTemplate() throws Exception {
+        Map<Integer, ReportDto.ReportItem> reportData = reportData();
+
+        long coldNanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            render(new ReportTemplateCache(new DefaultResourceLoader()).getReport(), reportData);
+            coldNanos += System.nanoTime() - start;
+        }
+
+        ReportTemplateCache warmCache = new ReportTemplateCache(new DefaultResourceLoader());
+        warmCache.getReport();
+        long warmNanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            render(warmCache.getReport(), reportData);
+            warmNanos += System.nanoTime() - start;
+        }
+
+        double coldMs = coldNanos / 1_000_000.0 / ITERATIONS;
+        double warmMs = warmNanos / 1_000_000.0 / ITERATIONS;
+        System.out.printf("PDF report, cold template: %.1f ms/report%n", coldMs);
+        System.out.printf("PDF report, warm template: %.1f ms/report%n", warmMs);
+        assertTrue(warmMs < coldMs);
+    }
+
+    private byte[] render(JasperReport jasperReport, Map<Integer, ReportDto.ReportItem> reportData) throws Exception {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("createdBy", "load test");
+        JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, parameters, new ReportDataSource(reportData));
+
+        JRPdfExporter exporter = new JRPdfExporter();
+        exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputStream));
+        exporter.exportReport();
+        return outputStream.toByteArray();
+    }
+
+    private Map<Integer, ReportDto.ReportItem> reportData() {
+        Map<Integer, ReportDto.ReportItem> reportData = new HashMap<>();
+        for (int value = 1; value <= 10; value++) {
+            ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+            reportItem.setTotalItems(value * 100);
+            reportItem.setProcessedItems(value * 50);
+            reportData.put(value, reportItem);
+        }
+        return reportData;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.workitem.messaging;
+
+import com.example.workitem.config.ConsumerProperties;
+import com.example.workitem.config.RabbitMQProperties;
+import com.example.workitem.config.ThreadingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ConsumerConcurrencyScalerTest {
+
+    private AmqpAdmin amqpAdmin;
+
+    private SimpleMessageListenerContainer container;
+
+    private ConsumerProperties consumerProperties;
+
+    private ProcessingLatencyTracker processingLatencyTracker;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private ThreadingProperties threadingProperties;
+
+    private ConsumerConcurrencyScaler scaler;
+
+    @BeforeEach
+    public void setup() {
+        amqpAdmin = mock(AmqpAdmin.class);
+        container = mock(SimpleMessageListenerContainer.class);
+        when(container.isRunning()).thenReturn(true);
+        when(container.getQueueNames()).thenReturn(new String[]{"work-item-queue"});
+        RabbitListenerEndpointRegistry registry = mock(RabbitListenerEndpointRegistry.class);
+        when(registry.getListenerContainers()).thenReturn(List.<MessageListenerContainer>of(container));
+
+        RabbitMQProperties rabbitMQProperties = mock(RabbitMQProperties.class);
+        when(rabbitMQProperties.getMinConsumers()).thenReturn(2);
+        when(rabbitMQProperties.getMaxConsumers()).thenReturn(16);
+        when(rabbitMQProperties.getPrefetch()).thenReturn(250);
+
+        consumerProperties = new ConsumerProperties();
+        consumerProperties.getAutoscale().setEnabled(true);
+        consumerProperties.getAutoscale().setTargetDrainSeconds(30);
+        processingLatencyTracker = new ProcessingLatencyTracker(clock::get);
+        threadingProperties = spy(new ThreadingProperties());
+
+        scaler = new ConsumerConcurrencyScaler(amqpAdmin, registry, rabbitMQProperties, consumerProperties, processingLatencyTracker,
+                threadingProperties);
+    }
+
+    @Test
+    public void scale_LargeBacklog_DoublesConsumers() {
+        // Arrange: 100 messages acked in 5 s, so 100k messages would take 5000 s
+        queueDepth(100_000);
+        acked(100, 5);
+
+        // Act
+        scaler.scale();
+
+        // Assert
+        verify(container).setConcurrentConsumers(4);
+    }
+
+    @Test
+    public void scale_RepeatedBacklog_StopsAtMaximum() {
+        // Arrange
+        queueDepth(100_000);
+        acked(100, 5);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            scaler.scale();
+        }
+
+        // Assert
+        verify(container).setConcurrentConsumers(16);
+        verify(container, never()).setConcurrentConsumers(32);
+    }
+
+    @Test
+    public void scale_EmptyQueue_KeepsMinimum() {
+        // Arrange
+        queueDepth(0);
+
+        // Act
+        scaler.scale();
+
+        // Assert
+        verify(container, never()).setConcurrentConsumers(anyInt());
+    }
+
+    @Test
+    public void scale_Disabled_DoesNotQueryBroker() {
+        // Arrange
+        consumerProperties.getAutoscale().setEnabled(false);
+
+        // Act
+        scaler.scale();
+
+        // Assert
+        verifyNoInteractions(amqpAdmin);
+    }
+
+    @Test
+    public void scale_VirtualThreads_LeavesFixedConsumersAlone() {
+        // Arrange
+        doReturn(true).when(threadingProperties).usesVirtualThreads();
+
+        // Act
+        scaler.scale();
+
+        // Assert
+        verifyNoInteractions(amqpAdmin);
+        verify(container, never()).setConcurrentConsumers(anyInt());
+    }
+
+    @Test
+    public void scale_ManyMessagesInFlightPerConsumer_KeepsConsumers() {
+        // Arrange: 500 ms per message, but 2 consumers with 250 in flight each ack 1000 per second, so 10k drain in 10 s
+        queueDepth(10_000);
+        for (int i = 0; i < 5_000; i++) {
+            processingLatencyTracker.record(TimeUnit.MILLISECONDS.toNanos(500), 1);
+        }
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+
+        // Act
+        scaler.scale();
+
+        // Assert
+        verify(container, never()).setConcurrentConsumers(anyInt());
+    }
+
+    @Test
+    public void drain_ReportsAckRateAndAverageLatency() {
+        // Arrange
+        processingLatencyTracker.record(TimeUnit.MILLISECONDS.toNanos(300), 3);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+        // Act
+        ProcessingLatencyTracker.Sample sample = processingLatencyTracker.drain();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        ProcessingLatencyTracker.Sample idle = processingLatencyTracker.drain();
+
+        // Assert
+        assertEquals(1.5, sample.ackedPerSecond(), 0.001);
+        assertEquals(100, sample.averageMillis(), 0.001);
+        assertEquals(0, idle.ackedPerSecond());
+        assertEquals(100, idle.averageMillis(), 0.001);
+    }
+
+    @Test
+    public void desiredConsumers_DrainedBacklog_ShrinksByOne() {
+        assertEquals(7, scaler.desiredConsumers(10, 100, 8));
+        assertEquals(2, scaler.desiredConsumers(0, 100, 2));
+    }
+
+    @Test
+    public void desiredConsumers_NothingAcked_UsesPrefetch() {
+        assertEquals(4, scaler.desiredConsumers(1_000, 0, 2));
+        assertEquals(2, scaler.desiredConsumers(100, 0, 2));
+    }
+
+    // Records work items acked at 50 ms each over the given number of seconds
+    private void acked(int workItems, int seconds) {
+        processingLatencyTracker.record(TimeUnit.MILLISECONDS.toNanos(50) * workItems, workItems);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private void queueDepth(int depth) {
+        Properties properties = new Properties();
+        properties.put(RabbitAdmin.QUEUE_MESSAGE_COUNT, depth);
+        when(amqpAdmin.getQueueProperties("work-item-queue")).thenReturn(properties);
+    }
+}
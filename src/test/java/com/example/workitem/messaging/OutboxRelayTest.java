@@ -0,0 +1,96 @@
+package com.example.workitem.messaging;
+
+import com.example.workitem.config.OutboxProperties;
+import com.example.workitem.model.WorkItem;
+import com.example.workitem.repositories.WorkItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.*;
+
+public class OutboxRelayTest {
+
+    private WorkItemRepository workItemRepository;
+
+    private WorkItemProducer workItemProducer;
+
+    private OutboxProperties outboxProperties;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    public void setup() {
+        workItemRepository = mock(WorkItemRepository.class);
+        workItemProducer = mock(WorkItemProducer.class);
+        outboxProperties = new OutboxProperties();
+        outboxProperties.setBatchSize(2);
+        outboxProperties.setConfirmTimeoutMs(100);
+        outboxRelay = new OutboxRelay(workItemRepository, workItemProducer, outboxProperties);
+    }
+
+    @Test
+    public void relay_MarksConfirmedWorkItemsDispatched() {
+        // Arrange
+        when(workItemRepository.claimUndispatched(2, 60000)).thenReturn(List.of(workItem("1", 3)), List.of());
+        when(workItemProducer.sendWorkItem("1", 3)).thenReturn(CompletableFuture.completedFuture(null));
+
+        // Act
+        outboxRelay.relay();
+
+        // Assert
+        verify(workItemProducer).sendWorkItem("1", 3);
+        verify(workItemRepository).markDispatched(List.of("1"));
+    }
+
+    @Test
+    public void relay_KeepsUnconfirmedWorkItemsInOutbox() {
+        // Arrange
+        when(workItemRepository.claimUndispatched(2, 60000)).thenReturn(List.of(workItem("1", 3), workItem("2", 5)));
+        when(workItemProducer.sendWorkItem("1", 3)).thenReturn(CompletableFuture.completedFuture(null));
+        when(workItemProducer.sendWorkItem("2", 5)).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("nacked")));
+
+        // Act
+        outboxRelay.relay();
+
+        // Assert: a partial batch ends the round, the failed item is retried once its lease expires
+        verify(workItemRepository, times(1)).claimUndispatched(2, 60000);
+        verify(workItemRepository).markDispatched(List.of("1"));
+    }
+
+    @Test
+    public void relay_FullBatch_DrainsNextBatchInSameRound() {
+        // Arrange
+        when(workItemRepository.claimUndispatched(2, 60000))
+                .thenReturn(List.of(workItem("1", 1), workItem("2", 2)), List.of(workItem("3", 3)));
+        when(workItemProducer.sendWorkItem(anyString(), anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // Act
+        outboxRelay.relay();
+
+        // Assert
+        verify(workItemRepository, times(2)).claimUndispatched(2, 60000);
+        verify(workItemRepository).markDispatched(List.of("1", "2"));
+        verify(workItemRepository).markDispatched(List.of("3"));
+    }
+
+    @Test
+    public void relay_Disabled_DoesNothing() {
+        // Arrange
+        outboxProperties.setEnabled(false);
+
+        // Act
+        outboxRelay.relay();
+
+        // Assert
+        verifyNoInteractions(workItemRepository, workItemProducer);
+    }
+
+    private WorkItem workItem(String id, int value) {
+        WorkItem workItem = new WorkItem(value);
+        workItem.setId(id);
+        return workItem;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.workitem.messaging;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ParkingLotReplayerTest {
+
+    private RabbitTemplate rabbitTemplate;
+
+    private AmqpAdmin amqpAdmin;
+
+    private Channel channel;
+
+    private ParkingLotReplayer parkingLotReplayer;
+
+    @BeforeEach
+    public void setup() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        amqpAdmin = mock(AmqpAdmin.class);
+        channel = mock(Channel.class);
+        when(rabbitTemplate.execute(any())).thenAnswer(invocation -> {
+            ChannelCallback<?> callback = invocation.getArgument(0);
+            return callback.doInRabbit(channel);
+        });
+        parkingLotReplayer = new ParkingLotReplayer(rabbitTemplate, amqpAdmin);
+    }
+
+    @Test
+    public void replay_RepublishesThenAcksAfterConfirmWithRetriesReset() throws Exception {
+        // Arrange
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .type("square")
+                .headers(Map.of(WorkItemRetryHandler.RETRY_COUNT_HEADER, 3, WorkItemRetryHandler.LAST_ERROR_HEADER, "boom"))
+                .build();
+        byte[] body = "{\"id\":\"1\",\"value\":4}".getBytes();
+        when(channel.basicGet("work-item-queue.parking-lot", false))
+                .thenReturn(new GetResponse(new Envelope(7L, false, "work-item.dlx", "work-item-queue.parking-lot"), properties, body, 1))
+                .thenReturn(null);
+
+        // Act
+        int replayed = parkingLotReplayer.replay(100);
+
+        // Assert
+        assertEquals(1, replayed);
+        ArgumentCaptor<AMQP.BasicProperties> propertiesCaptor = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        var inOrder = inOrder(channel);
+        inOrder.verify(channel).confirmSelect();
+        inOrder.verify(channel).basicPublish(eq(""), eq("work-item-queue"), propertiesCaptor.capture(), eq(body));
+        inOrder.verify(channel).waitForConfirmsOrDie(anyLong());
+        inOrder.verify(channel).basicAck(7L, false);
+        assertEquals("square", propertiesCaptor.getValue().getType());
+        assertFalse(propertiesCaptor.getValue().getHeaders().containsKey(WorkItemRetryHandler.RETRY_COUNT_HEADER));
+        assertEquals("boom", propertiesCaptor.getValue().getHeaders().get(WorkItemRetryHandler.LAST_ERROR_HEADER));
+    }
+
+    @Test
+    public void replay_StopsAtLimit() throws Exception {
+        // Arrange
+        when(channel.basicGet("work-item-queue.parking-lot", false)).thenAnswer(invocation ->
+                new GetResponse(new Envelope(1L, false, "", ""), new AMQP.BasicProperties(), new byte[0], 10));
+
+        // Act
+        int replayed = parkingLotReplayer.replay(3);
+
+        // Assert
+        assertEquals(3, replayed);
+        verify(channel, times(3)).basicPublish(anyString(), anyString(), any(AMQP.BasicProperties.class), any(byte[].class));
+        verify(channel, times(3)).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void replay_LeavesMessageUnackedWhenNotConfirmed() throws Exception {
+        // Arrange
+        when(channel.basicGet("work-item-queue.parking-lot", false))
+                .thenReturn(new GetResponse(new Envelope(7L, false, "", ""), new AMQP.BasicProperties(), new byte[0], 1));
+        doThrow(new IOException("nack")).when(channel).waitForConfirmsOrDie(anyLong());
+
+        // Act and Assert
+        assertThrows(IOException.class, () -> parkingLotReplayer.replay(1));
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void getParkedCount_ReadsQueueDepth() {
+        // Arrange
+        when(amqpAdmin.getQueueInfo("work-item-queue.parking-lot"))
+                .thenReturn(new QueueInformation("work-item-queue.parking-lot", 12, 0));
+
+        // Act and Assert
+        assertEquals(12, parkingLotReplayer.getParkedCount());
+    }
+}
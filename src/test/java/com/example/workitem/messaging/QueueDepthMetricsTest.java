@@ -0,0 +1,42 @@
+package com.example.workitem.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class QueueDepthMetricsTest {
+
+    @Test
+    public void bindTo_ReportsDepthAndConsumersPerQueue() {
+        // Arrange
+        AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+        when(amqpAdmin.getQueueInfo("work-item-queue")).thenReturn(new QueueInformation("work-item-queue", 120, 4));
+        when(amqpAdmin.getQueueInfo("work-item-queue.parking-lot")).thenReturn(new QueueInformation("work-item-queue.parking-lot", 3, 0));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        // Act
+        new QueueDepthMetrics(amqpAdmin).bindTo(meterRegistry);
+
+        // Assert
+        assertEquals(120, meterRegistry.get("workitem.queue.depth").tag("queue", "work-item-queue").gauge().value());
+        assertEquals(4, meterRegistry.get("workitem.queue.consumers").tag("queue", "work-item-queue").gauge().value());
+        assertEquals(3, meterRegistry.get("workitem.queue.depth").tag("queue", "work-item-queue.parking-lot").gauge().value());
+    }
+
+    @Test
+    public void bindTo_MissingQueue_ReportsNaN() {
+        // Arrange
+        AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        // Act
+        new QueueDepthMetrics(amqpAdmin).bindTo(meterRegistry);
+
+        // Assert
+        assertTrue(Double.isNaN(meterRegistry.get("workitem.queue.depth").tag("queue", "work-item-queue").gauge().value()));
+    }
+}
@@ -1,23 +1,33 @@
 package com.example.workitem.messaging;
 
+import com.example.workitem.config.ConsumerProperties;
+import com.example.workitem.config.PublisherProperties;
 import com.example.workitem.config.RabbitMQProperties;
+import com.example.workitem.config.RetryProperties;
+import com.example.workitem.config.ThreadingProperties;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.lang.reflect.Field;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +41,21 @@ public class RabbitMQConfigTest {
     @Mock
     private ThreadPoolTaskExecutor taskExecutorMock;
 
+    @Mock
+    private RabbitMQProperties rabbitMQProperties;
+
+    @Spy
+    private ConsumerProperties consumerProperties = new ConsumerProperties();
+
+    @Spy
+    private PublisherProperties publisherProperties = new PublisherProperties();
+
+    @Spy
+    private RetryProperties retryProperties = new RetryProperties();
+
+    @Spy
+    private ThreadingProperties threadingProperties = new ThreadingProperties();
+
 
     @InjectMocks
     private RabbitMQConfig rabbitMQConfig;
@@ -41,13 +66,58 @@ public class RabbitMQConfigTest {
 
     @Test
     public void rabbitListenerContainerFactory_Configuration_Success() throws Exception {
+        // Arrange
+        when(rabbitMQProperties.getMinConsumers()).thenReturn(2);
+        when(rabbitMQProperties.getMaxConsumers()).thenReturn(16);
+        when(rabbitMQProperties.getPrefetch()).thenReturn(50);
+
         // Act
         SimpleRabbitListenerContainerFactory factory = rabbitMQConfig.rabbitListenerContainerFactory(connectionFactoryMock, taskExecutorMock);
 
         // Assert
         assertNotNull(factory);
         assertEquals(2, getFieldValue(factory, "concurrentConsumers"));
-        assertEquals(2, getFieldValue(factory, "maxConcurrentConsumers"));
+        assertEquals(16, getFieldValue(factory, "maxConcurrentConsumers"));
+        // Acked by the container once the listener's future completes
+        assertEquals(AcknowledgeMode.MANUAL, ReflectionTestUtils.getField(factory, "acknowledgeMode"));
+        // Rejected messages are dead-lettered to the parking lot rather than requeued
+        assertEquals(false, ReflectionTestUtils.getField(factory, "defaultRequeueRejected"));
+    }
+
+    @Test
+    public void rabbitListenerContainerFactory_VirtualThreads_RunsFixedVirtualConsumers() throws Exception {
+        // Arrange
+        doReturn(true).when(threadingProperties).usesVirtualThreads();
+        threadingProperties.setVirtualConsumers(100);
+        when(rabbitMQProperties.getMaxConsumers()).thenReturn(2);
+        when(rabbitMQProperties.getPrefetch()).thenReturn(250);
+
+        // Act
+        SimpleRabbitListenerContainerFactory factory = rabbitMQConfig.rabbitListenerContainerFactory(connectionFactoryMock, taskExecutorMock);
+
+        // Assert: 2 platform consumers could hold 500 unacked messages, the 100 virtual ones hold 5 each
+        assertEquals(100, getFieldValue(factory, "concurrentConsumers"));
+        assertEquals(100, getFieldValue(factory, "maxConcurrentConsumers"));
+        assertEquals(5, ReflectionTestUtils.getField(factory, "prefetchCount"));
+    }
+
+
+    @Test
+    public void batchRabbitListenerContainerFactory_Configuration_Success() throws Exception {
+        // Arrange
+        consumerProperties.getBatch().setSize(500);
+        when(rabbitMQProperties.getMinConsumers()).thenReturn(2);
+        when(rabbitMQProperties.getMaxConsumers()).thenReturn(2);
+        when(rabbitMQProperties.getPrefetch()).thenReturn(250);
+
+        // Act
+        SimpleRabbitListenerContainerFactory factory = rabbitMQConfig.batchRabbitListenerContainerFactory(connectionFactoryMock, taskExecutorMock);
+
+        // Assert
+        assertNotNull(factory);
+        assertEquals(true, getFieldValue(factory, "consumerBatchEnabled"));
+        assertEquals(500, getFieldValue(factory, "batchSize"));
+        assertEquals(false, ReflectionTestUtils.getField(factory, "defaultRequeueRejected"));
     }
 
 
@@ -60,7 +130,7 @@ public class RabbitMQConfigTest {
         // Assert
         assertNotNull(rabbitTemplate);
         assertEquals(connectionFactoryMock, rabbitTemplate.getConnectionFactory());
-        assertTrue(rabbitTemplate.getMessageConverter() instanceof Jackson2JsonMessageConverter);
+        assertTrue(rabbitTemplate.getMessageConverter() instanceof WorkItemMessageConverter);
     }
 
     @Test
@@ -75,7 +145,53 @@ public class RabbitMQConfigTest {
         // Assert
         assertNotNull(queue);
         assertEquals("work-item-queue", queue.getName());
+        assertEquals("work-item.dlx", queue.getArguments().get("x-dead-letter-exchange"));
+        assertEquals("work-item-queue.parking-lot", queue.getArguments().get("x-dead-letter-routing-key"));
+        verify(rabbitAdminMock).declareQueue(queue);
+    }
+
+    @Test
+    public void parkingLotQueue_BoundToDeadLetterExchange() {
+        // Arrange
+        RabbitAdmin rabbitAdminMock = mock(RabbitAdmin.class);
+
+        // Act
+        Queue queue = rabbitMQConfig.parkingLotQueue(rabbitAdminMock);
+
+        // Assert
+        assertEquals("work-item-queue.parking-lot", queue.getName());
+        verify(rabbitAdminMock).declareExchange(any(DirectExchange.class));
         verify(rabbitAdminMock).declareQueue(queue);
+        ArgumentCaptor<Binding> bindingCaptor = ArgumentCaptor.forClass(Binding.class);
+        verify(rabbitAdminMock).declareBinding(bindingCaptor.capture());
+        assertEquals("work-item.dlx", bindingCaptor.getValue().getExchange());
+        assertEquals("work-item-queue.parking-lot", bindingCaptor.getValue().getRoutingKey());
+    }
+
+    @Test
+    public void retryExchange_DeclaresOneDelayQueuePerRetryWithExponentialBackoff() {
+        // Arrange
+        RabbitAdmin rabbitAdminMock = mock(RabbitAdmin.class);
+        retryProperties.setMaxRetries(3);
+        retryProperties.setInitialIntervalMs(1000);
+        retryProperties.setMultiplier(2.0);
+
+        // Act
+        DirectExchange exchange = rabbitMQConfig.retryExchange(rabbitAdminMock);
+
+        // Assert
+        assertEquals("work-item.retry", exchange.getName());
+        ArgumentCaptor<Queue> queueCaptor = ArgumentCaptor.forClass(Queue.class);
+        verify(rabbitAdminMock, times(3)).declareQueue(queueCaptor.capture());
+        List<Queue> queues = queueCaptor.getAllValues();
+        assertEquals("work-item-queue.retry.1000ms", queues.get(0).getName());
+        assertEquals("work-item-queue.retry.2000ms", queues.get(1).getName());
+        assertEquals("work-item-queue.retry.4000ms", queues.get(2).getName());
+        // Expired messages go straight back to work-item-queue
+        assertEquals(4000, queues.get(2).getArguments().get("x-message-ttl"));
+        assertEquals("", queues.get(2).getArguments().get("x-dead-letter-exchange"));
+        assertEquals("work-item-queue", queues.get(2).getArguments().get("x-dead-letter-routing-key"));
+        verify(rabbitAdminMock, times(3)).declareBinding(any(Binding.class));
     }
 
     private Object getFieldValue(Object target, String fieldName) throws Exception {
@@ -0,0 +1,110 @@
+package com.example.workitem.messaging;
+
+import com.example.workitem.config.PublisherProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.OutboundMessage;
+import reactor.rabbitmq.OutboundMessageResult;
+import reactor.rabbitmq.SendOptions;
+import reactor.rabbitmq.Sender;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ReactiveWorkItemProducerTest {
+
+    private Sender sender;
+
+    private PublisherProperties publisherProperties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReactiveWorkItemProducer reactiveWorkItemProducer;
+
+    // Messages handed to the sender, one per attempt
+    private List<OutboundMessage> published;
+
+    @BeforeEach
+    public void setup() {
+        sender = mock(Sender.class);
+        publisherProperties = new PublisherProperties();
+        publisherProperties.setRetryBackoffMs(1);
+        meterRegistry = new SimpleMeterRegistry();
+        reactiveWorkItemProducer = new ReactiveWorkItemProducer(sender, publisherProperties, meterRegistry);
+        published = new ArrayList<>();
+    }
+
+    @Test
+    public void sendWorkItem_WithConfirms_PublishesBinaryMessageAndCompletesOnAck() {
+        // Arrange
+        confirmWith(true);
+
+        // Act and Assert
+        StepVerifier.create(reactiveWorkItemProducer.sendWorkItem("647a5efb406dc9099538d392", 7)).verifyComplete();
+        assertEquals(1, published.size());
+        OutboundMessage message = published.get(0);
+        assertEquals("work-item-queue", message.getRoutingKey());
+        assertEquals(WorkItemMessageConverter.CONTENT_TYPE, message.getProperties().getContentType());
+        assertNotNull(message.getProperties().getHeaders().get(RabbitMQConfig.PUBLISHED_AT_HEADER));
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(message.getProperties().getContentType());
+        assertEquals(new WorkItemMessage("647a5efb406dc9099538d392", 7),
+                new WorkItemMessageConverter().fromMessage(new Message(message.getBody(), messageProperties)));
+        assertEquals(1, meterRegistry.get("workitem.publish").tag("outcome", "confirmed").timer().count());
+    }
+
+    @Test
+    public void sendWorkItem_WithConfirms_RetriesNackedMessage() {
+        // Arrange
+        confirmWith(false, true);
+
+        // Act and Assert
+        StepVerifier.create(reactiveWorkItemProducer.sendWorkItem("647a5efb406dc9099538d392", 7)).verifyComplete();
+        assertEquals(2, published.size());
+    }
+
+    @Test
+    public void sendWorkItem_WithConfirms_FailsAfterMaxAttempts() {
+        // Arrange
+        publisherProperties.setMaxAttempts(2);
+        confirmWith(false, false);
+
+        // Act and Assert
+        StepVerifier.create(reactiveWorkItemProducer.sendWorkItem("647a5efb406dc9099538d392", 7)).verifyError();
+        assertEquals(2, published.size());
+        assertEquals(1, meterRegistry.get("workitem.publish").tag("outcome", "failed").timer().count());
+    }
+
+    @Test
+    public void sendWorkItem_WithoutConfirms_CompletesOnceSent() {
+        // Arrange
+        publisherProperties.setConfirms(false);
+        when(sender.send(any())).thenReturn(Mono.empty());
+
+        // Act and Assert
+        StepVerifier.create(reactiveWorkItemProducer.sendWorkItem("647a5efb406dc9099538d392", 7)).verifyComplete();
+        verify(sender, times(1)).send(any());
+        verify(sender, never()).sendWithPublishConfirms(any(), any(SendOptions.class));
+    }
+
+    // Answers each publish attempt with the next ack or nack
+    @SuppressWarnings("unchecked")
+    private void confirmWith(boolean... acks) {
+        int[] attempt = {0};
+        when(sender.sendWithPublishConfirms(any(), any(SendOptions.class))).thenAnswer(invocation ->
+                Flux.from((Publisher<OutboundMessage>) invocation.getArgument(0))
+                        .doOnNext(published::add)
+                        .map(message -> new OutboundMessageResult<>(message, acks[attempt[0]++], false)));
+    }
+}
@@ -1,23 +1,38 @@
 package com.example.workitem.messaging;
 
+import com.example.workitem.config.ProcessingProperties;
 import com.example.workitem.model.WorkItem;
+import com.example.workitem.service.ProcessingResultCache;
+import com.example.workitem.service.SquareWorkItemProcessor;
+import com.example.workitem.service.WorkItemProcessor;
+import com.example.workitem.service.WorkItemProcessors;
 import com.example.workitem.service.WorkItemService;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.MessageConverter;
-import org.springframework.amqp.support.converter.SimpleMessageConverter;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class WorkItemConsumerTest {
@@ -33,74 +48,337 @@ public class WorkItemConsumerTest {
     @Mock
     private MessageConverter messageConverter;
 
+    @Mock
+    private WorkItemRetryHandler workItemRetryHandler;
+
     @Mock
     private ObjectMapper objectMapper = new ObjectMapper();
 
+    private ProcessingProperties processingProperties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SquareWorkItemProcessor squareProcessor;
+
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        workItemConsumer = new WorkItemConsumer(workItemService, rabbitTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        processingProperties = new ProcessingProperties();
+        processingProperties.setDelayPerValueMs(0);
+        squareProcessor = new SquareWorkItemProcessor(processingProperties);
+        // The broker confirms every republished copy straight away
+        when(workItemRetryHandler.retryOrPark(any(Message.class), any(Throwable.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(workItemRetryHandler.park(any(Message.class), any(Throwable.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        workItemConsumer = new WorkItemConsumer(workItemService, rabbitTemplate, new ProcessingLatencyTracker(),
+                new WorkItemProcessors(List.of(squareProcessor), processingProperties),
+                new ProcessingResultCache(processingProperties), workItemRetryHandler, processingProperties,
+                meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        workItemConsumer.shutdown();
+        squareProcessor.shutdown();
     }
 
     @Test
-    public void onMessage_ValidMessage_ProcessesWorkItem() throws JsonProcessingException {
+    public void onMessage_ValidMessage_ProcessesWorkItem() {
         // Arrange
-        String messageString = "{\"id\":\"123\",\"value\":10}";
-        Message message = mock(Message.class);
+        Message message = binaryMessage("647a5efb406dc9099538d392", 10);
+        when(workItemService.markProcessed(any(WorkItem.class), anyInt())).thenReturn(true);
 
-        SimpleMessageConverter messageConverter = mock(SimpleMessageConverter.class);
-        when(rabbitTemplate.getMessageConverter()).thenReturn(messageConverter);
+        // Act
+        workItemConsumer.onMessage(message);
 
-        HashMap<String, Object> messageBody = new HashMap<>();
-        messageBody.put("id", messageString);
-        when(messageConverter.fromMessage(message)).thenReturn(messageBody);
+        // Assert: one conditional update, without reading the work item first
+        ArgumentCaptor<WorkItem> workItemCaptor = ArgumentCaptor.forClass(WorkItem.class);
+        verify(workItemService, times(1)).markProcessed(workItemCaptor.capture(), eq(100));
+        assertEquals("647a5efb406dc9099538d392", workItemCaptor.getValue().getId());
+        assertEquals(10, workItemCaptor.getValue().getValue());
+        verify(workItemService, never()).getWorkItem(anyString());
+        verify(workItemService, never()).saveWorkItem(any(WorkItem.class));
+    }
 
-        WorkItem receivedWorkItem = new WorkItem(10);
-        receivedWorkItem.setId("123");
-        when(objectMapper.readValue(messageString, WorkItem.class)).thenReturn(receivedWorkItem);
+    @Test
+    public void onMessage_ValidMessage_DoesNotProcessWorkItem() {
+        // Arrange
+        Message message = binaryMessage("647a5efb406dc9099538d392", 10);
 
-        WorkItem existingWorkItem = new WorkItem(10);
-        existingWorkItem.setId("123");
-        existingWorkItem.setProcessed(false);
-        when(workItemService.getWorkItem("123")).thenReturn(existingWorkItem);
+        // The work item is already processed (or has another value), so the conditional update matches nothing
+        when(workItemService.markProcessed(any(WorkItem.class), anyInt())).thenReturn(false);
 
         // Act
         workItemConsumer.onMessage(message);
 
         // Assert
-        verify(workItemService, times(1)).getWorkItem("123");
-        verify(workItemService, times(1)).saveWorkItem(any(WorkItem.class));
+        verify(workItemService, times(1)).markProcessed(any(WorkItem.class), eq(100));
+        verify(workItemService, never()).getWorkItem(anyString());
+        verify(workItemService, never()).saveWorkItem(any(WorkItem.class));
+    }
+
+    @Test
+    public void processWorkItems_BinaryAndJsonMessages_DecodeToTheSameWorkItems() {
+        // Arrange: a batch in the middle of a rollout, with messages from old and new producers
+        WorkItem binary = new WorkItem(2);
+        binary.setId("647a5efb406dc9099538d392");
+        WorkItem json = new WorkItem(3);
+        json.setId("647a5efb406dc9099538d393");
+        when(workItemService.getWorkItems(anyCollection())).thenReturn(List.of(binary, json));
+
+        // Act
+        workItemConsumer.processWorkItems(List.of(
+                binaryMessage("647a5efb406dc9099538d392", 2),
+                jsonMessage("{\"id\":\"647a5efb406dc9099538d393\",\"value\":3}")));
+
+        // Assert
+        ArgumentCaptor<List<WorkItem>> processedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(workItemService).markAllProcessed(processedCaptor.capture());
+        assertEquals(List.of(4, 9), processedCaptor.getValue().stream().map(WorkItem::getResult).toList());
+        verify(workItemRetryHandler, never()).park(any(Message.class), any(Throwable.class));
+    }
+
+    @Test
+    public void processWorkItem_DuplicateDeliveries_ProcessOnceAndWriteNothingElse() throws Exception {
+        // Arrange: the first delivery updates the work item, the redeliveries find it processed
+        AtomicBoolean processed = new AtomicBoolean();
+        when(workItemService.markProcessed(any(WorkItem.class), anyInt()))
+                .thenAnswer(invocation -> processed.compareAndSet(false, true));
+        WorkItemProcessor countingProcessor = mock(WorkItemProcessor.class, CALLS_REAL_METHODS);
+        doReturn(SquareWorkItemProcessor.TYPE).when(countingProcessor).getType();
+        doReturn(CompletableFuture.completedFuture(16)).when(countingProcessor).process(any(WorkItem.class));
+        workItemConsumer = new WorkItemConsumer(workItemService, rabbitTemplate, new ProcessingLatencyTracker(),
+                new WorkItemProcessors(List.of(countingProcessor), processingProperties),
+                new ProcessingResultCache(processingProperties), workItemRetryHandler, processingProperties,
+                meterRegistry);
+
+        // Act: the same message delivered three times, two of them concurrently
+        Message message = jsonMessage("{\"id\":\"1\",\"value\":4}");
+        CompletableFuture<Void> first = workItemConsumer.processWorkItem(message);
+        CompletableFuture<Void> second = workItemConsumer.processWorkItem(message);
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        workItemConsumer.processWorkItem(message).get(5, TimeUnit.SECONDS);
 
+        // Assert: one computation, one effective write and a no-op conditional update per duplicate
+        verify(countingProcessor, times(1)).process(any(WorkItem.class));
+        verify(workItemService, times(3)).markProcessed(any(WorkItem.class), eq(16));
+        verify(workItemService, never()).getWorkItem(anyString());
+        verify(workItemService, never()).saveWorkItem(any(WorkItem.class));
+        assertTrue(processed.get());
     }
 
     @Test
-    public void onMessage_ValidMessage_DoesNotProcessWorkItem() throws JsonProcessingException {
+    public void processWorkItems_Batch_ProcessesMatchingWorkItemsWithOneBulkWrite() {
         // Arrange
-        String messageString = "{\"id\":\"123\",\"value\":10}";
-        Message message = mock(Message.class);
+        List<Message> messages = List.of(
+                jsonMessage("{\"id\":\"1\",\"value\":2}"),
+                jsonMessage("{\"id\":\"2\",\"value\":3}"),
+                jsonMessage("{\"id\":\"3\",\"value\":4}"),
+                jsonMessage("not json"));
 
-        SimpleMessageConverter messageConverter = mock(SimpleMessageConverter.class);
-        when(rabbitTemplate.getMessageConverter()).thenReturn(messageConverter);
+        WorkItem first = new WorkItem(2);
+        first.setId("1");
+        WorkItem mismatched = new WorkItem(5);
+        mismatched.setId("2");
+        WorkItem alreadyProcessed = new WorkItem(4);
+        alreadyProcessed.setId("3");
+        alreadyProcessed.setProcessed(true);
+        when(workItemService.getWorkItems(anyCollection())).thenReturn(List.of(first, mismatched, alreadyProcessed));
 
-        HashMap<String, Object> messageBody = new HashMap<>();
-        messageBody.put("id", messageString);
-        when(messageConverter.fromMessage(message)).thenReturn(messageBody);
+        // Act
+        workItemConsumer.processWorkItems(messages);
+
+        // Assert
+        ArgumentCaptor<Collection<String>> idsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(workItemService, times(1)).getWorkItems(idsCaptor.capture());
+        assertEquals(List.of("1", "2", "3"), List.copyOf(idsCaptor.getValue()));
 
-        WorkItem receivedWorkItem = new WorkItem(10);
-        receivedWorkItem.setId("123");
-        when(objectMapper.readValue(messageString, WorkItem.class)).thenReturn(receivedWorkItem);
+        ArgumentCaptor<List<WorkItem>> processedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(workItemService, times(1)).markAllProcessed(processedCaptor.capture());
+        assertEquals(1, processedCaptor.getValue().size());
+        assertEquals("1", processedCaptor.getValue().get(0).getId());
+        assertEquals(4, processedCaptor.getValue().get(0).getResult());
+        verify(workItemService, never()).markProcessed(any(WorkItem.class), anyInt());
+    }
+
+    @Test
+    public void processWorkItems_BulkWriteFails_RetriesEveryProcessedMessage() {
+        // Arrange
+        WorkItem first = new WorkItem(1);
+        first.setId("1");
+        WorkItem second = new WorkItem(2);
+        second.setId("2");
+        when(workItemService.getWorkItems(anyCollection())).thenReturn(List.of(first, second));
+        RuntimeException failure = new RuntimeException("bulk write failed");
+        doThrow(failure).when(workItemService).markAllProcessed(anyList());
+        Message firstMessage = jsonMessage("{\"id\":\"1\",\"value\":1}");
+        Message secondMessage = jsonMessage("{\"id\":\"2\",\"value\":2}");
+
+        // Act: returns normally, so the batch is acked once every message sits in a retry queue
+        workItemConsumer.processWorkItems(List.of(firstMessage, secondMessage));
+
+        // Assert
+        verify(workItemRetryHandler).retryOrPark(firstMessage, failure);
+        verify(workItemRetryHandler).retryOrPark(secondMessage, failure);
+        verify(workItemRetryHandler, never()).park(any(Message.class), any(Throwable.class));
+    }
 
-        WorkItem existingWorkItem = new WorkItem(5);
-        existingWorkItem.setId("123");
-        existingWorkItem.setProcessed(true); // Set processed to true
-        when(workItemService.getWorkItem("123")).thenReturn(existingWorkItem);
+    @Test
+    public void processWorkItems_MalformedMessage_IsParkedWithoutRetrying() {
+        // Arrange
+        Message malformed = jsonMessage("not json");
+        when(workItemService.getWorkItems(anyCollection())).thenReturn(List.of());
 
         // Act
-        workItemConsumer.onMessage(message);
+        workItemConsumer.processWorkItems(List.of(malformed));
+
+        // Assert
+        verify(workItemRetryHandler).park(eq(malformed), any(AmqpRejectAndDontRequeueException.class));
+        verify(workItemRetryHandler, never()).retryOrPark(any(Message.class), any(Throwable.class));
+    }
+
+    @Test
+    public void processWorkItem_ProcessorFails_HandsMessageToRetryHandlerAndCompletes() throws Exception {
+        // Arrange
+        IllegalStateException failure = new IllegalStateException("processor failed");
+        WorkItemProcessor failingProcessor = mock(WorkItemProcessor.class, CALLS_REAL_METHODS);
+        doReturn(SquareWorkItemProcessor.TYPE).when(failingProcessor).getType();
+        doReturn(CompletableFuture.failedFuture(failure)).when(failingProcessor).process(any(WorkItem.class));
+        workItemConsumer = new WorkItemConsumer(workItemService, rabbitTemplate, new ProcessingLatencyTracker(),
+                new WorkItemProcessors(List.of(failingProcessor), processingProperties),
+                new ProcessingResultCache(processingProperties), workItemRetryHandler, processingProperties,
+                meterRegistry);
+        Message message = jsonMessage("{\"id\":\"1\",\"value\":4}");
+
+        // Act: completes normally, so the container acks the original delivery
+        workItemConsumer.processWorkItem(message).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        ArgumentCaptor<Throwable> failureCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(workItemRetryHandler).retryOrPark(eq(message), failureCaptor.capture());
+        Throwable cause = failureCaptor.getValue();
+        while (cause != failure && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        assertSame(failure, cause);
+        verify(workItemService, never()).markProcessed(any(WorkItem.class), anyInt());
+    }
+
+    @Test
+    public void processWorkItem_RetryPublishFails_FailsSoMessageIsDeadLettered() {
+        // Arrange
+        when(workItemRetryHandler.retryOrPark(any(Message.class), any(Throwable.class)))
+                .thenReturn(CompletableFuture.failedFuture(new AmqpException("broker unavailable")));
+
+        // Act
+        CompletableFuture<Void> acknowledged = workItemConsumer.processWorkItem(jsonMessage("not json"));
 
         // Assert
-        verify(workItemService, times(1)).getWorkItem("123");
-        verify(workItemService, times(0)).saveWorkItem(any(WorkItem.class)); // Expect saveWorkItem to not be called
+        assertThrows(ExecutionException.class, () -> acknowledged.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void processWorkItem_RetryNotConfirmedYet_CompletesOnlyOnTheConfirm() throws Exception {
+        // Arrange
+        CompletableFuture<Void> confirm = new CompletableFuture<>();
+        when(workItemRetryHandler.retryOrPark(any(Message.class), any(Throwable.class))).thenReturn(confirm);
+
+        // Act
+        CompletableFuture<Void> acknowledged = workItemConsumer.processWorkItem(jsonMessage("not json"));
+
+        // Assert: nothing waits for the confirm, and the original is acked only once it arrives
+        assertFalse(acknowledged.isDone());
+        confirm.complete(null);
+        acknowledged.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void processWorkItems_RetryPublishFails_ThrowsSoTheBatchIsNotAcked() {
+        // Arrange
+        when(workItemService.getWorkItems(anyCollection())).thenReturn(List.of());
+        when(workItemRetryHandler.park(any(Message.class), any(Throwable.class)))
+                .thenReturn(CompletableFuture.failedFuture(new AmqpException("broker unavailable")));
+
+        // Act and Assert
+        assertThrows(AmqpException.class, () -> workItemConsumer.processWorkItems(List.of(jsonMessage("not json"))));
+    }
+
+    @Test
+    public void processWorkItem_ReturnsBeforeTheProcessorCompletes() throws Exception {
+        // Arrange: a processor that completes only when the test says so
+        CompletableFuture<Integer> pending = new CompletableFuture<>();
+        WorkItemProcessor slowProcessor = mock(WorkItemProcessor.class);
+        when(slowProcessor.getType()).thenReturn("slow");
+        when(slowProcessor.process(any(WorkItem.class))).thenReturn(pending);
+        workItemConsumer = new WorkItemConsumer(workItemService, rabbitTemplate, new ProcessingLatencyTracker(),
+                new WorkItemProcessors(List.of(squareProcessor, slowProcessor), processingProperties),
+                new ProcessingResultCache(processingProperties), workItemRetryHandler, processingProperties,
+                meterRegistry);
+
+        WorkItem workItem = new WorkItem(3);
+        workItem.setId("1");
+        when(workItemService.markProcessed(any(WorkItem.class), anyInt())).thenReturn(true);
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setType("slow");
+
+        // Act
+        CompletableFuture<Void> acknowledged = workItemConsumer.processWorkItem(
+                new Message("{\"id\":\"1\",\"value\":3}".getBytes(), messageProperties));
+
+        // Assert: the consumer thread is released while the work item is still in flight
+        assertFalse(acknowledged.isDone());
+        verify(workItemService, never()).markProcessed(any(WorkItem.class), anyInt());
+
+        pending.complete(42);
+        acknowledged.get(5, TimeUnit.SECONDS);
+        verify(workItemService, times(1)).markProcessed(workItem, 42);
+    }
+
+    @Test
+    public void processWorkItem_WithUnknownType_ParksWithoutProcessing() throws Exception {
+        // Arrange
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setType("cube");
+        Message message = new Message("{\"id\":\"1\",\"value\":3}".getBytes(), messageProperties);
+
+        // Act
+        workItemConsumer.processWorkItem(message).get(5, TimeUnit.SECONDS);
+
+        // Assert: handed over as a rejection, which the retry handler parks straight away
+        verify(workItemRetryHandler).retryOrPark(eq(message), any(AmqpRejectAndDontRequeueException.class));
+        verify(workItemService, never()).markProcessed(any(WorkItem.class), anyInt());
+    }
+
+    @Test
+    public void processWorkItem_RecordsQueueWaitAndProcessingTime() throws Exception {
+        // Arrange
+        when(workItemService.markProcessed(any(WorkItem.class), anyInt())).thenReturn(true);
+        Message message = jsonMessage("{\"id\":\"1\",\"value\":4}");
+        message.getMessageProperties().setHeader(RabbitMQConfig.PUBLISHED_AT_HEADER, System.currentTimeMillis() - 50);
+        Message retried = jsonMessage("{\"id\":\"2\",\"value\":4}");
+        retried.getMessageProperties().setHeader(RabbitMQConfig.PUBLISHED_AT_HEADER, System.currentTimeMillis() - 5000);
+        retried.getMessageProperties().setHeader(WorkItemRetryHandler.RETRY_COUNT_HEADER, 1);
+
+        // Act
+        workItemConsumer.processWorkItem(message).get(5, TimeUnit.SECONDS);
+        workItemConsumer.processWorkItem(retried).get(5, TimeUnit.SECONDS);
+
+        // Assert: only the first delivery counts as queue wait, both count as processed
+        assertEquals(1, meterRegistry.get("workitem.consume.queue.wait").timer().count());
+        assertTrue(meterRegistry.get("workitem.consume.queue.wait").timer().totalTime(TimeUnit.MILLISECONDS) >= 50);
+        assertEquals(2, meterRegistry.get("workitem.consume.processing")
+                .tag("type", "square").tag("outcome", "processed").timer().count());
+    }
+
+    private Message jsonMessage(String body) {
+        return new Message(body.getBytes(), new MessageProperties());
+    }
+
+    private Message binaryMessage(String id, int value) {
+        return new WorkItemMessageConverter().toMessage(new WorkItemMessage(id, value), new MessageProperties());
     }
 
 
@@ -0,0 +1,97 @@
+package com.example.workitem.messaging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkItemMessageConverterTest {
+
+    private static final String ID = "647a5efb406dc9099538d392";
+
+    private final WorkItemMessageConverter converter = new WorkItemMessageConverter();
+
+    @Test
+    public void toMessage_WorkItemMessage_EncodesVersionObjectIdAndVarint() {
+        // Act
+        Message message = converter.toMessage(new WorkItemMessage(ID, 10), new MessageProperties());
+
+        // Assert
+        assertEquals(WorkItemMessageConverter.CONTENT_TYPE, message.getMessageProperties().getContentType());
+        assertEquals(14, message.getBody().length);
+        assertEquals(WorkItemMessageConverter.SCHEMA_VERSION, message.getBody()[0]);
+        assertEquals(new WorkItemMessage(ID, 10), converter.fromMessage(message));
+    }
+
+    @Test
+    public void fromMessage_RoundTripsLargeAndNegativeValues() {
+        for (int value : new int[]{0, -1, 63, 64, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            // Act
+            Message message = converter.toMessage(new WorkItemMessage(ID, value), new MessageProperties());
+
+            // Assert
+            assertEquals(new WorkItemMessage(ID, value), converter.fromMessage(message));
+        }
+    }
+
+    @Test
+    public void fromMessage_LegacyJsonMap_DecodesToWorkItemMessage() {
+        // Arrange: the id/value map older producers sent through Jackson2JsonMessageConverter
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("id", ID);
+        legacy.put("value", 7);
+        Message message = new Jackson2JsonMessageConverter().toMessage(legacy, new MessageProperties());
+
+        // Act
+        WorkItemMessage decoded = converter.fromMessage(message);
+
+        // Assert
+        assertEquals(new WorkItemMessage(ID, 7), decoded);
+    }
+
+    @Test
+    public void toMessage_IdThatIsNotAnObjectId_FallsBackToJson() {
+        // Act
+        Message message = converter.toMessage(new WorkItemMessage("123", 4), new MessageProperties());
+
+        // Assert
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON, message.getMessageProperties().getContentType());
+        assertEquals(new WorkItemMessage("123", 4), converter.fromMessage(message));
+    }
+
+    @Test
+    public void fromMessage_UnknownVersion_Fails() {
+        // Arrange
+        Message message = converter.toMessage(new WorkItemMessage(ID, 4), new MessageProperties());
+        message.getBody()[0] = 2;
+
+        // Act and Assert
+        assertThrows(MessageConversionException.class, () -> converter.fromMessage(message));
+    }
+
+    @Test
+    public void fromMessage_TruncatedBody_Fails() {
+        // Arrange
+        Message message = converter.toMessage(new WorkItemMessage(ID, 4), new MessageProperties());
+        Message truncated = new Message(Arrays.copyOf(message.getBody(), 8), message.getMessageProperties());
+
+        // Act and Assert
+        assertThrows(MessageConversionException.class, () -> converter.fromMessage(truncated));
+    }
+
+    @Test
+    public void fromMessage_JsonWithoutId_Fails() {
+        // Arrange
+        Message message = new Message("{\"value\":4}".getBytes(), new MessageProperties());
+
+        // Act and Assert
+        assertThrows(MessageConversionException.class, () -> converter.fromMessage(message));
+    }
+}
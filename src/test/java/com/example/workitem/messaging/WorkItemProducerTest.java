@@ -1,27 +1,38 @@
 package com.example.workitem.messaging;
 
-import com.example.workitem.messaging.WorkItemConsumer;
+import com.example.workitem.config.PublisherProperties;
 import com.example.workitem.messaging.WorkItemProducer;
-import com.example.workitem.model.WorkItem;
-import com.example.workitem.service.WorkItemService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.support.converter.MessageConverter;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class WorkItemProducerTest {
 
     private WorkItemProducer workItemProducer;
 
+    private PublisherProperties publisherProperties;
+
+    private SimpleMeterRegistry meterRegistry;
 
     @Mock
     private RabbitTemplate rabbitTemplate;
@@ -30,7 +41,10 @@ public class WorkItemProducerTest {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        workItemProducer = new WorkItemProducer(rabbitTemplate);
+        publisherProperties = new PublisherProperties();
+        publisherProperties.setRetryBackoffMs(1);
+        meterRegistry = new SimpleMeterRegistry();
+        workItemProducer = new WorkItemProducer(rabbitTemplate, publisherProperties, meterRegistry);
     }
 
     @Test
@@ -41,16 +55,131 @@ public class WorkItemProducerTest {
         String queueName = "work-item-queue";
 
         RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
-        WorkItemProducer workItemProducer = new WorkItemProducer(rabbitTemplate);
+        PublisherProperties withoutConfirms = new PublisherProperties();
+        withoutConfirms.setConfirms(false);
+        WorkItemProducer workItemProducer = new WorkItemProducer(rabbitTemplate, withoutConfirms, meterRegistry);
 
         // Act
-        workItemProducer.sendWorkItem(id, value);
+        CompletableFuture<Void> sent = workItemProducer.sendWorkItem(id, value);
 
         // Assert
+        verify(rabbitTemplate, times(1)).convertAndSend(queueName, new WorkItemMessage(id, value));
+        assertTrue(sent.isDone());
+    }
+
+    @Test
+    public void sendWorkItem_WithoutBinaryMessages_SendsJsonMap() {
+        // Arrange
+        RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+        PublisherProperties jsonOnly = new PublisherProperties();
+        jsonOnly.setConfirms(false);
+        jsonOnly.setBinaryMessages(false);
+        WorkItemProducer workItemProducer = new WorkItemProducer(rabbitTemplate, jsonOnly, meterRegistry);
+
+        // Act
+        workItemProducer.sendWorkItem("123", 10);
+
+        // Assert: the id/value map consumers from before the binary format read
         Map<String, Object> expectedMessage = new HashMap<>();
-        expectedMessage.put("id", id);
-        expectedMessage.put("value", value);
-        verify(rabbitTemplate, times(1)).convertAndSend(queueName, expectedMessage);
+        expectedMessage.put("id", "123");
+        expectedMessage.put("value", 10);
+        verify(rabbitTemplate, times(1)).convertAndSend("work-item-queue", expectedMessage);
+    }
+
+    @Test
+    public void sendWorkItem_WithConfirms_CompletesOnAck() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(eq(""), eq("work-item-queue"), any(Object.class), any(CorrelationData.class));
+
+        // Act
+        CompletableFuture<Void> sent = workItemProducer.sendWorkItem("123", 10);
+
+        // Assert
+        sent.get(1, TimeUnit.SECONDS);
+        verify(rabbitTemplate, times(1)).convertAndSend(eq(""), eq("work-item-queue"), any(Object.class), any(CorrelationData.class));
+    }
+
+    @Test
+    public void sendWorkItem_WithConfirms_RetriesNackedMessage() throws Exception {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            boolean ack = attempts.incrementAndGet() > 1;
+            correlationData.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(eq(""), eq("work-item-queue"), any(Object.class), any(CorrelationData.class));
+
+        // Act
+        CompletableFuture<Void> sent = workItemProducer.sendWorkItem("123", 10);
+
+        // Assert: timed once, from the first attempt to the ack of the retry
+        sent.get(1, TimeUnit.SECONDS);
+        assertEquals(2, attempts.get());
+        assertEquals(1, meterRegistry.get("workitem.publish").tag("outcome", "confirmed").timer().count());
+    }
+
+    @Test
+    public void sendWorkItem_WithConfirms_FailsAfterMaxAttemptsForReturnedMessage() {
+        // Arrange
+        publisherProperties.setMaxAttempts(2);
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.setReturned(new ReturnedMessage(new Message(new byte[0], new MessageProperties()),
+                    312, "NO_ROUTE", "", "work-item-queue"));
+            correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(eq(""), eq("work-item-queue"), any(Object.class), any(CorrelationData.class));
+
+        // Act
+        CompletableFuture<Void> sent = workItemProducer.sendWorkItem("123", 10);
+
+        // Assert
+        assertThrows(ExecutionException.class, () -> sent.get(1, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("workitem.publish").tag("outcome", "failed").timer().count());
+        verify(rabbitTemplate, times(2)).convertAndSend(eq(""), eq("work-item-queue"), any(Object.class), any(CorrelationData.class));
+    }
+
+    @Test
+    public void sendWorkItem_WithConfirms_BoundsOutstandingMessages() throws Exception {
+        // Arrange: the broker never confirms, so the single permit stays taken
+        publisherProperties.setMaxOutstandingConfirms(1);
+        WorkItemProducer boundedProducer = new WorkItemProducer(rabbitTemplate, publisherProperties, meterRegistry);
+        boundedProducer.sendWorkItem("1", 1);
+
+        // Act
+        CompletableFuture<CompletableFuture<Void>> second = new CompletableFuture<>();
+        Thread sender = new Thread(() -> second.complete(boundedProducer.sendWorkItem("2", 2)));
+        sender.start();
+        sender.join(200);
+
+        // Assert
+        assertTrue(sender.isAlive());
+        verify(rabbitTemplate, times(1)).convertAndSend(eq(""), eq("work-item-queue"), any(Object.class), any(CorrelationData.class));
+        sender.interrupt();
+        assertTrue(second.get(1, TimeUnit.SECONDS).isCompletedExceptionally());
+    }
+
+    @Test
+    public void sendWorkItem_WithConfirms_FailsWhenNoConfirmSlotFreesUp() {
+        // Arrange: the broker never confirms, so the single permit stays taken
+        publisherProperties.setMaxOutstandingConfirms(1);
+        publisherProperties.setOutstandingConfirmsTimeoutMs(50);
+        WorkItemProducer boundedProducer = new WorkItemProducer(rabbitTemplate, publisherProperties, meterRegistry);
+        boundedProducer.sendWorkItem("1", 1);
+
+        // Act
+        CompletableFuture<Void> second = boundedProducer.sendWorkItem("2", 2);
+
+        // Assert
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof AmqpException);
+        assertEquals(1, meterRegistry.get("workitem.publish").tag("outcome", "failed").timer().count());
+        verify(rabbitTemplate, times(1)).convertAndSend(eq(""), eq("work-item-queue"), any(Object.class), any(CorrelationData.class));
     }
 
 
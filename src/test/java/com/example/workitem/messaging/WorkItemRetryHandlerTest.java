@@ -0,0 +1,173 @@
+package com.example.workitem.messaging;
+
+import com.example.workitem.config.PublisherProperties;
+import com.example.workitem.config.RetryProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class WorkItemRetryHandlerTest {
+
+    private RabbitTemplate rabbitTemplate;
+
+    private RetryProperties retryProperties;
+
+    private PublisherProperties publisherProperties;
+
+    private WorkItemRetryHandler workItemRetryHandler;
+
+    @BeforeEach
+    public void setup() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        retryProperties = new RetryProperties();
+        publisherProperties = new PublisherProperties();
+        publisherProperties.setConfirms(false);
+        workItemRetryHandler = new WorkItemRetryHandler(rabbitTemplate, retryProperties, publisherProperties);
+    }
+
+    @Test
+    public void retryOrPark_FirstFailure_SendsACopyToFirstRetryQueue() {
+        // Arrange
+        Message message = message();
+
+        // Act
+        CompletableFuture<Void> republished = workItemRetryHandler.retryOrPark(message,
+                new CompletionException(new IllegalStateException("boom")));
+
+        // Assert: the copy carries the retry headers, the received message is left untouched
+        Message copy = sent("work-item.retry", "work-item-queue.retry.1000ms");
+        assertTrue(republished.isDone());
+        assertNotSame(message.getMessageProperties(), copy.getMessageProperties());
+        assertEquals(1, WorkItemRetryHandler.retryCount(copy));
+        assertEquals("IllegalStateException: boom",
+                copy.getMessageProperties().getHeader(WorkItemRetryHandler.LAST_ERROR_HEADER));
+        assertEquals(MessageDeliveryMode.PERSISTENT, copy.getMessageProperties().getDeliveryMode());
+        assertEquals("work-item", copy.getMessageProperties().getType());
+        assertArrayEquals(message.getBody(), copy.getBody());
+        assertEquals(0, WorkItemRetryHandler.retryCount(message));
+        assertNull(message.getMessageProperties().getHeader(WorkItemRetryHandler.LAST_ERROR_HEADER));
+    }
+
+    @Test
+    public void retryOrPark_LaterFailures_BackOffExponentially() {
+        // Arrange
+        Message message = message();
+        message.getMessageProperties().setHeader(WorkItemRetryHandler.RETRY_COUNT_HEADER, 2);
+
+        // Act
+        workItemRetryHandler.retryOrPark(message, new IllegalStateException("boom"));
+
+        // Assert
+        assertEquals(3, WorkItemRetryHandler.retryCount(sent("work-item.retry", "work-item-queue.retry.4000ms")));
+        assertEquals(2, WorkItemRetryHandler.retryCount(message));
+    }
+
+    @Test
+    public void retryOrPark_OutOfRetries_Parks() {
+        // Arrange
+        Message message = message();
+        message.getMessageProperties().setHeader(WorkItemRetryHandler.RETRY_COUNT_HEADER, 3);
+
+        // Act
+        workItemRetryHandler.retryOrPark(message, new IllegalStateException("boom"));
+
+        // Assert
+        Message parked = sent("work-item.dlx", "work-item-queue.parking-lot");
+        verify(rabbitTemplate, never()).send(eq("work-item.retry"), anyString(), any(Message.class));
+        assertEquals(3, WorkItemRetryHandler.retryCount(parked));
+    }
+
+    @Test
+    public void retryOrPark_Rejection_ParksWithoutRetrying() {
+        // Arrange
+        Message message = message();
+
+        // Act
+        workItemRetryHandler.retryOrPark(message, new AmqpRejectAndDontRequeueException("Malformed work item message"));
+
+        // Assert
+        Message parked = sent("work-item.dlx", "work-item-queue.parking-lot");
+        assertEquals(0, WorkItemRetryHandler.retryCount(parked));
+    }
+
+    @Test
+    public void retryOrPark_WithConfirms_CompletesWhenTheBrokerAccepts() {
+        // Arrange
+        publisherProperties.setConfirms(true);
+        AtomicReference<CorrelationData> correlation = new AtomicReference<>();
+        doAnswer(invocation -> {
+            correlation.set(invocation.getArgument(3));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        // Act
+        CompletableFuture<Void> republished = workItemRetryHandler.retryOrPark(message(), new IllegalStateException("boom"));
+
+        // Assert: returns without waiting, and completes on the confirm
+        assertFalse(republished.isDone());
+        correlation.get().getFuture().complete(new CorrelationData.Confirm(true, null));
+        assertDoesNotThrow(() -> republished.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void retryOrPark_Nacked_FailsSoTheOriginalIsNotAcked() {
+        // Arrange
+        publisherProperties.setConfirms(true);
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.getFuture().complete(new CorrelationData.Confirm(false, "queue full"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        // Act
+        CompletableFuture<Void> republished = workItemRetryHandler.retryOrPark(message(), new IllegalStateException("boom"));
+
+        // Assert
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> republished.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(AmqpException.class, failure.getCause());
+    }
+
+    @Test
+    public void park_SendFails_ReturnsAFailedFuture() {
+        // Arrange
+        doThrow(new AmqpException("connection lost")).when(rabbitTemplate)
+                .send(anyString(), anyString(), any(Message.class));
+
+        // Act
+        CompletableFuture<Void> parked = workItemRetryHandler.park(message(), new IllegalStateException("boom"));
+
+        // Assert
+        assertTrue(parked.isCompletedExceptionally());
+    }
+
+    private Message sent(String exchange, String routingKey) {
+        ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(exchange), eq(routingKey), messageCaptor.capture());
+        return messageCaptor.getValue();
+    }
+
+    private Message message() {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setType("work-item");
+        return new Message("{\"id\":\"1\",\"value\":4}".getBytes(), messageProperties);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.workitem.repositories;
+
+import com.example.workitem.config.IndexProperties;
+import com.example.workitem.model.WorkItem;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class WorkItemIndexesTest {
+
+    private MongoTemplate mongoTemplate;
+
+    private IndexOperations indexOperations;
+
+    private WorkItemIndexes workItemIndexes;
+
+    @BeforeEach
+    public void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        indexOperations = mock(IndexOperations.class);
+        when(mongoTemplate.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        when(mongoTemplate.indexOps(WorkItem.class)).thenReturn(indexOperations);
+        when(indexOperations.ensureIndex(any())).thenAnswer(invocation ->
+                invocation.<IndexDefinition>getArgument(0).getIndexOptions().getString("name"));
+        workItemIndexes = new WorkItemIndexes(mongoTemplate, new IndexProperties());
+    }
+
+    @Test
+    public void ensureIndexes_CreatesTheCompoundIndexesDeclaredOnWorkItem() {
+        // Act
+        List<String> indexNames = workItemIndexes.ensureIndexes();
+
+        // Assert
+        assertEquals(Set.of(WorkItem.PROCESSED_VALUE_INDEX, WorkItem.DISPATCHED_INDEX), Set.copyOf(indexNames));
+        ArgumentCaptor<IndexDefinition> indexCaptor = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations, times(2)).ensureIndex(indexCaptor.capture());
+        Map<String, Document> keys = indexCaptor.getAllValues().stream()
+                .collect(Collectors.toMap(index -> index.getIndexOptions().getString("name"), IndexDefinition::getIndexKeys));
+        assertEquals(List.of("processed", "value", "_id"), List.copyOf(keys.get(WorkItem.PROCESSED_VALUE_INDEX).keySet()));
+        assertEquals(List.of("dispatched", "processed", "_id"), List.copyOf(keys.get(WorkItem.DISPATCHED_INDEX).keySet()));
+    }
+
+    @Test
+    public void onStartup_WhenMongoIsUnavailable_DoesNotThrow() {
+        // Arrange
+        when(mongoTemplate.indexOps(WorkItem.class)).thenThrow(new IllegalStateException("connection refused"));
+
+        // Act and Assert
+        assertDoesNotThrow(() -> workItemIndexes.onStartup());
+    }
+
+    @Test
+    public void describePlan_FollowsInputStagesDownToTheIndexScan() {
+        // Arrange
+        Document winningPlan = new Document("stage", "LIMIT")
+                .append("inputStage", new Document("stage", "FETCH")
+                        .append("inputStage", new Document("stage", "IXSCAN").append("indexName", WorkItem.PROCESSED_VALUE_INDEX)));
+
+        // Act and Assert
+        assertEquals("LIMIT <- FETCH <- IXSCAN processed_value", WorkItemIndexes.describePlan(winningPlan));
+    }
+
+    @Test
+    public void describePlan_UnwrapsSlotBasedEnginePlans() {
+        // Arrange
+        Document winningPlan = new Document("queryPlan", new Document("stage", "COLLSCAN"));
+
+        // Act and Assert
+        assertEquals("COLLSCAN", WorkItemIndexes.describePlan(winningPlan));
+    }
+}
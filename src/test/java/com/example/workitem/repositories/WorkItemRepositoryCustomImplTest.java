@@ -0,0 +1,320 @@
+package com.example.workitem.repositories;
+
+import com.example.workitem.config.OutboxProperties;
+import com.example.workitem.config.ReportProperties;
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.messaging.WorkItemProducer;
+import com.example.workitem.model.WorkItem;
+import com.example.workitem.service.ReportArtifactCache;
+import com.example.workitem.service.ReportCounterStore;
+import com.example.workitem.service.ReportTemplateCache;
+import com.example.workitem.service.WorkItemServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class WorkItemRepositoryCustomImplTest {
+
+    private MongoTemplate mongoTemplate;
+
+    private WorkItemRepositoryCustomImpl workItemRepositoryCustom;
+
+    @BeforeEach
+    public void setup() {
+        mongoTemplate = mock(MongoTemplate.class);
+        workItemRepositoryCustom = new WorkItemRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @Test
+    public void aggregateReportData_GroupsByValue() {
+        // Arrange
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(WorkItem.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        // Act
+        workItemRepositoryCustom.aggregateReportData();
+
+        // Assert
+        ArgumentCaptor<Aggregation> aggregationCaptor = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregationCaptor.capture(), eq(WorkItem.class), eq(Document.class));
+        List<Document> pipeline = aggregationCaptor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(1, pipeline.size());
+        Document group = pipeline.get(0).get("$group", Document.class);
+        assertEquals("$value", group.get("_id"));
+        assertTrue(group.containsKey("totalItems"));
+        assertTrue(group.containsKey("processedItems"));
+    }
+
+    @Test
+    public void aggregateReportData_MatchesInMemoryReport() {
+        // Arrange
+        List<WorkItem> workItems = Arrays.asList(
+                workItem(10, true),
+                workItem(10, false),
+                workItem(8, true),
+                workItem(8, true),
+                workItem(8, false),
+                workItem(5, false)
+        );
+        // Stand-in for MongoDB evaluating the $group stage over the same work items
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(WorkItem.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(groupByValue(workItems), new Document()));
+
+        WorkItemRepository workItemRepository = mock(WorkItemRepository.class);
+        when(workItemRepository.findAll()).thenReturn(workItems);
+        ReportProperties reportProperties = new ReportProperties();
+        reportProperties.setMode(ReportProperties.Mode.IN_MEMORY);
+        WorkItemServiceImpl workItemService = new WorkItemServiceImpl(workItemRepository, mock(WorkItemProducer.class),
+                reportProperties, mock(ReportCounterStore.class), new OutboxProperties(), mock(ReportTemplateCache.class),
+                mock(ReportArtifactCache.class), new SimpleMeterRegistry());
+
+        // Act
+        Map<Integer, ReportDto.ReportItem> aggregated = workItemRepositoryCustom.aggregateReportData();
+        Map<Integer, ReportDto.ReportItem> inMemory = workItemService.generateReport().getReportData();
+
+        // Assert
+        assertEquals(inMemory.keySet(), aggregated.keySet());
+        for (Integer value : inMemory.keySet()) {
+            assertEquals(inMemory.get(value).getTotalItems(), aggregated.get(value).getTotalItems());
+            assertEquals(inMemory.get(value).getProcessedItems(), aggregated.get(value).getProcessedItems());
+        }
+    }
+
+    @Test
+    public void markAllProcessed_UsesOneUnorderedBulkWrite() {
+        // Arrange
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        BulkWriteResult bulkWriteResult = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WorkItem.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(2);
+        WorkItem first = workItem(2, false);
+        first.setId("1");
+        first.setResult(4);
+        WorkItem second = workItem(3, false);
+        second.setId("2");
+        second.setResult(9);
+
+        // Act
+        List<WorkItem> modified = workItemRepositoryCustom.markAllProcessed(List.of(first, second));
+
+        // Assert
+        assertEquals(List.of(first, second), modified);
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateOne(queryCaptor.capture(), updateCaptor.capture());
+        verify(bulkOperations, times(1)).execute();
+        assertEquals("1", queryCaptor.getAllValues().get(0).getQueryObject().get("_id"));
+        assertEquals(false, queryCaptor.getAllValues().get(0).getQueryObject().get("processed"));
+        assertEquals(2, queryCaptor.getAllValues().get(0).getQueryObject().get("value"));
+        assertEquals(9, updateCaptor.getAllValues().get(1).getUpdateObject().get("$set", Document.class).get("result"));
+        // Every row of the batch is modified, so it is not read back
+        verify(mongoTemplate, never()).find(any(Query.class), eq(WorkItem.class));
+        assertBatchTagRemoved(List.of("1", "2"));
+    }
+
+    @Test
+    public void markAllProcessed_WithDuplicate_ReturnsOnlyModifiedItems() {
+        // Arrange: the second item was already processed by an earlier delivery
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        BulkWriteResult bulkWriteResult = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WorkItem.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(1);
+        WorkItem first = workItem(2, false);
+        first.setId("1");
+        WorkItem second = workItem(3, false);
+        second.setId("2");
+        WorkItem written = workItem(2, true);
+        written.setId("1");
+        when(mongoTemplate.find(any(Query.class), eq(WorkItem.class))).thenReturn(List.of(written));
+
+        // Act
+        List<WorkItem> modified = workItemRepositoryCustom.markAllProcessed(List.of(first, second));
+
+        // Assert
+        assertEquals(List.of(first), modified);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), updateCaptor.capture());
+        Object batchId = updateCaptor.getAllValues().get(0).getUpdateObject().get("$set", Document.class)
+                .get(WorkItemRepositoryCustomImpl.PROCESSED_BATCH_FIELD);
+        assertEquals(batchId, updateCaptor.getAllValues().get(1).getUpdateObject().get("$set", Document.class)
+                .get(WorkItemRepositoryCustomImpl.PROCESSED_BATCH_FIELD));
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(WorkItem.class));
+        assertEquals(batchId, queryCaptor.getValue().getQueryObject().get(WorkItemRepositoryCustomImpl.PROCESSED_BATCH_FIELD));
+        assertBatchTagRemoved(List.of("1"));
+    }
+
+    @Test
+    public void markProcessed_UpdatesOnlyAnUnprocessedWorkItemWithTheSameValue() {
+        // Arrange
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(WorkItem.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null), UpdateResult.acknowledged(0, 0L, null));
+
+        // Act: the second call is a redelivery of the same message
+        boolean first = workItemRepositoryCustom.markProcessed("1", 4, 16);
+        boolean duplicate = workItemRepositoryCustom.markProcessed("1", 4, 16);
+
+        // Assert
+        assertTrue(first);
+        assertFalse(duplicate);
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq(WorkItem.class));
+        Document queryObject = queryCaptor.getValue().getQueryObject();
+        assertEquals("1", queryObject.get("_id"));
+        assertEquals(4, queryObject.get("value"));
+        assertEquals(false, queryObject.get("processed"));
+        // Only processed and result are written, never the whole document
+        Document set = updateCaptor.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(Set.of("processed", "result"), set.keySet());
+        assertEquals(16, set.get("result"));
+        verify(mongoTemplate, never()).save(any(WorkItem.class));
+    }
+
+    @Test
+    public void markAllProcessed_EmptyList_DoesNotWrite() {
+        // Act
+        List<WorkItem> modified = workItemRepositoryCustom.markAllProcessed(List.of());
+
+        // Assert
+        assertTrue(modified.isEmpty());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    public void findPage_SeeksPastCursorWithFilters() {
+        // Act
+        workItemRepositoryCustom.findPage("647a5efb406dc9099538d392", 101, true, 7);
+
+        // Assert
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(WorkItem.class));
+        Document queryObject = queryCaptor.getValue().getQueryObject();
+        assertEquals(new Document("$gt", new ObjectId("647a5efb406dc9099538d392")), queryObject.get("_id"));
+        assertEquals(true, queryObject.get("processed"));
+        assertEquals(7, queryObject.get("value"));
+        assertEquals(1, queryCaptor.getValue().getSortObject().get("_id"));
+        assertEquals(101, queryCaptor.getValue().getLimit());
+    }
+
+    @Test
+    public void findPage_FirstPageWithoutFilters_QueriesEverything() {
+        // Act
+        workItemRepositoryCustom.findPage(null, 10, null, null);
+
+        // Assert
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(WorkItem.class));
+        assertTrue(queryCaptor.getValue().getQueryObject().isEmpty());
+    }
+
+    @Test
+    public void claimUndispatched_LeasesOldestUnclaimedItemsAndReturnsOnlyThoseWon() {
+        // Arrange
+        WorkItem candidate = workItem(3, false);
+        candidate.setId(new ObjectId().toHexString());
+        WorkItem claimed = workItem(3, false);
+        claimed.setId(candidate.getId());
+        when(mongoTemplate.find(any(Query.class), eq(WorkItem.class))).thenReturn(List.of(candidate), List.of(claimed));
+
+        // Act
+        List<WorkItem> workItems = workItemRepositoryCustom.claimUndispatched(50, 60000);
+
+        // Assert
+        assertEquals(List.of(claimed), workItems);
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queryCaptor.capture(), eq(WorkItem.class));
+        Query candidates = queryCaptor.getAllValues().get(0);
+        assertEquals(false, candidates.getQueryObject().get("dispatched"));
+        assertEquals(false, candidates.getQueryObject().get("processed"));
+        assertTrue(candidates.getQueryObject().containsKey(WorkItemRepositoryCustomImpl.DISPATCH_LEASE_FIELD));
+        assertEquals(1, candidates.getSortObject().get("_id"));
+        assertEquals(50, candidates.getLimit());
+
+        // The claim is a conditional write, only items that are still unleased get this relay's claim
+        ArgumentCaptor<Query> claimQueryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(claimQueryCaptor.capture(), updateCaptor.capture(), eq(WorkItem.class));
+        assertTrue(claimQueryCaptor.getValue().getQueryObject().containsKey(WorkItemRepositoryCustomImpl.DISPATCH_LEASE_FIELD));
+        Object claim = updateCaptor.getValue().getUpdateObject().get("$set", Document.class)
+                .get(WorkItemRepositoryCustomImpl.DISPATCH_CLAIM_FIELD);
+        assertEquals(claim, queryCaptor.getAllValues().get(1).getQueryObject().get(WorkItemRepositoryCustomImpl.DISPATCH_CLAIM_FIELD));
+    }
+
+    @Test
+    public void claimUndispatched_NothingUndispatched_DoesNotWrite() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(WorkItem.class))).thenReturn(List.of());
+
+        // Act
+        List<WorkItem> workItems = workItemRepositoryCustom.claimUndispatched(50, 60000);
+
+        // Assert
+        assertTrue(workItems.isEmpty());
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(WorkItem.class));
+    }
+
+    @Test
+    public void markDispatched_EmptyIds_DoesNotWrite() {
+        // Act
+        long modified = workItemRepositoryCustom.markDispatched(List.of());
+
+        // Assert
+        assertEquals(0, modified);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private WorkItem workItem(int value, boolean processed) {
+        WorkItem workItem = new WorkItem(value);
+        workItem.setProcessed(processed);
+        return workItem;
+    }
+
+    private List<Document> groupByValue(List<WorkItem> workItems) {
+        Map<Integer, Document> rows = new LinkedHashMap<>();
+        for (WorkItem workItem : workItems) {
+            Document row = rows.computeIfAbsent(workItem.getValue(),
+                    value -> new Document("_id", value).append("totalItems", 0).append("processedItems", 0));
+            row.put("totalItems", row.getInteger("totalItems") + 1);
+            row.put("processedItems", row.getInteger("processedItems") + (workItem.isProcessed() ? 1 : 0));
+        }
+        return new ArrayList<>(rows.values());
+    }
+
+    // The batch tag is unset again from the rows the batch modified, and only while it still holds this batch's id
+    private void assertBatchTagRemoved(List<String> ids) {
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(queryCaptor.capture(), updateCaptor.capture(), eq(WorkItem.class));
+        Document queryObject = queryCaptor.getValue().getQueryObject();
+        assertEquals(ids, queryObject.get("_id", Document.class).get("$in"));
+        assertNotNull(queryObject.get(WorkItemRepositoryCustomImpl.PROCESSED_BATCH_FIELD));
+        assertEquals(Set.of(WorkItemRepositoryCustomImpl.PROCESSED_BATCH_FIELD),
+                updateCaptor.getValue().getUpdateObject().get("$unset", Document.class).keySet());
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.workitem.repositories;
+
+import com.example.workitem.config.IndexProperties;
+import com.example.workitem.model.WorkItem;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the derived queries of {@link WorkItemRepository} against an embedded mongod with the profiler on, so each test
+ * sees the plan MongoDB actually used for the query Spring Data generated.
+ */
+public class WorkItemRepositoryQueryTest {
+
+    private static final String DATABASE = "repository-test";
+
+    private static final String PROCESSED_VALUE_KEYS = "processed: 1, value: 1, _id: 1";
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+
+    private static MongoClient mongoClient;
+
+    private MongoTemplate mongoTemplate;
+
+    private WorkItemRepository workItemRepository;
+
+    private WorkItemIndexes workItemIndexes;
+
+    @BeforeAll
+    public static void startMongod() {
+        mongod = Mongod.instance().start(Version.Main.V6_0);
+        ServerAddress address = mongod.current().getServerAddress();
+        mongoClient = MongoClients.create("mongodb://" + address.getHost().getHostAddress() + ":" + address.getPort());
+    }
+
+    @AfterAll
+    public static void stopMongod() {
+        mongoClient.close();
+        mongod.close();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        mongoTemplate = new MongoTemplate(mongoClient, DATABASE);
+        // Profiling stops before the drop, which also drops the profile of the previous test
+        mongoTemplate.getDb().runCommand(new Document("profile", 0));
+        mongoTemplate.getDb().drop();
+        workItemRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(WorkItemRepository.class,
+                RepositoryFragments.just(new WorkItemRepositoryCustomImpl(mongoTemplate)));
+        workItemIndexes = new WorkItemIndexes(mongoTemplate, new IndexProperties());
+        workItemIndexes.ensureIndexes();
+    }
+
+    @Test
+    public void countByValueAndProcessed_CountsFromTheProcessedValueIndex() {
+        // Arrange
+        mongoTemplate.insertAll(List.of(workItem(1, false), workItem(1, false), workItem(1, false),
+                workItem(1, true), workItem(1, true), workItem(2, false)));
+        startProfiling();
+
+        // Act
+        long unprocessed = workItemRepository.countByValueAndProcessed(1, false);
+        long processed = workItemRepository.countByValueAndProcessed(1, true);
+        long missing = workItemRepository.countByValueAndProcessed(3, false);
+
+        // Assert
+        assertEquals(3, unprocessed);
+        assertEquals(2, processed);
+        assertEquals(0, missing);
+        List<Document> profiled = profiledOperations();
+        assertEquals(3, profiled.size());
+        for (Document operation : profiled) {
+            assertTrue(operation.getString("planSummary").contains(PROCESSED_VALUE_KEYS), operation.toJson());
+        }
+    }
+
+    @Test
+    public void findByProcessedFalse_ReturnsSlicesInIndexOrderWithoutACountQuery() {
+        // Arrange
+        List<WorkItem> unprocessed = new ArrayList<>(mongoTemplate.insertAll(List.of(workItem(3, false), workItem(1, false),
+                workItem(2, false), workItem(1, false), workItem(2, false))));
+        mongoTemplate.insertAll(List.of(workItem(1, true), workItem(2, true)));
+        unprocessed.sort(Comparator.comparing(WorkItem::getValue).thenComparing(WorkItem::getId));
+        Sort indexOrder = Sort.by("value", "_id");
+        startProfiling();
+
+        // Act
+        Slice<WorkItem> first = workItemRepository.findByProcessedFalse(PageRequest.of(0, 2, indexOrder));
+        Slice<WorkItem> second = workItemRepository.findByProcessedFalse(PageRequest.of(1, 2, indexOrder));
+        Slice<WorkItem> last = workItemRepository.findByProcessedFalse(PageRequest.of(2, 2, indexOrder));
+
+        // Assert
+        assertEquals(unprocessed.subList(0, 2), first.getContent());
+        assertTrue(first.hasNext());
+        assertEquals(unprocessed.subList(2, 4), second.getContent());
+        assertTrue(second.hasNext());
+        assertEquals(unprocessed.subList(4, 5), last.getContent());
+        assertFalse(last.hasNext());
+        List<Document> profiled = profiledOperations();
+        assertEquals(3, profiled.size());
+        for (Document operation : profiled) {
+            Document command = operation.get("command", Document.class);
+            assertTrue(command.containsKey("find"), "Expected only finds, ran " + command.toJson());
+            assertTrue(operation.getString("planSummary").contains(PROCESSED_VALUE_KEYS), operation.toJson());
+            assertFalse(operation.getBoolean("hasSortStage", false), "Sorted in memory: " + operation.toJson());
+        }
+    }
+
+    @Test
+    public void explainHotQueries_RepositoryQueriesUseTheProcessedValueIndex() {
+        // Arrange
+        mongoTemplate.insertAll(List.of(workItem(1, false), workItem(2, true)));
+
+        // Act
+        Map<String, String> plans = workItemIndexes.explainHotQueries();
+
+        // Assert
+        assertTrue(plans.get("unprocessed page").contains("IXSCAN " + WorkItem.PROCESSED_VALUE_INDEX), plans.toString());
+        assertFalse(plans.get("unprocessed page").contains("SORT"), plans.toString());
+        assertTrue(plans.get("count by value and processed").contains(WorkItem.PROCESSED_VALUE_INDEX), plans.toString());
+        plans.values().forEach(plan -> assertFalse(plan.contains("COLLSCAN"), plans.toString()));
+    }
+
+    private void startProfiling() {
+        mongoTemplate.getDb().runCommand(new Document("profile", 2));
+    }
+
+    // Reads and writes on the work item collection since profiling started, oldest first
+    private List<Document> profiledOperations() {
+        String namespace = DATABASE + "." + mongoTemplate.getCollectionName(WorkItem.class);
+        return mongoTemplate.getDb().getCollection("system.profile")
+                .find(new Document("ns", namespace))
+                .sort(new Document("ts", 1))
+                .into(new ArrayList<>());
+    }
+
+    private static WorkItem workItem(int value, boolean processed) {
+        WorkItem workItem = new WorkItem(value);
+        workItem.setProcessed(processed);
+        return workItem;
+    }
+}
@@ -2,12 +2,17 @@ package com.example.workitem.repositories;
 
 
 import com.example.workitem.model.WorkItem;
+import com.example.workitem.service.ReportArtifactCache;
+import com.example.workitem.service.ReportCounterStore;
 import com.example.workitem.service.WorkItemService;
 import com.example.workitem.service.WorkItemServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
 
@@ -25,6 +30,15 @@ public class WorkItemRepositoryTest {
     @Mock
     private WorkItemRepository workItemRepository;
 
+    @Mock
+    private ReportCounterStore reportCounterStore;
+
+    @Mock
+    private ReportArtifactCache reportArtifactCache;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private WorkItemServiceImpl workItemService;
 
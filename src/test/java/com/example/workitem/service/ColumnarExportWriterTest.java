@@ -0,0 +1,99 @@
+package com.example.workitem.service;
+
+import com.example.workitem.model.WorkItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.workitem.service.CsvExportWriterTest.reportItem;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarExportWriterTest {
+
+    private final ColumnarExportWriter writer = new ColumnarExportWriter();
+
+    @Test
+    public void writeWorkItems_SplitsRowsIntoColumnGroups() throws Exception {
+        // Arrange: one full row group and one partial group
+        int count = ColumnarExportWriter.ROW_GROUP_SIZE + 3;
+        List<WorkItem> workItems = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            WorkItem workItem = new WorkItem(i % 10 + 1);
+            workItem.setId("id-" + i);
+            workItem.setProcessed(i % 2 == 0);
+            workItem.setResult(i % 2 == 0 ? i : null);
+            workItems.add(workItem);
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        writer.writeWorkItems(workItems.iterator(), outputStream);
+
+        // Assert
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        readHeader(in, new String[]{"id", "value", "processed", "result"});
+
+        List<WorkItem> read = new ArrayList<>();
+        int rowCount;
+        int groups = 0;
+        while ((rowCount = in.readInt()) > 0) {
+            groups++;
+            WorkItem[] group = new WorkItem[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                group[i] = new WorkItem();
+                group[i].setId(in.readUTF());
+            }
+            for (int i = 0; i < rowCount; i++) {
+                group[i].setValue(in.readInt());
+            }
+            byte[] processed = in.readNBytes((rowCount + 7) / 8);
+            byte[] hasResult = in.readNBytes((rowCount + 7) / 8);
+            for (int i = 0; i < rowCount; i++) {
+                group[i].setProcessed(isSet(processed, i));
+                if (isSet(hasResult, i)) {
+                    group[i].setResult(in.readInt());
+                }
+            }
+            read.addAll(List.of(group));
+        }
+        assertEquals(2, groups);
+        assertEquals(workItems, read);
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void writeReport_WritesIntColumns() throws Exception {
+        // Arrange
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        writer.writeReport(Map.of(9, reportItem(4, 1), 1, reportItem(2, 2)), outputStream);
+
+        // Assert
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        readHeader(in, new String[]{"value", "totalItems", "processedItems"});
+        assertEquals(2, in.readInt());
+        assertArrayEquals(new int[]{1, 9, 2, 4, 2, 1},
+                new int[]{in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt()});
+        assertEquals(0, in.readInt());
+    }
+
+    private void readHeader(DataInputStream in, String[] expectedColumns) throws Exception {
+        assertArrayEquals(ColumnarExportWriter.MAGIC, in.readNBytes(ColumnarExportWriter.MAGIC.length));
+        assertEquals(ColumnarExportWriter.VERSION, in.readByte());
+        assertEquals(expectedColumns.length, in.readInt());
+        for (String column : expectedColumns) {
+            assertEquals(column, in.readUTF());
+            in.readByte();
+        }
+    }
+
+    private boolean isSet(byte[] bitmap, int row) {
+        return (bitmap[row / 8] & (1 << (row % 8))) != 0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.workitem.service;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.model.WorkItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CsvExportWriterTest {
+
+    private final CsvExportWriter writer = new CsvExportWriter();
+
+    @Test
+    public void writeWorkItems_WritesHeaderAndOneLinePerWorkItem() throws Exception {
+        // Arrange
+        WorkItem processed = new WorkItem(3);
+        processed.setId("a1");
+        processed.setProcessed(true);
+        processed.setResult(9);
+        WorkItem unprocessed = new WorkItem(4);
+        unprocessed.setId("b2");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        writer.writeWorkItems(List.of(processed, unprocessed).iterator(), outputStream);
+
+        // Assert
+        assertEquals("id,value,processed,result\r\na1,3,true,9\r\nb2,4,false,\r\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void writeReport_WritesValuesInOrder() throws Exception {
+        // Arrange
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        writer.writeReport(Map.of(7, reportItem(2, 1), 2, reportItem(5, 5)), outputStream);
+
+        // Assert
+        assertEquals("value,totalItems,processedItems\r\n2,5,5\r\n7,2,1\r\n", outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    static ReportDto.ReportItem reportItem(int totalItems, int processedItems) {
+        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+        reportItem.setTotalItems(totalItems);
+        reportItem.setProcessedItems(processedItems);
+        return reportItem;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ProcessingProperties;
+import com.example.workitem.model.WorkItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ProcessingResultCacheTest {
+
+    private ProcessingProperties processingProperties;
+
+    private ProcessingResultCache cache;
+
+    private WorkItemProcessor processor;
+
+    @BeforeEach
+    public void setUp() {
+        processingProperties = new ProcessingProperties();
+        cache = new ProcessingResultCache(processingProperties);
+        processor = mock(WorkItemProcessor.class, CALLS_REAL_METHODS);
+        doReturn("square").when(processor).getType();
+    }
+
+    @Test
+    public void process_SameValue_RunsTheProcessorOnce() {
+        // Arrange
+        doReturn(CompletableFuture.completedFuture(9)).when(processor).process(any());
+
+        // Act
+        int first = cache.process(processor, new WorkItem(3)).toCompletableFuture().join();
+        int second = cache.process(processor, new WorkItem(3)).toCompletableFuture().join();
+
+        // Assert
+        assertEquals(9, first);
+        assertEquals(9, second);
+        verify(processor, times(1)).process(any());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void bindTo_PublishesHitsMissesAndSize() {
+        // Arrange
+        doReturn(CompletableFuture.completedFuture(9)).when(processor).process(any());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cache.bindTo(meterRegistry);
+
+        // Act
+        cache.process(processor, new WorkItem(3)).toCompletableFuture().join();
+        cache.process(processor, new WorkItem(3)).toCompletableFuture().join();
+        cache.process(processor, new WorkItem(3)).toCompletableFuture().join();
+
+        // Assert
+        assertEquals(2, meterRegistry.get("workitem.processing.cache").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("workitem.processing.cache").tag("result", "miss").functionCounter().count());
+        assertEquals(1, meterRegistry.get("workitem.processing.cache.size").gauge().value());
+    }
+
+    @Test
+    public void process_WhileTheFirstIsPending_WaitsForIt() {
+        // Arrange
+        CompletableFuture<Integer> pending = new CompletableFuture<>();
+        doReturn(pending).when(processor).process(any());
+
+        // Act
+        CompletableFuture<Integer> first = cache.process(processor, new WorkItem(4)).toCompletableFuture();
+        CompletableFuture<Integer> second = cache.process(processor, new WorkItem(4)).toCompletableFuture();
+        pending.complete(16);
+
+        // Assert
+        assertEquals(16, first.join());
+        assertEquals(16, second.join());
+        verify(processor, times(1)).process(any());
+    }
+
+    @Test
+    public void process_ImpureProcessor_IsNeverCached() {
+        // Arrange
+        doReturn(false).when(processor).isPure();
+        doReturn(CompletableFuture.completedFuture(1)).when(processor).process(any());
+
+        // Act
+        cache.process(processor, new WorkItem(1));
+        cache.process(processor, new WorkItem(1));
+
+        // Assert
+        verify(processor, times(2)).process(any());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void process_FailedResult_IsNotCached() {
+        // Arrange
+        doReturn(CompletableFuture.failedFuture(new IllegalStateException("failed")),
+                CompletableFuture.completedFuture(4)).when(processor).process(any());
+
+        // Act
+        CompletableFuture<Integer> failed = cache.process(processor, new WorkItem(2)).toCompletableFuture();
+        int retried = cache.process(processor, new WorkItem(2)).toCompletableFuture().join();
+
+        // Assert
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(4, retried);
+        verify(processor, times(2)).process(any());
+    }
+
+    @Test
+    public void process_ExpiredResult_IsComputedAgain() {
+        // Arrange
+        processingProperties.getCache().setTtlMs(0);
+        doReturn(CompletableFuture.completedFuture(1)).when(processor).process(any());
+
+        // Act
+        cache.process(processor, new WorkItem(1));
+        cache.process(processor, new WorkItem(1));
+
+        // Assert
+        verify(processor, times(2)).process(any());
+    }
+
+    @Test
+    public void process_BeyondMaxEntries_DropsTheLeastRecentlyUsed() {
+        // Arrange
+        processingProperties.getCache().setMaxEntries(2);
+        doReturn(CompletableFuture.completedFuture(0)).when(processor).process(any());
+
+        // Act
+        cache.process(processor, new WorkItem(1));
+        cache.process(processor, new WorkItem(2));
+        cache.process(processor, new WorkItem(3));
+
+        // Assert
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void process_Disabled_AlwaysRunsTheProcessor() {
+        // Arrange
+        processingProperties.getCache().setEnabled(false);
+        doReturn(CompletableFuture.completedFuture(1)).when(processor).process(any());
+
+        // Act
+        cache.process(processor, new WorkItem(1));
+        cache.process(processor, new WorkItem(1));
+
+        // Assert
+        verify(processor, times(2)).process(any());
+    }
+}
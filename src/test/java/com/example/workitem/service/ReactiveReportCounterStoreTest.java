@@ -0,0 +1,88 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ReportProperties;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveReportCounterStoreTest {
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private ReportProperties reportProperties;
+
+    private ReactiveReportCounterStore reactiveReportCounterStore;
+
+    @BeforeEach
+    void setUp() {
+        reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+        when(reactiveMongoTemplate.upsert(any(Query.class), any(Update.class), eq(ReportCounterStore.COLLECTION)))
+                .thenReturn(Mono.empty());
+        reportProperties = new ReportProperties();
+        reportProperties.setMode(ReportProperties.Mode.COUNTERS);
+        reactiveReportCounterStore = new ReactiveReportCounterStore(reactiveMongoTemplate, reportProperties);
+    }
+
+    @Test
+    void recordCreated_shouldUpsertTheSameIncrementAsTheBlockingStore() {
+        // Execute the method under test
+        StepVerifier.create(reactiveReportCounterStore.recordCreated(5)).verifyComplete();
+
+        // Verify the update
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(reactiveMongoTemplate).upsert(queryCaptor.capture(), updateCaptor.capture(), eq(ReportCounterStore.COLLECTION));
+        assertEquals(ReportCounterStore.DOCUMENT_ID, queryCaptor.getValue().getQueryObject().get("_id"));
+        Document inc = updateCaptor.getValue().getUpdateObject().get("$inc", Document.class);
+        assertEquals(1, inc.get("totalItems.5"));
+        assertFalse(inc.containsKey("processedItems.5"));
+        assertEquals(1, inc.get("version"));
+    }
+
+    @Test
+    void recordDeleted_withProcessedItem_shouldDecrementBothCounters() {
+        // Execute the method under test
+        StepVerifier.create(reactiveReportCounterStore.recordDeleted(3, true)).verifyComplete();
+
+        // Verify the update
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(reactiveMongoTemplate).upsert(any(Query.class), updateCaptor.capture(), eq(ReportCounterStore.COLLECTION));
+        Document inc = updateCaptor.getValue().getUpdateObject().get("$inc", Document.class);
+        assertEquals(-1, inc.get("totalItems.3"));
+        assertEquals(-1, inc.get("processedItems.3"));
+        assertEquals(1, inc.get("version"));
+    }
+
+    @Test
+    void recordCreated_withOtherReportMode_shouldNotWrite() {
+        // Prepare test data
+        reportProperties.setMode(ReportProperties.Mode.AGGREGATION);
+
+        // Execute the method under test
+        StepVerifier.create(reactiveReportCounterStore.recordCreated(5)).verifyComplete();
+
+        // Verify the interaction
+        verify(reactiveMongoTemplate, never()).upsert(any(Query.class), any(Update.class), anyString());
+    }
+
+    @Test
+    void snapshot_withoutCountersDocument_shouldReturnEmptyReport() {
+        // Prepare test data
+        when(reactiveMongoTemplate.findById(ReportCounterStore.DOCUMENT_ID, Document.class, ReportCounterStore.COLLECTION))
+                .thenReturn(Mono.empty());
+
+        // Execute the method under test and verify
+        StepVerifier.create(reactiveReportCounterStore.snapshot())
+                .assertNext(reportData -> assertTrue(reportData.isEmpty()))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.OutboxProperties;
+import com.example.workitem.config.ReportProperties;
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.dtos.ReportExport;
+import com.example.workitem.messaging.ReactiveWorkItemProducer;
+import com.example.workitem.model.WorkItem;
+import com.example.workitem.repositories.ReactiveWorkItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveWorkItemServiceTest {
+
+    @Mock
+    private ReactiveWorkItemRepository reactiveWorkItemRepository;
+
+    @Mock
+    private ReactiveWorkItemProducer reactiveWorkItemProducer;
+
+    @Spy
+    private ReportProperties reportProperties = new ReportProperties();
+
+    @Mock
+    private ReactiveReportCounterStore reactiveReportCounterStore;
+
+    @Spy
+    private OutboxProperties outboxProperties = new OutboxProperties();
+
+    @Mock
+    private ReportArtifactCache reportArtifactCache;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ReactiveWorkItemService reactiveWorkItemService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        outboxProperties.setEnabled(false);
+    }
+
+    @Test
+    void createWorkItem_shouldSaveAndPublishWithoutWaitingForTheConfirm() {
+        // Prepare test data
+        when(reactiveWorkItemRepository.save(any(WorkItem.class))).thenAnswer(invocation -> {
+            WorkItem workItem = invocation.getArgument(0);
+            workItem.setId("647a5efb406dc9099538d392");
+            return Mono.just(workItem);
+        });
+        when(reactiveReportCounterStore.recordCreated(5)).thenReturn(Mono.empty());
+        when(reactiveWorkItemProducer.sendWorkItem("647a5efb406dc9099538d392", 5)).thenReturn(Mono.never());
+
+        // Execute the method under test and verify
+        StepVerifier.create(reactiveWorkItemService.createWorkItem(5))
+                .expectNext("647a5efb406dc9099538d392")
+                .verifyComplete();
+        verify(reactiveWorkItemProducer).sendWorkItem("647a5efb406dc9099538d392", 5);
+        verify(reportArtifactCache).invalidate();
+    }
+
+    @Test
+    void createWorkItem_withOutbox_shouldLeavePublishingToTheRelay() {
+        // Prepare test data
+        outboxProperties.setEnabled(true);
+        when(reactiveReportCounterStore.recordCreated(5)).thenReturn(Mono.empty());
+        when(reactiveWorkItemRepository.save(any(WorkItem.class))).thenAnswer(invocation -> {
+            WorkItem workItem = invocation.getArgument(0);
+            workItem.setId("647a5efb406dc9099538d392");
+            return Mono.just(workItem);
+        });
+
+        // Execute the method under test and verify
+        StepVerifier.create(reactiveWorkItemService.createWorkItem(5))
+                .expectNext("647a5efb406dc9099538d392")
+                .verifyComplete();
+        ArgumentCaptor<WorkItem> workItemCaptor = ArgumentCaptor.forClass(WorkItem.class);
+        verify(reactiveWorkItemRepository).save(workItemCaptor.capture());
+        assertFalse(workItemCaptor.getValue().isDispatched());
+        verifyNoInteractions(reactiveWorkItemProducer);
+    }
+
+    @Test
+    void createWorkItem_shouldRecordTheCreationInTheCounters() {
+        // Prepare test data
+        when(reactiveWorkItemRepository.save(any(WorkItem.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(reactiveWorkItemProducer.sendWorkItem(any(), anyInt())).thenReturn(Mono.empty());
+        when(reactiveReportCounterStore.recordCreated(7)).thenReturn(Mono.empty());
+
+        // Execute the method under test
+        reactiveWorkItemService.createWorkItem(7).block();
+
+        // Verify the result
+        verify(reactiveReportCounterStore).recordCreated(7);
+    }
+
+    @Test
+    void deleteWorkItem_shouldRecordTheDeletionInTheCounters() {
+        // Prepare test data
+        WorkItem removed = new WorkItem(4);
+        removed.setProcessed(true);
+        when(reactiveWorkItemRepository.removeById("1")).thenReturn(Mono.just(removed));
+        when(reactiveReportCounterStore.recordDeleted(4, true)).thenReturn(Mono.empty());
+
+        // Execute the method under test and verify
+        StepVerifier.create(reactiveWorkItemService.deleteWorkItem("1"))
+                .expectNext(removed)
+                .verifyComplete();
+        verify(reactiveReportCounterStore).recordDeleted(4, true);
+        verify(reportArtifactCache).invalidate();
+    }
+
+    @Test
+    void deleteWorkItem_missingWorkItem_shouldCompleteEmpty() {
+        // Prepare test data
+        when(reactiveWorkItemRepository.removeById("1")).thenReturn(Mono.empty());
+
+        // Execute the method under test and verify
+        StepVerifier.create(reactiveWorkItemService.deleteWorkItem("1")).verifyComplete();
+        verifyNoInteractions(reportArtifactCache);
+    }
+
+    @Test
+    void streamReport_inMemory_shouldCountEveryWorkItem() {
+        // Prepare test data
+        reportProperties.setMode(ReportProperties.Mode.IN_MEMORY);
+        WorkItem processed = new WorkItem(3);
+        processed.setProcessed(true);
+        when(reactiveWorkItemRepository.findAll()).thenReturn(Flux.just(new WorkItem(3), processed, new WorkItem(4)));
+
+        // Execute the method under test and verify
+        StepVerifier.create(reactiveWorkItemService.generateReport())
+                .assertNext(report -> {
+                    assertEquals(2, report.getReportData().get(3).getTotalItems());
+                    assertEquals(1, report.getReportData().get(3).getProcessedItems());
+                    assertEquals(1, report.getReportData().get(4).getTotalItems());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void streamReport_aggregation_shouldEmitTheAggregatedRows() {
+        // Prepare test data
+        reportProperties.setMode(ReportProperties.Mode.AGGREGATION);
+        ReportExport row = new ReportExport(2);
+        row.setTotalItems(10);
+        row.setProcessedItems(4);
+        when(reactiveWorkItemRepository.aggregateReportRows()).thenReturn(Flux.just(row));
+
+        // Execute the method under test and verify
+        StepVerifier.create(reactiveWorkItemService.streamReport())
+                .expectNext(row)
+                .verifyComplete();
+        verify(reactiveWorkItemRepository, never()).findAll();
+    }
+
+    @Test
+    void streamReport_counters_shouldReadTheCountersDocument() {
+        // Prepare test data
+        reportProperties.setMode(ReportProperties.Mode.COUNTERS);
+        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+        reportItem.setTotalItems(3);
+        reportItem.setProcessedItems(2);
+        when(reactiveReportCounterStore.snapshot()).thenReturn(Mono.just(Map.of(6, reportItem)));
+
+        // Execute the method under test and verify
+        StepVerifier.create(reactiveWorkItemService.streamReport())
+                .assertNext(reportRow -> {
+                    assertEquals(6, reportRow.getValue());
+                    assertEquals(3, reportRow.getTotalItems());
+                    assertEquals(2, reportRow.getProcessedItems());
+                })
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ReportProperties;
+import com.example.workitem.dtos.ReportDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportArtifactCacheTest {
+
+    private ReportProperties reportProperties;
+
+    private ReportArtifactCache reportArtifactCache;
+
+    @BeforeEach
+    void setUp() {
+        reportProperties = new ReportProperties();
+        reportArtifactCache = new ReportArtifactCache(reportProperties);
+    }
+
+    @Test
+    void get_shouldReturnArtifactUntilDataChanges() {
+        // Prepare test data
+        reportArtifactCache.put("report", reportArtifactCache.currentVersion(), "pdf", "\"1\"");
+
+        // Execute and verify
+        assertEquals("pdf", reportArtifactCache.<String>get("report").getBody());
+        reportArtifactCache.invalidate();
+        assertNull(reportArtifactCache.get("report"));
+    }
+
+    @Test
+    void put_shouldNotCacheArtifactBuiltFromOlderVersion() {
+        // Prepare test data: the data changes while the report is being generated
+        long version = reportArtifactCache.currentVersion();
+        reportArtifactCache.invalidate();
+
+        // Execute the method under test
+        ReportArtifactCache.ReportArtifact<String> artifact = reportArtifactCache.put("report", version, "pdf", "\"1\"");
+
+        // Verify the result
+        assertEquals("pdf", artifact.getBody());
+        assertNull(reportArtifactCache.get("report"));
+    }
+
+    @Test
+    void get_shouldExpireArtifactAfterTtl() {
+        // Prepare test data
+        reportProperties.getCache().setTtlMs(0);
+        reportArtifactCache.put("report", reportArtifactCache.currentVersion(), "pdf", "\"1\"");
+
+        // Execute and verify
+        assertNull(reportArtifactCache.get("report"));
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsedBeyondMaxEntries() {
+        // Prepare test data
+        reportProperties.getCache().setMaxEntries(2);
+        long version = reportArtifactCache.currentVersion();
+        reportArtifactCache.put("a", version, "a", "\"a\"");
+        reportArtifactCache.put("b", version, "b", "\"b\"");
+        reportArtifactCache.get("a");
+
+        // Execute the method under test
+        reportArtifactCache.put("c", version, "c", "\"c\"");
+
+        // Verify the result
+        assertNotNull(reportArtifactCache.get("a"));
+        assertNull(reportArtifactCache.get("b"));
+        assertNotNull(reportArtifactCache.get("c"));
+    }
+
+    @Test
+    void etag_shouldDependOnCountsOnly() {
+        // Prepare test data
+        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+        reportItem.setTotalItems(2);
+        reportItem.setProcessedItems(1);
+        ReportDto.ReportItem changed = new ReportDto.ReportItem();
+        changed.setTotalItems(2);
+        changed.setProcessedItems(2);
+
+        // Execute and verify
+        assertEquals(ReportArtifactCache.etag(Map.of(3, reportItem)), ReportArtifactCache.etag(Map.of(3, reportItem)));
+        assertNotEquals(ReportArtifactCache.etag(Map.of(3, reportItem)), ReportArtifactCache.etag(Map.of(3, changed)));
+        assertTrue(ReportArtifactCache.etag(Map.of(3, reportItem)).startsWith("\""));
+    }
+
+    @Test
+    void pdfEtag_shouldDependOnCountsAndDifferFromJsonEtag() {
+        // Prepare test data
+        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+        reportItem.setTotalItems(2);
+        reportItem.setProcessedItems(1);
+        ReportDto.ReportItem changed = new ReportDto.ReportItem();
+        changed.setTotalItems(2);
+        changed.setProcessedItems(2);
+
+        // Execute and verify
+        assertEquals(ReportArtifactCache.pdfEtag(Map.of(3, reportItem)), ReportArtifactCache.pdfEtag(Map.of(3, reportItem)));
+        assertNotEquals(ReportArtifactCache.pdfEtag(Map.of(3, reportItem)), ReportArtifactCache.pdfEtag(Map.of(3, changed)));
+        assertNotEquals(ReportArtifactCache.etag(Map.of(3, reportItem)), ReportArtifactCache.pdfEtag(Map.of(3, reportItem)));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.workitem.service;
+
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.repositories.WorkItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReportCounterReconcilerTest {
+
+    private WorkItemRepository workItemRepository;
+
+    private ReportCounterStore reportCounterStore;
+
+    private ReportCounterReconciler reportCounterReconciler;
+
+    @BeforeEach
+    void setUp() {
+        workItemRepository = mock(WorkItemRepository.class);
+        reportCounterStore = mock(ReportCounterStore.class);
+        reportCounterReconciler = new ReportCounterReconciler(workItemRepository, reportCounterStore,
+                mock(ReportArtifactCache.class));
+    }
+
+    @Test
+    void reconcile_shouldSetCountersFromCollectionWhenTheyDrifted() {
+        // Prepare test data
+        when(reportCounterStore.isEnabled()).thenReturn(true);
+        Map<Integer, ReportDto.ReportItem> actual = new HashMap<>();
+        actual.put(1, reportItem(3, 2));
+        actual.put(2, reportItem(1, 0));
+        Map<Integer, ReportDto.ReportItem> counted = new HashMap<>();
+        counted.put(1, reportItem(3, 2));
+        counted.put(4, reportItem(2, 1));
+        when(workItemRepository.aggregateReportData()).thenReturn(actual);
+        when(reportCounterStore.versionedSnapshot()).thenReturn(new ReportCounterStore.Snapshot(7, counted));
+        when(reportCounterStore.replace(7, actual)).thenReturn(true);
+
+        // Execute the method under test
+        Map<Integer, ReportDto.ReportItem> drift = reportCounterReconciler.reconcile();
+
+        // Verify the result
+        assertEquals(2, drift.size());
+        assertEquals(1, drift.get(2).getTotalItems());
+        assertEquals(-2, drift.get(4).getTotalItems());
+        assertEquals(-1, drift.get(4).getProcessedItems());
+        verify(reportCounterStore).replace(7, actual);
+    }
+
+    @Test
+    void reconcile_withConcurrentWrite_shouldRetryAgainstFreshCounters() {
+        // Prepare test data: a work item is created between the first snapshot and the guarded $set
+        when(reportCounterStore.isEnabled()).thenReturn(true);
+        Map<Integer, ReportDto.ReportItem> actual = Map.of(1, reportItem(4, 2));
+        when(workItemRepository.aggregateReportData()).thenReturn(actual);
+        when(reportCounterStore.versionedSnapshot()).thenReturn(
+                new ReportCounterStore.Snapshot(7, Map.of(1, reportItem(2, 2))),
+                new ReportCounterStore.Snapshot(8, Map.of(1, reportItem(3, 2))));
+        when(reportCounterStore.replace(7, actual)).thenReturn(false);
+        when(reportCounterStore.replace(8, actual)).thenReturn(true);
+
+        // Execute the method under test
+        Map<Integer, ReportDto.ReportItem> drift = reportCounterReconciler.reconcile();
+
+        // Verify the result
+        assertEquals(1, drift.get(1).getTotalItems());
+        verify(reportCounterStore, times(2)).versionedSnapshot();
+        verify(reportCounterStore).replace(8, actual);
+    }
+
+    @Test
+    void reconcile_withCountersAlwaysChanging_shouldGiveUpWithoutWriting() {
+        // Prepare test data
+        when(reportCounterStore.isEnabled()).thenReturn(true);
+        when(workItemRepository.aggregateReportData()).thenReturn(Map.of(1, reportItem(4, 2)));
+        when(reportCounterStore.versionedSnapshot()).thenReturn(new ReportCounterStore.Snapshot(7, Map.of()));
+        when(reportCounterStore.replace(anyLong(), anyMap())).thenReturn(false);
+
+        // Execute the method under test
+        Map<Integer, ReportDto.ReportItem> drift = reportCounterReconciler.reconcile();
+
+        // Verify the result
+        assertTrue(drift.isEmpty());
+        verify(reportCounterStore, times(3)).replace(anyLong(), anyMap());
+    }
+
+    @Test
+    void reconcile_withoutDrift_shouldNotWrite() {
+        // Prepare test data
+        when(reportCounterStore.isEnabled()).thenReturn(true);
+        when(workItemRepository.aggregateReportData()).thenReturn(Map.of(1, reportItem(3, 2)));
+        when(reportCounterStore.versionedSnapshot()).thenReturn(new ReportCounterStore.Snapshot(7, Map.of(1, reportItem(3, 2))));
+
+        // Execute the method under test
+        Map<Integer, ReportDto.ReportItem> drift = reportCounterReconciler.reconcile();
+
+        // Verify the result
+        assertTrue(drift.isEmpty());
+        verify(reportCounterStore, never()).replace(anyLong(), anyMap());
+    }
+
+    @Test
+    void reconcile_withCountersDisabled_shouldNotScanCollection() {
+        // Execute the method under test
+        reportCounterReconciler.reconcile();
+
+        // Verify the interaction
+        verifyNoInteractions(workItemRepository);
+    }
+
+    private ReportDto.ReportItem reportItem(int totalItems, int processedItems) {
+        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+        reportItem.setTotalItems(totalItems);
+        reportItem.setProcessedItems(processedItems);
+        return reportItem;
+    }
+}
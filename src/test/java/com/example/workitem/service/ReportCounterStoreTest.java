@@ -0,0 +1,156 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ReportProperties;
+import com.example.workitem.dtos.ReportDto;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReportCounterStoreTest {
+
+    private MongoTemplate mongoTemplate;
+
+    private ReportProperties reportProperties;
+
+    private ReportCounterStore reportCounterStore;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        reportProperties = new ReportProperties();
+        reportProperties.setMode(ReportProperties.Mode.COUNTERS);
+        reportCounterStore = new ReportCounterStore(mongoTemplate, reportProperties);
+    }
+
+    @Test
+    void recordCreated_shouldIncrementTotalItemsForValue() {
+        // Execute the method under test
+        reportCounterStore.recordCreated(5);
+
+        // Verify the update
+        Document inc = captureIncrement();
+        assertEquals(1, inc.get("totalItems.5"));
+        assertFalse(inc.containsKey("processedItems.5"));
+        assertEquals(1, inc.get("version"));
+    }
+
+    @Test
+    void recordDeleted_withProcessedItem_shouldDecrementBothCounters() {
+        // Execute the method under test
+        reportCounterStore.recordDeleted(3, true);
+
+        // Verify the update
+        Document inc = captureIncrement();
+        assertEquals(-1, inc.get("totalItems.3"));
+        assertEquals(-1, inc.get("processedItems.3"));
+    }
+
+    @Test
+    void recordProcessed_withOtherReportMode_shouldNotWrite() {
+        // Prepare test data
+        reportProperties.setMode(ReportProperties.Mode.AGGREGATION);
+
+        // Execute the method under test
+        reportCounterStore.recordProcessed(3);
+
+        // Verify the interaction
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void snapshot_shouldMapCountersAndSkipEmptyValues() {
+        // Prepare test data
+        Document counters = new Document("_id", ReportCounterStore.DOCUMENT_ID)
+                .append("totalItems", new Document("2", 4).append("9", 0).append("10", 1))
+                .append("processedItems", new Document("2", 3));
+        when(mongoTemplate.findById(ReportCounterStore.DOCUMENT_ID, Document.class, ReportCounterStore.COLLECTION))
+                .thenReturn(counters);
+
+        // Execute the method under test
+        Map<Integer, ReportDto.ReportItem> reportData = reportCounterStore.snapshot();
+
+        // Verify the result
+        assertEquals(2, reportData.size());
+        assertEquals(4, reportData.get(2).getTotalItems());
+        assertEquals(3, reportData.get(2).getProcessedItems());
+        assertEquals(1, reportData.get(10).getTotalItems());
+        assertEquals(0, reportData.get(10).getProcessedItems());
+    }
+
+    @Test
+    void snapshot_withoutCountersDocument_shouldReturnEmptyReport() {
+        // Execute the method under test
+        Map<Integer, ReportDto.ReportItem> reportData = reportCounterStore.snapshot();
+
+        // Verify the result
+        assertTrue(reportData.isEmpty());
+    }
+
+    @Test
+    void versionedSnapshot_shouldReadVersionWithCounters() {
+        // Prepare test data
+        Document counters = new Document("_id", ReportCounterStore.DOCUMENT_ID)
+                .append("totalItems", new Document("2", 4))
+                .append("version", 7);
+        when(mongoTemplate.findById(ReportCounterStore.DOCUMENT_ID, Document.class, ReportCounterStore.COLLECTION))
+                .thenReturn(counters);
+
+        // Execute the method under test
+        ReportCounterStore.Snapshot snapshot = reportCounterStore.versionedSnapshot();
+
+        // Verify the result
+        assertEquals(7, snapshot.version());
+        assertEquals(4, snapshot.reportData().get(2).getTotalItems());
+    }
+
+    @Test
+    void replace_shouldSetCountersOnlyAtExpectedVersion() {
+        // Prepare test data
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ReportCounterStore.COLLECTION)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+        reportItem.setTotalItems(4);
+        reportItem.setProcessedItems(3);
+
+        // Execute the method under test
+        boolean replaced = reportCounterStore.replace(7, Map.of(2, reportItem));
+
+        // Verify the update
+        assertTrue(replaced);
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(queryCaptor.capture(), updateCaptor.capture(), eq(ReportCounterStore.COLLECTION));
+        assertEquals(7L, queryCaptor.getValue().getQueryObject().get("version"));
+        Document set = updateCaptor.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(new Document("2", 4), set.get("totalItems"));
+        assertEquals(new Document("2", 3), set.get("processedItems"));
+        assertEquals(1, updateCaptor.getValue().getUpdateObject().get("$inc", Document.class).get("version"));
+    }
+
+    @Test
+    void replace_afterConcurrentWrite_shouldReportConflict() {
+        // Prepare test data: the version moved on, so the guarded upsert tries to insert a second counters document
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ReportCounterStore.COLLECTION)))
+                .thenThrow(new DuplicateKeyException("E11000"));
+
+        // Execute and verify
+        assertFalse(reportCounterStore.replace(7, Map.of()));
+    }
+
+    private Document captureIncrement() {
+        ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), updateCaptor.capture(), eq(ReportCounterStore.COLLECTION));
+        return updateCaptor.getValue().getUpdateObject().get("$inc", Document.class);
+    }
+}
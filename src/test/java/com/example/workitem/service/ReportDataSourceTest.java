@@ -0,0 +1,53 @@
+package com.example.workitem.service;
+
+import com.example.workitem.dtos.ReportDto;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReportDataSourceTest {
+
+    @Test
+    void next_shouldReturnRowsInValueOrder() throws JRException {
+        // Prepare test data
+        ReportDataSource dataSource = new ReportDataSource(Map.of(8, reportItem(3, 2), 2, reportItem(5, 0)));
+
+        // Execute and verify
+        assertTrue(dataSource.next());
+        assertEquals(2, dataSource.getFieldValue(field("value")));
+        assertEquals(5, dataSource.getFieldValue(field("totalItems")));
+        assertEquals(0, dataSource.getFieldValue(field("processedItems")));
+        assertTrue(dataSource.next());
+        assertEquals(8, dataSource.getFieldValue(field("value")));
+        assertEquals(2, dataSource.getFieldValue(field("processedItems")));
+        assertFalse(dataSource.next());
+    }
+
+    @Test
+    void getFieldValue_shouldRejectUnknownField() {
+        // Prepare test data
+        ReportDataSource dataSource = new ReportDataSource(Map.of(1, reportItem(1, 1)));
+        dataSource.next();
+
+        // Execute and verify
+        assertThrows(JRException.class, () -> dataSource.getFieldValue(field("result")));
+    }
+
+    private ReportDto.ReportItem reportItem(int totalItems, int processedItems) {
+        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+        reportItem.setTotalItems(totalItems);
+        reportItem.setProcessedItems(processedItems);
+        return reportItem;
+    }
+
+    private JRField field(String name) {
+        JRField field = mock(JRField.class);
+        when(field.getName()).thenReturn(name);
+        return field;
+    }
+}
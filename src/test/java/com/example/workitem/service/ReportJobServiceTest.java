@@ -0,0 +1,152 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ReportProperties;
+import com.example.workitem.dtos.ReportDto;
+import com.example.workitem.exceptions.ReportJobRejectedException;
+import com.example.workitem.exceptions.ReportGenerationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReportJobServiceTest {
+
+    private WorkItemService workItemService;
+
+    private ReportProperties reportProperties;
+
+    private ReportArtifactCache reportArtifactCache;
+
+    private ReportJobService reportJobService;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        workItemService = mock(WorkItemService.class);
+        reportProperties = new ReportProperties();
+        reportProperties.getJobs().setMaxConcurrent(1);
+        reportProperties.getJobs().setQueueCapacity(1);
+        reportArtifactCache = new ReportArtifactCache(reportProperties);
+        reportJobService = new ReportJobService(workItemService, reportArtifactCache, new ObjectMapper(), reportProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        reportJobService.shutdown();
+    }
+
+    @Test
+    void submit_shouldGenerateReportInBackground() throws Exception {
+        // Prepare test data
+        FilledPdfReport pdfReport = pdfReport("pdf".getBytes());
+        when(workItemService.fillPdfReport()).thenReturn(pdfReport);
+
+        // Execute the method under test
+        ReportJob job = reportJobService.submit(ReportFormat.PDF);
+
+        // Verify the result
+        awaitFinished(job);
+        assertEquals(ReportJob.Status.DONE, job.getStatus());
+        assertArrayEquals("pdf".getBytes(), job.getReport());
+        assertEquals("\"pdf-etag\"", job.getEtag());
+        assertSame(job, reportJobService.getJob(job.getId()));
+    }
+
+    @Test
+    void submit_shouldJoinIdenticalJobInFlight() throws Exception {
+        // Prepare test data
+        FilledPdfReport pdfReport = pdfReport("pdf".getBytes());
+        when(workItemService.fillPdfReport()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return pdfReport;
+        });
+
+        // Execute the method under test
+        ReportJob first = reportJobService.submit(ReportFormat.PDF);
+        ReportJob second = reportJobService.submit(ReportFormat.PDF);
+        release.countDown();
+
+        // Verify the result
+        assertSame(first, second);
+        awaitFinished(first);
+        verify(workItemService, times(1)).fillPdfReport();
+    }
+
+    @Test
+    void submit_shouldRejectJobsBeyondQueueCapacity() throws Exception {
+        // Prepare test data: one job running, one queued
+        FilledPdfReport pdfReport = pdfReport("pdf".getBytes());
+        when(workItemService.fillPdfReport()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return pdfReport;
+        });
+        ReportDto reportDto = new ReportDto();
+        reportDto.setReportData(new HashMap<>());
+        when(workItemService.generateReport()).thenReturn(reportDto);
+        reportJobService.submit(ReportFormat.PDF);
+        reportJobService.submit(ReportFormat.JSON);
+        reportArtifactCache.invalidate();
+
+        // Execute and verify
+        assertThrows(ReportJobRejectedException.class, () -> reportJobService.submit(ReportFormat.PDF));
+    }
+
+    @Test
+    void submit_shouldRecordFailure() throws Exception {
+        // Prepare test data
+        when(workItemService.fillPdfReport()).thenThrow(new ReportGenerationException("Jasper failed"));
+
+        // Execute the method under test
+        ReportJob job = reportJobService.submit(ReportFormat.PDF);
+
+        // Verify the result
+        awaitFinished(job);
+        assertEquals(ReportJob.Status.FAILED, job.getStatus());
+        assertEquals("Jasper failed", job.getError());
+    }
+
+    @Test
+    void evictFinishedJobs_shouldDropJobsPastRetention() throws Exception {
+        // Prepare test data
+        FilledPdfReport pdfReport = pdfReport("pdf".getBytes());
+        when(workItemService.fillPdfReport()).thenReturn(pdfReport);
+        ReportJob job = reportJobService.submit(ReportFormat.PDF);
+        awaitFinished(job);
+        reportProperties.getJobs().setRetentionMs(-1);
+
+        // Execute the method under test
+        reportJobService.evictFinishedJobs();
+
+        // Verify the result
+        assertNull(reportJobService.getJob(job.getId()));
+    }
+
+    private void awaitFinished(ReportJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished());
+    }
+
+    private FilledPdfReport pdfReport(byte[] pdf) throws Exception {
+        FilledPdfReport pdfReport = mock(FilledPdfReport.class);
+        when(pdfReport.getEtag()).thenReturn("\"pdf-etag\"");
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(0);
+            outputStream.write(pdf);
+            return null;
+        }).when(pdfReport).exportTo(any());
+        return pdfReport;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.workitem.service;
+
+import net.sf.jasperreports.engine.JasperReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.FileNotFoundException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReportTemplateCacheTest {
+
+    @Test
+    void getReport_shouldCompileTemplateOnce() throws Exception {
+        // Prepare test data
+        ReportTemplateCache reportTemplateCache = new ReportTemplateCache(new DefaultResourceLoader());
+
+        // Execute the method under test
+        JasperReport first = reportTemplateCache.getReport();
+        JasperReport second = reportTemplateCache.getReport();
+
+        // Verify the result
+        assertNotNull(first);
+        assertSame(first, second);
+    }
+
+    @Test
+    void getReport_shouldRecompileWhenTemplateChanges() throws Exception {
+        // Prepare test data
+        Resource template = new DefaultResourceLoader().getResource(ReportTemplateCache.TEMPLATE_LOCATION);
+        AtomicLong lastModified = new AtomicLong(1L);
+        Resource changingTemplate = mock(Resource.class);
+        when(changingTemplate.exists()).thenReturn(true);
+        when(changingTemplate.lastModified()).thenAnswer(invocation -> lastModified.get());
+        when(changingTemplate.getInputStream()).thenAnswer(invocation -> template.getInputStream());
+        Resource missing = mock(Resource.class);
+        ResourceLoader resourceLoader = mock(ResourceLoader.class);
+        when(resourceLoader.getResource(ReportTemplateCache.COMPILED_TEMPLATE_LOCATION)).thenReturn(missing);
+        when(resourceLoader.getResource(ReportTemplateCache.TEMPLATE_LOCATION)).thenReturn(changingTemplate);
+        ReportTemplateCache reportTemplateCache = new ReportTemplateCache(resourceLoader);
+
+        // Execute the method under test
+        JasperReport before = reportTemplateCache.getReport();
+        lastModified.set(2L);
+        JasperReport after = reportTemplateCache.getReport();
+
+        // Verify the result
+        assertNotSame(before, after);
+        verify(changingTemplate, times(2)).getInputStream();
+    }
+
+    @Test
+    void getReport_shouldThrowWhenTemplateIsMissing() {
+        // Prepare test data
+        Resource missing = mock(Resource.class);
+        ResourceLoader resourceLoader = mock(ResourceLoader.class);
+        when(resourceLoader.getResource(anyString())).thenReturn(missing);
+        ReportTemplateCache reportTemplateCache = new ReportTemplateCache(resourceLoader);
+
+        // Execute and verify
+        assertThrows(FileNotFoundException.class, reportTemplateCache::getReport);
+    }
+}
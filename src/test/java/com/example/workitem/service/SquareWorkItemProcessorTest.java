@@ -0,0 +1,70 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ProcessingProperties;
+import com.example.workitem.model.WorkItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SquareWorkItemProcessorTest {
+
+    private SquareWorkItemProcessor processor;
+
+    @BeforeEach
+    public void setUp() {
+        ProcessingProperties processingProperties = new ProcessingProperties();
+        processingProperties.setDelayPerValueMs(20);
+        processor = new SquareWorkItemProcessor(processingProperties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        processor.shutdown();
+    }
+
+    @Test
+    public void process_ReturnsImmediatelyAndCompletesWithTheSquare() throws Exception {
+        // Act
+        CompletableFuture<Integer> result = processor.process(new WorkItem(5)).toCompletableFuture();
+
+        // Assert
+        assertFalse(result.isDone());
+        assertEquals(25, result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void process_KeepsManyWorkItemsInFlightOnOneThread() throws Exception {
+        // Arrange
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        long start = System.nanoTime();
+
+        // Act: 1000 work items of 200 ms each, which would take 200 s one after the other
+        for (int i = 0; i < 1000; i++) {
+            results.add(processor.process(new WorkItem(10)).toCompletableFuture());
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+        results.forEach(result -> assertEquals(100, result.join()));
+    }
+
+    @Test
+    public void process_AfterShutdown_FailsTheResult() {
+        // Arrange
+        processor.shutdown();
+
+        // Act
+        CompletableFuture<Integer> result = processor.process(new WorkItem(1)).toCompletableFuture();
+
+        // Assert
+        assertTrue(result.isCompletedExceptionally());
+    }
+}
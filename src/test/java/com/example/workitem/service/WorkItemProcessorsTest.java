@@ -0,0 +1,50 @@
+package com.example.workitem.service;
+
+import com.example.workitem.config.ProcessingProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WorkItemProcessorsTest {
+
+    @Test
+    public void forType_SelectsTheProcessorForTheMessageType() {
+        // Arrange
+        WorkItemProcessor square = processor("square");
+        WorkItemProcessor cube = processor("cube");
+        WorkItemProcessors processors = new WorkItemProcessors(List.of(square, cube), new ProcessingProperties());
+
+        // Act and Assert
+        assertSame(cube, processors.forType("cube"));
+        assertSame(square, processors.forType("square"));
+        assertNull(processors.forType("unknown"));
+    }
+
+    @Test
+    public void forType_WithoutType_UsesTheDefaultProcessor() {
+        // Arrange
+        WorkItemProcessor square = processor("square");
+        WorkItemProcessors processors = new WorkItemProcessors(List.of(square), new ProcessingProperties());
+
+        // Act and Assert
+        assertSame(square, processors.forType(null));
+        assertSame(square, processors.forType(""));
+    }
+
+    @Test
+    public void constructor_TwoProcessorsForOneType_Fails() {
+        // Act and Assert
+        assertThrows(IllegalStateException.class,
+                () -> new WorkItemProcessors(List.of(processor("square"), processor("square")), new ProcessingProperties()));
+    }
+
+    private WorkItemProcessor processor(String type) {
+        WorkItemProcessor processor = mock(WorkItemProcessor.class);
+        when(processor.getType()).thenReturn(type);
+        return processor;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.workitem.service;
 
 
+import com.example.workitem.config.OutboxProperties;
+import com.example.workitem.config.ReportProperties;
 import com.example.workitem.dtos.ReportDto;
 import com.example.workitem.dtos.ReportExport;
 import com.example.workitem.exceptions.EmptyReportDataException;
@@ -8,6 +10,8 @@ import com.example.workitem.exceptions.ReportGenerationException;
 import com.example.workitem.messaging.WorkItemProducer;
 import com.example.workitem.model.WorkItem;
 import com.example.workitem.repositories.WorkItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import net.sf.jasperreports.engine.*;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
 import net.sf.jasperreports.engine.export.JRPdfExporter;
@@ -17,6 +21,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 //import org.powermock.api.mockito.PowerMockito;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.util.ResourceUtils;
 
 import java.io.ByteArrayOutputStream;
@@ -35,12 +40,32 @@ class WorkItemServiceTest {
     @Mock
     private WorkItemProducer workItemProducer;
 
+    @Spy
+    private ReportProperties reportProperties = new ReportProperties();
+
+    @Mock
+    private ReportCounterStore reportCounterStore;
+
+    @Spy
+    private OutboxProperties outboxProperties = new OutboxProperties();
+
+    @Mock
+    private ReportArtifactCache reportArtifactCache;
+
+    @Spy
+    private ReportTemplateCache reportTemplateCache = new ReportTemplateCache(new DefaultResourceLoader());
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private WorkItemServiceImpl workItemService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        reportProperties.setMode(ReportProperties.Mode.IN_MEMORY);
+        outboxProperties.setEnabled(false);
     }
 
     @Test
@@ -73,6 +98,48 @@ class WorkItemServiceTest {
 
         // Verify the result
         assertEquals(workItem.getId(), id);
+        verify(reportCounterStore).recordCreated(value);
+    }
+
+    @Test
+    void createWorkItem_withOutbox_shouldSaveUndispatchedWithoutSending() {
+        // Prepare test data
+        outboxProperties.setEnabled(true);
+        ArgumentCaptor<WorkItem> workItemCaptor = ArgumentCaptor.forClass(WorkItem.class);
+
+        // Execute the method under test
+        workItemService.createWorkItem(4);
+
+        // Verify the interactions
+        verify(workItemRepository).save(workItemCaptor.capture());
+        assertFalse(workItemCaptor.getValue().isDispatched());
+        verify(reportCounterStore).recordCreated(4);
+        verifyNoInteractions(workItemProducer);
+    }
+
+    @Test
+    void createWorkItems_shouldInsertOnceAndSendEachInOrder() {
+        // Prepare test data
+        doAnswer(invocation -> {
+            List<WorkItem> inserted = invocation.getArgument(0);
+            for (int i = 0; i < inserted.size(); i++) {
+                inserted.get(i).setId("id-" + i);
+            }
+            return inserted;
+        }).when(workItemRepository).insert(ArgumentMatchers.<WorkItem>anyList());
+
+        // Execute the method under test
+        List<String> ids = workItemService.createWorkItems(List.of(3, 7, 3));
+
+        // Verify the result
+        assertEquals(List.of("id-0", "id-1", "id-2"), ids);
+        verify(workItemRepository, times(1)).insert(ArgumentMatchers.<WorkItem>anyList());
+        verify(workItemRepository, never()).save(any(WorkItem.class));
+        verify(reportCounterStore).recordCreated(Map.of(3, 2, 7, 1));
+        InOrder inOrder = inOrder(workItemProducer);
+        inOrder.verify(workItemProducer).sendWorkItem("id-0", 3);
+        inOrder.verify(workItemProducer).sendWorkItem("id-1", 7);
+        inOrder.verify(workItemProducer).sendWorkItem("id-2", 3);
     }
 
 
@@ -117,6 +184,135 @@ class WorkItemServiceTest {
         verify(workItemRepository).deleteById(id);
     }
 
+    @Test
+    void deleteWorkItem_withCounters_shouldDecrementRemovedItem() {
+        // Prepare test data
+        String id = "123";
+        WorkItem workItem = new WorkItem(4);
+        workItem.setProcessed(true);
+        when(reportCounterStore.isEnabled()).thenReturn(true);
+        when(workItemRepository.removeById(id)).thenReturn(Optional.of(workItem));
+
+        // Execute the method under test
+        workItemService.deleteWorkItem(id);
+
+        // Verify the interaction
+        verify(workItemRepository, never()).deleteById(id);
+        verify(reportCounterStore).recordDeleted(4, true);
+    }
+
+    @Test
+    void deleteWorkItem_withCounters_shouldNotDecrementMissingItem() {
+        // Prepare test data
+        String id = "123";
+        when(reportCounterStore.isEnabled()).thenReturn(true);
+        when(workItemRepository.removeById(id)).thenReturn(Optional.empty());
+
+        // Execute the method under test
+        workItemService.deleteWorkItem(id);
+
+        // Verify the interaction
+        verify(reportCounterStore, never()).recordDeleted(anyInt(), anyBoolean());
+    }
+
+    @Test
+    void markProcessed_shouldSaveResultAndCountProcessedItem() {
+        // Prepare test data
+        WorkItem workItem = new WorkItem(7);
+        workItem.setId("1");
+        when(workItemRepository.markProcessed("1", 7, 49)).thenReturn(true);
+
+        // Execute the method under test
+        boolean processed = workItemService.markProcessed(workItem, 49);
+
+        // Verify the result
+        assertTrue(processed);
+        assertTrue(workItem.isProcessed());
+        assertEquals(49, workItem.getResult());
+        verify(workItemRepository, never()).save(any(WorkItem.class));
+        verify(reportCounterStore).recordProcessed(7);
+    }
+
+    @Test
+    void markProcessed_duplicate_shouldNotCountAgain() {
+        // Prepare test data: the conditional update matches nothing once the work item is processed
+        WorkItem workItem = new WorkItem(7);
+        workItem.setId("1");
+        when(workItemRepository.markProcessed("1", 7, 49)).thenReturn(false);
+
+        // Execute the method under test
+        boolean processed = workItemService.markProcessed(workItem, 49);
+
+        // Verify the result
+        assertFalse(processed);
+        assertFalse(workItem.isProcessed());
+        verify(reportCounterStore, never()).recordProcessed(anyInt());
+        verify(reportArtifactCache, never()).invalidate();
+    }
+
+    @Test
+    void markAllProcessed_shouldBulkWriteAndCountPerValue() {
+        // Prepare test data
+        WorkItem first = new WorkItem(3);
+        first.setResult(9);
+        WorkItem second = new WorkItem(3);
+        second.setResult(9);
+        WorkItem third = new WorkItem(5);
+        third.setResult(25);
+        List<WorkItem> workItems = List.of(first, second, third);
+        when(workItemRepository.markAllProcessed(workItems)).thenReturn(workItems);
+
+        // Execute the method under test
+        workItemService.markAllProcessed(workItems);
+
+        // Verify the interactions
+        verify(workItemRepository, times(1)).markAllProcessed(workItems);
+        verify(workItemRepository, never()).save(any(WorkItem.class));
+        verify(reportCounterStore).recordProcessed(Map.of(3, 2, 5, 1));
+        assertTrue(workItems.stream().allMatch(WorkItem::isProcessed));
+    }
+
+    @Test
+    void markAllProcessed_shouldCountOnlyModifiedItems() {
+        // Prepare test data: the second item is a duplicate that the bulk write did not modify
+        WorkItem first = new WorkItem(3);
+        first.setResult(9);
+        WorkItem duplicate = new WorkItem(3);
+        duplicate.setResult(9);
+        List<WorkItem> workItems = List.of(first, duplicate);
+        when(workItemRepository.markAllProcessed(workItems)).thenReturn(List.of(first));
+
+        // Execute the method under test
+        workItemService.markAllProcessed(workItems);
+
+        // Verify the interactions
+        verify(reportCounterStore).recordProcessed(Map.of(3, 1));
+        verify(reportArtifactCache).invalidate();
+    }
+
+    @Test
+    void markAllProcessed_withNothingModified_shouldNotCount() {
+        // Prepare test data
+        List<WorkItem> workItems = List.of(new WorkItem(3));
+        when(workItemRepository.markAllProcessed(workItems)).thenReturn(List.of());
+
+        // Execute the method under test
+        workItemService.markAllProcessed(workItems);
+
+        // Verify the interactions
+        verify(reportCounterStore, never()).recordProcessed(anyMap());
+        verify(reportArtifactCache, never()).invalidate();
+    }
+
+    @Test
+    void markAllProcessed_withEmptyBatch_shouldNotWrite() {
+        // Execute the method under test
+        workItemService.markAllProcessed(List.of());
+
+        // Verify the interaction
+        verify(workItemRepository, never()).markAllProcessed(anyList());
+    }
+
     @Test
     void saveWorkItem_shouldSaveWorkItem() {
         // Prepare test data
@@ -184,6 +380,72 @@ class WorkItemServiceTest {
         assertEquals(1, reportDto.getReportData().get(5).getTotalItems());
     }
 
+    @Test
+    void generateReport_withAggregationMode_shouldUseAggregatedCounts() {
+        // Prepare test data
+        reportProperties.setMode(ReportProperties.Mode.AGGREGATION);
+        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+        reportItem.setTotalItems(2);
+        reportItem.setProcessedItems(1);
+        when(workItemRepository.aggregateReportData()).thenReturn(Map.of(10, reportItem));
+
+        // Execute the method under test
+        ReportDto reportDto = workItemService.generateReport();
+
+        // Verify the result
+        assertEquals(1, reportDto.getReportData().size());
+        assertEquals(2, reportDto.getReportData().get(10).getTotalItems());
+        assertEquals(1, reportDto.getReportData().get(10).getProcessedItems());
+        verify(workItemRepository, never()).findAll();
+    }
+
+    @Test
+    void generateReport_withCountersMode_shouldReadCounters() {
+        // Prepare test data
+        reportProperties.setMode(ReportProperties.Mode.COUNTERS);
+        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+        reportItem.setTotalItems(5);
+        when(reportCounterStore.snapshot()).thenReturn(Map.of(2, reportItem));
+
+        // Execute the method under test
+        ReportDto reportDto = workItemService.generateReport();
+
+        // Verify the result
+        assertEquals(5, reportDto.getReportData().get(2).getTotalItems());
+        verify(workItemRepository, never()).findAll();
+        verify(workItemRepository, never()).aggregateReportData();
+    }
+
+    @Test
+    void generateReport_withInMemoryMode_shouldNotAggregate() {
+        // Prepare test data
+        when(workItemRepository.findAll()).thenReturn(List.of(new WorkItem(3)));
+
+        // Execute the method under test
+        ReportDto reportDto = workItemService.generateReport();
+
+        // Verify the result
+        assertEquals(1, reportDto.getReportData().get(3).getTotalItems());
+        verify(workItemRepository, never()).aggregateReportData();
+    }
+
+    @Test
+    void generateReport_shouldRecordGenerationTimeUnderTheConfiguredMode() {
+        // Prepare test data: the mode is read once, when the timer is registered
+        reportProperties.setMode(ReportProperties.Mode.COUNTERS);
+        WorkItemServiceImpl countersService = new WorkItemServiceImpl(workItemRepository, workItemProducer,
+                reportProperties, reportCounterStore, outboxProperties, reportTemplateCache, reportArtifactCache,
+                meterRegistry);
+
+        // Execute the method under test
+        countersService.generateReport();
+        countersService.generateReport();
+
+        // Verify the result
+        assertEquals(2, meterRegistry.get("workitem.report.generate").tag("mode", "counters").timer().count());
+        verify(workItemRepository, never()).findAll();
+    }
+
     @Test
     void getReportsForExport_shouldReturnValidReportExports() {
         // Prepare test data
@@ -233,6 +495,26 @@ class WorkItemServiceTest {
         // Verify the result
         assertNotNull(pdfReport);
         assertTrue(pdfReport.length > 0);
+        assertEquals(1, meterRegistry.get("workitem.report.pdf").tag("phase", "fill").timer().count());
+        assertEquals(1, meterRegistry.get("workitem.report.pdf").tag("phase", "export").timer().count());
+    }
+
+    @Test
+    void generatePdfReport_withAggregationMode_shouldReadReportDataOnce() throws Exception {
+        // Prepare test data
+        reportProperties.setMode(ReportProperties.Mode.AGGREGATION);
+        ReportDto.ReportItem reportItem = new ReportDto.ReportItem();
+        reportItem.setTotalItems(3);
+        reportItem.setProcessedItems(1);
+        when(workItemRepository.aggregateReportData()).thenReturn(Map.of(4, reportItem));
+
+        // Execute the method under test
+        byte[] pdfReport = workItemService.generatePdfReport();
+
+        // Verify the result
+        assertTrue(pdfReport.length > 0);
+        verify(workItemRepository, times(1)).aggregateReportData();
+        verify(workItemRepository, never()).findAll();
     }
 
     @Test
@@ -0,0 +1,67 @@
+package com.example.workitem.service;
+
+import com.example.workitem.model.WorkItem;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static com.example.workitem.service.CsvExportWriterTest.reportItem;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class XlsxExportWriterTest {
+
+    private final XlsxExportWriter writer = new XlsxExportWriter();
+
+    @Test
+    public void writeWorkItems_WritesMoreRowsThanTheWindow() throws Exception {
+        // Arrange: more rows than SXSSF keeps in memory, so earlier rows have been flushed to disk
+        int count = XlsxExportWriter.ROW_WINDOW * 3;
+        List<WorkItem> workItems = IntStream.range(0, count).mapToObj(i -> {
+            WorkItem workItem = new WorkItem(i % 10 + 1);
+            workItem.setId("id-" + i);
+            return workItem;
+        }).toList();
+        workItems.get(0).setProcessed(true);
+        workItems.get(0).setResult(1);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        writer.writeWorkItems(workItems.iterator(), outputStream);
+
+        // Assert
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Sheet sheet = workbook.getSheet(XlsxExportWriter.WORK_ITEM_SHEET);
+            assertEquals(count, sheet.getLastRowNum());
+            assertEquals("id", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("id-0", sheet.getRow(1).getCell(0).getStringCellValue());
+            assertTrue(sheet.getRow(1).getCell(2).getBooleanCellValue());
+            assertEquals(1, sheet.getRow(1).getCell(3).getNumericCellValue());
+            assertNull(sheet.getRow(2).getCell(3));
+            assertEquals("id-" + (count - 1), sheet.getRow(count).getCell(0).getStringCellValue());
+        }
+    }
+
+    @Test
+    public void writeReport_WritesOneRowPerValue() throws Exception {
+        // Arrange
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        writer.writeReport(Map.of(4, reportItem(3, 2)), outputStream);
+
+        // Assert
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Sheet sheet = workbook.getSheet(XlsxExportWriter.REPORT_SHEET);
+            assertEquals(1, sheet.getLastRowNum());
+            assertEquals(4, sheet.getRow(1).getCell(0).getNumericCellValue());
+            assertEquals(3, sheet.getRow(1).getCell(1).getNumericCellValue());
+            assertEquals(2, sheet.getRow(1).getCell(2).getNumericCellValue());
+        }
+    }
+}